@@ -3,10 +3,17 @@ package org.firstinspires.ftc.teamcode;
 
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 
+import org.firstinspires.ftc.teamcode.components.Command;
+import org.firstinspires.ftc.teamcode.components.ComponentCommand;
 import org.firstinspires.ftc.teamcode.components.LinearSlide;
+import org.firstinspires.ftc.teamcode.components.LinearSlide.SlideHeight;
+import org.firstinspires.ftc.teamcode.components.ParallelCommand;
 import org.firstinspires.ftc.teamcode.components.Robot;
 import org.firstinspires.ftc.teamcode.components.Robot.Camera;
+import org.firstinspires.ftc.teamcode.components.SequentialCommand;
 import org.firstinspires.ftc.teamcode.components.Turret;
+import org.firstinspires.ftc.teamcode.components.WaitUntilCommand;
+import org.firstinspires.ftc.teamcode.geometry.Heading;
 import org.firstinspires.ftc.teamcode.geometry.Position;
 import org.openftc.apriltag.AprilTagDetection;
 
@@ -16,6 +23,12 @@ public abstract class AutoMain extends LinearOpMode {
 
     protected static final double BASE_SPEED = .7;
 
+    /**
+     * The most seconds a turret move waits for the slide to be high enough, so a slide that is held up doesn't stop
+     * the rest of the path.
+     */
+    private static final double TURRET_WAIT_TIMEOUT = 3;
+
     protected int coneCount = 5;
 
     protected Robot robot;
@@ -35,23 +48,32 @@ public abstract class AutoMain extends LinearOpMode {
 
             waitForStart();
 
-            aprilTagDetection = robot.getAprilTagDetector().waitForDetection(2);
+            // The robot is updated while it looks at the signal sleeve, so the drive train also corrects its starting
+            // pose from the tag.
+            aprilTagDetection = robot.waitForAprilTagDetection(2);
             telemetry.log().add("Detected Tag: " + (aprilTagDetection != null ? aprilTagDetection.id : null));
 
-            robot.getAprilTagDetector().deactivate();
-            robot.getWebCamAprilTag().stop();
+            // Correct the position from the tile edges the whole way through.
+            robot.getDriveTrain().activateTileEdgeDetection();
 
-            robot.getSlide().moveToHeight(LinearSlide.SlideHeight.TRAVEL);
-            robot.waitForCommandsToFinish();
-            robot.getTurret().moveToOrientation(Turret.Orientation.FRONT);
+            // Raise the slide, and turn the turret to the front as soon as it is high enough.  The robot stays put, so
+            // the AprilTag detector keeps correcting its pose until then.
+            robot.execute(new ParallelCommand(
+                    slideTo(LinearSlide.SlideHeight.TRAVEL),
+                    turretTo(Turret.Orientation.FRONT)
+            ));
             robot.waitForCommandsToFinish();
 
+            robot.getAprilTagDetector().deactivate();
+            robot.getWebCamAprilTag().stop();
+
             // Allow the child class to run its auto path.
             runAutoPath();
 
         } finally {
             // Save the position to disk, so it can be picked up by the TeleOp
             robot.savePositionToDisk();
+            robot.stop();
         }
     }
 
@@ -63,10 +85,11 @@ public abstract class AutoMain extends LinearOpMode {
         robot.init();
         robotDescriptor = robot.getRobotContext().robotDescriptor;
 
-        // For auto paths, don't use tile edge detection except at key points
+        // Leave the tile edge detection off until the AprilTag has been detected.
         robot.getDriveTrain().deactivateTileEdgeDetection();
 
-        //robot.getWebCamFront().waitUntilReady();
+        // Wait for the cameras, IMU and AprilTag detector, which all initialize at the same time.
+        robot.waitForInit();
         robot.getAprilTagDetector().activate();
 
         robot.getDriveTrain().setPosition(getStartPosition());
@@ -74,6 +97,81 @@ public abstract class AutoMain extends LinearOpMode {
 
     protected abstract Position getStartPosition();
 
+    /**
+     * Returns a command that drives to the given position.
+     */
+    protected Command driveTo(final Position position, final double speed) {
+        return new ComponentCommand(robot.getDriveTrain(), "Drive to " + position, new ComponentCommand.Instruction() {
+            @Override
+            public void issue() {
+                robot.getDriveTrain().moveToTargetPosition(position, speed);
+            }
+        });
+    }
+
+    /**
+     * Returns a command that drives to the given position and heading.
+     */
+    protected Command driveTo(final Position position, final Heading heading, final double speed) {
+        return new ComponentCommand(robot.getDriveTrain(), "Drive to " + position, new ComponentCommand.Instruction() {
+            @Override
+            public void issue() {
+                robot.getDriveTrain().moveToTargetPosition(position, heading, speed);
+            }
+        });
+    }
+
+    /**
+     * Returns a command that drives through the given positions without stopping at each one, turning to the given
+     * heading on the way to the first.
+     */
+    protected Command driveThrough(final double speed, final Heading heading, final Position... positions) {
+        String description = "Drive through " + Arrays.toString(positions);
+        return new ComponentCommand(robot.getDriveTrain(), description, new ComponentCommand.Instruction() {
+            @Override
+            public void issue() {
+                // The moves are queued together so the drive train can blend them into a single path.
+                robot.getDriveTrain().moveToTargetPosition(positions[0], heading, speed);
+                for (int i = 1; i < positions.length; i++) {
+                    robot.getDriveTrain().moveToTargetPosition(positions[i], speed);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns a command that moves the slide to the given height.
+     */
+    protected Command slideTo(final SlideHeight height) {
+        return new ComponentCommand(robot.getSlide(), "Slide to " + height, new ComponentCommand.Instruction() {
+            @Override
+            public void issue() {
+                robot.getSlide().moveToHeight(height);
+            }
+        });
+    }
+
+    /**
+     * Returns a command that waits until the slide is high enough for the turret to move safely, if the slide is
+     * headed high enough, and then turns the turret to the given orientation.
+     */
+    protected Command turretTo(final Turret.Orientation orientation) {
+        return new SequentialCommand(
+                new WaitUntilCommand(new WaitUntilCommand.Condition() {
+                    @Override
+                    public boolean isTrue() {
+                        return robot.getSlide().isReadyForTurret();
+                    }
+                }, TURRET_WAIT_TIMEOUT),
+                new ComponentCommand(robot.getTurret(), "Turret to " + orientation, new ComponentCommand.Instruction() {
+                    @Override
+                    public void issue() {
+                        robot.getTurret().moveToOrientation(orientation);
+                    }
+                })
+        );
+    }
+
     protected int getAprilTagPosition() {
         return aprilTagDetection != null ? aprilTagDetection.id : 2;
     }
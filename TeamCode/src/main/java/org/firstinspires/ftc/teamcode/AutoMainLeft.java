@@ -4,6 +4,7 @@ import static org.firstinspires.ftc.teamcode.components.LinearSlide.SlideHeight.
 import static org.firstinspires.ftc.teamcode.components.LinearSlide.SlideHeight.INTAKE;
 import static org.firstinspires.ftc.teamcode.components.LinearSlide.SlideHeight.MEDIUM_POLE;
 import static org.firstinspires.ftc.teamcode.components.LinearSlide.SlideHeight.SMALL_POLE;
+import static org.firstinspires.ftc.teamcode.components.LinearSlide.SlideHeight.TOP_POLE;
 import static org.firstinspires.ftc.teamcode.components.LinearSlide.SlideHeight.TRAVEL;
 import static org.firstinspires.ftc.teamcode.components.Turret.Orientation.BACK;
 import static org.firstinspires.ftc.teamcode.components.Turret.Orientation.FRONT;
@@ -12,7 +13,7 @@ import static org.firstinspires.ftc.teamcode.util.DistanceUtil.inchesToTiles;
 
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 
-import org.firstinspires.ftc.teamcode.components.LinearSlide;
+import org.firstinspires.ftc.teamcode.components.ParallelCommand;
 import org.firstinspires.ftc.teamcode.geometry.Heading;
 import org.firstinspires.ftc.teamcode.geometry.Position;
 
@@ -34,9 +35,11 @@ public class AutoMainLeft extends AutoMain {
         //robot.getDriveTrain().waitForTileEdgeDetection(1.0);
 
         //move to medium pole and prepare to drop off
-        robot.getDriveTrain().moveToTargetPosition(new Position(1.5, 2), new Heading(0), BASE_SPEED);
-        robot.getTurret().moveToOrientation(FRONT);
-        robot.getSlide().moveToHeight(LinearSlide.SlideHeight.MEDIUM_POLE);
+        robot.execute(new ParallelCommand(
+                driveTo(new Position(1.5, 2), new Heading(0), BASE_SPEED),
+                slideTo(MEDIUM_POLE),
+                turretTo(FRONT)
+        ));
         robot.waitForCommandsToFinish();
 
         // Wait until we get an observation to make sure we are where we expect
@@ -60,8 +63,6 @@ public class AutoMainLeft extends AutoMain {
         robot.getSlide().moveToHeight(TRAVEL);
         robot.waitForCommandsToFinish();
 
-        robot.getDriveTrain().waitForTileEdgeDetection(0.5, 1.0);
-
         getNewCone();
         deliverToPole(Pole.HIGH);
 
@@ -78,8 +79,10 @@ public class AutoMainLeft extends AutoMain {
     //Used after recentered
     protected void getNewCone() {
         //get to stack
-        robot.getDriveTrain().moveToTargetPosition(new Position(inchesToTiles(15), 2.5), BASE_SPEED);
-        robot.getTurret().moveToOrientation(BACK);
+        robot.execute(new ParallelCommand(
+                driveTo(new Position(inchesToTiles(15), 2.5), BASE_SPEED),
+                turretTo(BACK)
+        ));
         robot.waitForCommandsToFinish();
 
         //intake
@@ -98,9 +101,12 @@ public class AutoMainLeft extends AutoMain {
 
     protected void deliverToPole(Pole pole) {
         if (pole == Pole.HIGH) {
-            robot.getSlide().moveToHeight(LinearSlide.SlideHeight.TOP_POLE);
-            robot.getTurret().moveToOrientation(LEFT_SIDE);
-            robot.getDriveTrain().moveToTargetPosition(new Position(2, 2.5), BASE_SPEED);
+            // Raise the slide while driving, and turn the turret as soon as the slide is high enough.
+            robot.execute(new ParallelCommand(
+                    slideTo(TOP_POLE),
+                    driveTo(new Position(2, 2.5), BASE_SPEED),
+                    turretTo(LEFT_SIDE)
+            ));
             robot.waitForCommandsToFinish();
 
             robot.getDriveTrain().moveToTargetPosition(new Position(2,2.60), BASE_SPEED);
@@ -119,10 +125,13 @@ public class AutoMainLeft extends AutoMain {
             robot.getSlide().moveToHeight(TRAVEL);
 
         } else if (pole == Pole.MEDIUM) {
-            robot.getSlide().moveToHeight(MEDIUM_POLE);
-            robot.getTurret().moveToOrientation(FRONT);
-            robot.getDriveTrain().moveToTargetPosition(new Position(1.5, 2.5), new Heading(-45), BASE_SPEED);
-            robot.getDriveTrain().moveToTargetPosition(new Position(1 + inchesToTiles(19), 2 + inchesToTiles(4)), BASE_SPEED);
+            robot.execute(new ParallelCommand(
+                    slideTo(MEDIUM_POLE),
+                    driveThrough(BASE_SPEED, new Heading(-45),
+                            new Position(1.5, 2.5),
+                            new Position(1 + inchesToTiles(19), 2 + inchesToTiles(4))),
+                    turretTo(FRONT)
+            ));
             robot.waitForCommandsToFinish();
 
             robot.getIntake().outtake(0.5);
@@ -133,10 +142,13 @@ public class AutoMainLeft extends AutoMain {
             robot.getSlide().moveToHeight(TRAVEL);
 
         } else if (pole == Pole.LOW) {
-            robot.getSlide().moveToHeight(SMALL_POLE);
-            robot.getTurret().moveToOrientation(FRONT);
-            robot.getDriveTrain().moveToTargetPosition(new Position(.5, 2.5), new Heading(-45), BASE_SPEED);
-            robot.getDriveTrain().moveToTargetPosition(new Position(inchesToTiles(19), 2 + inchesToTiles(4)), BASE_SPEED);
+            robot.execute(new ParallelCommand(
+                    slideTo(SMALL_POLE),
+                    driveThrough(BASE_SPEED, new Heading(-45),
+                            new Position(.5, 2.5),
+                            new Position(inchesToTiles(19), 2 + inchesToTiles(4))),
+                    turretTo(FRONT)
+            ));
             robot.waitForCommandsToFinish();
 
             robot.getIntake().outtake(0.5);
@@ -145,10 +157,13 @@ public class AutoMainLeft extends AutoMain {
             robot.getSlide().moveToHeight(TRAVEL);
             robot.getDriveTrain().moveToTargetPosition(new Position(.5, 2.5), new Heading(0), BASE_SPEED);
         } else if (pole == Pole.GROUND) {
-            robot.getSlide().moveToHeight(GROUND_LEVEL);
-            robot.getTurret().moveToOrientation(FRONT);
-            robot.getDriveTrain().moveToTargetPosition(new Position(.5, 2.5), new Heading(45), BASE_SPEED);
-            robot.getDriveTrain().moveToTargetPosition(new Position(inchesToTiles(19), 2 + inchesToTiles(18.5)), BASE_SPEED);
+            robot.execute(new ParallelCommand(
+                    slideTo(GROUND_LEVEL),
+                    driveThrough(BASE_SPEED, new Heading(45),
+                            new Position(.5, 2.5),
+                            new Position(inchesToTiles(19), 2 + inchesToTiles(18.5))),
+                    turretTo(FRONT)
+            ));
             robot.waitForCommandsToFinish();
 
             robot.getIntake().outtake(0.5);
@@ -159,7 +174,6 @@ public class AutoMainLeft extends AutoMain {
         }
 
         robot.waitForCommandsToFinish();
-        robot.getDriveTrain().waitForTileEdgeDetection(0.5, 1.0);
     }
 
     private void park() {
@@ -7,7 +7,7 @@ import static org.firstinspires.ftc.teamcode.util.DistanceUtil.inchesToTiles;
 
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 
-import org.firstinspires.ftc.teamcode.components.LinearSlide;
+import org.firstinspires.ftc.teamcode.components.ParallelCommand;
 import org.firstinspires.ftc.teamcode.geometry.Heading;
 import org.firstinspires.ftc.teamcode.geometry.Position;
 
@@ -28,9 +28,11 @@ public class AutoMainRight extends AutoMain {
         robot.getDriveTrain().moveToTargetPosition(new Position(4.5, .5), BASE_SPEED);
 
         //move to medium pole and prepare to drop off
-        robot.getDriveTrain().moveToTargetPosition(new Position(4.5, 2), new Heading(180), BASE_SPEED);
-        robot.getTurret().moveToOrientation(FRONT);
-        robot.getSlide().moveToHeight(MEDIUM_POLE);
+        robot.execute(new ParallelCommand(
+                driveTo(new Position(4.5, 2), new Heading(180), BASE_SPEED),
+                slideTo(MEDIUM_POLE),
+                turretTo(FRONT)
+        ));
         robot.waitForCommandsToFinish();
 
         //drop off pole
@@ -76,8 +78,10 @@ public class AutoMainRight extends AutoMain {
 
     //Used after recentered
     protected void getNewCone() {
-        robot.getDriveTrain().moveToTargetPosition(new Position(5.7, 2.5), BASE_SPEED);
-        robot.getTurret().moveToOrientation(BACK);
+        robot.execute(new ParallelCommand(
+                driveTo(new Position(5.7, 2.5), BASE_SPEED),
+                turretTo(BACK)
+        ));
         robot.waitForCommandsToFinish();
 
         robot.getSlide().moveToIntake(coneCount);
@@ -91,10 +95,13 @@ public class AutoMainRight extends AutoMain {
 
     protected void deliverToPole(Pole pole) {
         if (pole == Pole.HIGH) {
-            robot.getSlide().moveToHeight(TOP_POLE);
-            robot.getTurret().moveToOrientation(FRONT);
-            robot.getDriveTrain().moveToTargetPosition(new Position(4.5, 2.5), new Heading(135), BASE_SPEED);
-            robot.getDriveTrain().moveToTargetPosition(new Position(4.3, 2.7), BASE_SPEED);
+            robot.execute(new ParallelCommand(
+                    slideTo(TOP_POLE),
+                    driveThrough(BASE_SPEED, new Heading(135),
+                            new Position(4.5, 2.5),
+                            new Position(4.3, 2.7)),
+                    turretTo(FRONT)
+            ));
             robot.waitForCommandsToFinish();
 
             robot.getIntake().outtake(.5);
@@ -103,10 +110,13 @@ public class AutoMainRight extends AutoMain {
             robot.getSlide().moveToHeight(TRAVEL);
             robot.getDriveTrain().moveToTargetPosition(new Position(4.5, 2.5), new Heading(180), BASE_SPEED);
         } else if (pole == Pole.MEDIUM) {
-            robot.getSlide().moveToHeight(MEDIUM_POLE);
-            robot.getTurret().moveToOrientation(FRONT);
-            robot.getDriveTrain().moveToTargetPosition(new Position(4.5, 2.5), new Heading(225), BASE_SPEED);
-            robot.getDriveTrain().moveToTargetPosition(new Position(4.3, 2.3), BASE_SPEED);
+            robot.execute(new ParallelCommand(
+                    slideTo(MEDIUM_POLE),
+                    driveThrough(BASE_SPEED, new Heading(225),
+                            new Position(4.5, 2.5),
+                            new Position(4.3, 2.3)),
+                    turretTo(FRONT)
+            ));
             robot.waitForCommandsToFinish();
 
             robot.getIntake().outtake(.5);
@@ -115,10 +125,13 @@ public class AutoMainRight extends AutoMain {
             robot.getSlide().moveToHeight(TRAVEL);
             robot.getDriveTrain().moveToTargetPosition(new Position(4.5, 2.5), new Heading(180), BASE_SPEED);
         } else if (pole == Pole.LOW) {
-            robot.getSlide().moveToHeight(SMALL_POLE);
-            robot.getTurret().moveToOrientation(FRONT);
-            robot.getDriveTrain().moveToTargetPosition(new Position(5.5, 2.5), new Heading(225), BASE_SPEED);
-            robot.getDriveTrain().moveToTargetPosition(new Position(5.3, 2.3), BASE_SPEED);
+            robot.execute(new ParallelCommand(
+                    slideTo(SMALL_POLE),
+                    driveThrough(BASE_SPEED, new Heading(225),
+                            new Position(5.5, 2.5),
+                            new Position(5.3, 2.3)),
+                    turretTo(FRONT)
+            ));
             robot.waitForCommandsToFinish();
 
             robot.getIntake().outtake(.5);
@@ -127,10 +140,13 @@ public class AutoMainRight extends AutoMain {
             robot.getSlide().moveToHeight(TRAVEL);
             robot.getDriveTrain().moveToTargetPosition(new Position(5.5, 2.5), new Heading(180), BASE_SPEED);
         } else if (pole == Pole.GROUND) {
-            robot.getSlide().moveToHeight(GROUND_LEVEL);
-            robot.getTurret().moveToOrientation(FRONT);
-            robot.getDriveTrain().moveToTargetPosition(new Position(5.5, 2.5), new Heading(135), BASE_SPEED);
-            robot.getDriveTrain().moveToTargetPosition(new Position(5.3, 2.7), BASE_SPEED);
+            robot.execute(new ParallelCommand(
+                    slideTo(GROUND_LEVEL),
+                    driveThrough(BASE_SPEED, new Heading(135),
+                            new Position(5.5, 2.5),
+                            new Position(5.3, 2.7)),
+                    turretTo(FRONT)
+            ));
             robot.waitForCommandsToFinish();
 
             robot.getIntake().outtake(.5);
@@ -22,6 +22,7 @@ import static org.firstinspires.ftc.teamcode.game.Field.Direction.SOUTH;
 import static org.firstinspires.ftc.teamcode.game.Field.Direction.WEST;
 import static org.firstinspires.ftc.teamcode.util.FormatUtil.format;
 
+import org.firstinspires.ftc.robotcore.external.Func;
 import org.firstinspires.ftc.teamcode.components.DriveTrain;
 import org.firstinspires.ftc.teamcode.geometry.Heading;
 import org.firstinspires.ftc.teamcode.geometry.Position;
@@ -42,6 +43,13 @@ public abstract class BaseDrivingTeleOp extends BaseTeleOp {
         deliverer = new Controller(gamepad2);
 
         setMovementMode(MovementMode.FAST);
+
+        robot.getRobotContext().telemetryBuffer.addData("Limiter", new Func<String>() {
+            @Override
+            public String value() {
+                return format(limiter);
+            }
+        });
     }
 
     /**
@@ -76,7 +84,6 @@ public abstract class BaseDrivingTeleOp extends BaseTeleOp {
             toggleDriveMode();
         }
 
-        telemetry.addData("Limiter", format(limiter));
     }
 
     public void applyBasicDriving() {
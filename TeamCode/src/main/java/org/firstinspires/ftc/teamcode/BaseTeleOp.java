@@ -25,6 +25,17 @@ public abstract class BaseTeleOp extends OpMode {
         controller = new Controller(gamepad1);
     }
 
+    @Override
+    public void init_loop() {
+        // The robot carries on initializing in the background until the OpMode is started.
+        robot.showInitProgress();
+    }
+
+    @Override
+    public void stop() {
+        robot.stop();
+    }
+
     protected Camera getStreamingCamera() {
         List<Camera> enabledCameras = getEnabledCameras();
         return !enabledCameras.isEmpty() ?
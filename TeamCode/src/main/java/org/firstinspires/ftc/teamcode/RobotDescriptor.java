@@ -30,6 +30,13 @@ public class RobotDescriptor {
      */
     public double wheelMotorEncoderTicksPerRevolution = 537.6;
 
+    /**
+     * The distance between the centers of the left and right drive wheels, and between the centers of the front and
+     * back drive wheels, in inches.  These give the mecanum kinematics for rotation.
+     */
+    public double driveTrackWidthInInches = 13.0;
+    public double driveWheelBaseInInches = 11.0;
+
     /**
      * The speed, in tiles per second, after which ramping up should end.
      */
@@ -61,6 +68,19 @@ public class RobotDescriptor {
      */
     public double rotationTargetHeadingReachedThreshold = 2;
 
+    /**
+     * When consecutive moves to target positions are queued, the robot starts heading for the next waypoint once it
+     * is within this distance (in tiles) of the current one, rather than stopping at each waypoint.  Zero disables path
+     * blending.
+     */
+    public double pathBlendingCornerRadius = 0.2;
+
+    /**
+     * The sharpest change in direction (in degrees) that the robot will blend through.  Sharper corners, such as
+     * reversing direction, still stop at the waypoint.
+     */
+    public double pathBlendingMaxCornerAngle = 100;
+
     /**
      * For turning, the maximum turn motor power to add.
      */
@@ -83,7 +103,8 @@ public class RobotDescriptor {
 
     /**
      * Empirically measured strafe correction values, for more accurate encoder position tracking.
-     * Note that these should be measured after calibrating ramping values above.
+     * Note that these should be measured after calibrating ramping values above.  They are used to build the slip
+     * model until it has been calibrated with the SlipModelCalibration.
      */
     public List<EmpiricalStrafeCorrection> empiricalStrafeCorrections = Arrays.asList(
             new EmpiricalStrafeCorrection(0.0, 0.865),
@@ -99,13 +120,150 @@ public class RobotDescriptor {
      */
     public boolean enableEmpiricalStrafeCorrection = true;
 
+    /**
+     * The minimum change in motor power that will be written to the hardware.  Smaller changes are suppressed to
+     * save hub transactions (a change to zero power is always written).
+     */
+    public double outputPowerThreshold = 0.005;
+
+    /**
+     * The minimum change in servo position that will be written to the hardware.
+     */
+    public double outputServoPositionThreshold = 0.001;
+
+    /**
+     * The target period of the control loop in milliseconds, when the robot is driving its own loop (e.g. waiting for
+     * commands to finish in an auto path).  The rest of each period is given up to the camera threads.
+     */
+    public long controlLoopPeriodMs = 10;
+
+    /**
+     * How often the IMU is read on its background thread in milliseconds.  The BNO055 fuses its orientation output at
+     * 100 Hz, so there's no point reading it more often than this.
+     */
+    public long imuSamplePeriodMs = 10;
+
+    /**
+     * The gains of the alpha-beta filter that smooths the velocity measured by the drive motor encoders.  Alpha is how
+     * far each measurement moves the velocity (1 is no smoothing), and beta how far it moves the acceleration used to
+     * predict the next velocity (0 is a plain low-pass filter).
+     */
+    public double velocityFilterAlpha = 0.4;
+    public double velocityFilterBeta = 0.05;
+
+    /**
+     * The standard deviation of the position error the wheel encoders accumulate for each tile travelled, in tiles.
+     * Used by the pose estimator to weigh the encoders against the tile edge observations.
+     */
+    public double odometryNoisePerTile = 0.05;
+
+    /**
+     * The standard deviation of the robot velocity measured by the wheel encoders, in tiles / sec.
+     */
+    public double odometryVelocityNoise = 0.1;
+
+    /**
+     * The standard deviation of the heading error the IMU accumulates each second, in degrees.
+     */
+    public double imuHeadingNoisePerSecond = 0.2;
+
+    /**
+     * The standard deviation of the IMU's heading drift rate before it has been estimated, in degrees / sec.
+     */
+    public double imuInitialBiasNoise = 0.05;
+
+    /**
+     * The standard deviation of the change in the IMU's heading drift rate each second, in degrees / sec.
+     */
+    public double imuBiasNoisePerSecond = 0.002;
+
+    /**
+     * The standard deviation of a tile edge distance observation, in tiles.
+     */
+    public double tileEdgeDistanceNoise = 0.02;
+
+    /**
+     * The standard deviation of a tile edge heading observation, in degrees.
+     */
+    public double tileEdgeHeadingNoise = 2;
+
+    /**
+     * Tile edge observations further than this many standard deviations from the estimated pose are rejected as
+     * outliers.
+     */
+    public double tileEdgeRejectionThreshold = 4;
+
+    /**
+     * The age in seconds at which a tile edge observation's weight in the aggregate has decayed to 1/e.
+     */
+    public double tileEdgeAggregateTimeConstant = 0.5;
+
+    /**
+     * Tile edge observations further than this many standard deviations from the median of the recent observations
+     * are left out of the aggregate as outliers.
+     */
+    public double tileEdgeOutlierThreshold = 3.5;
+
+    /**
+     * How much the evidence for each tile hypothesis is kept from one tile edge observation to the next.
+     */
+    public double tileHypothesisDecay = 0.9;
+
+    /**
+     * The probability a tile hypothesis needs before tile edge observations are used to correct the position.
+     */
+    public double tileHypothesisMinProbability = 0.95;
+
+    /**
+     * The number of tile edge observations needed before committing to a tile hypothesis, and the number of
+     * consecutive rejected observations after which the position is moved straight to the observation.
+     */
+    public int tileHypothesisMinObservations = 3;
+
+    /**
+     * The standard deviation of the distance to an AprilTag, as a fraction of the distance.
+     */
+    public double aprilTagRangeNoise = 0.03;
+
+    /**
+     * The standard deviation of the direction to an AprilTag, in degrees.
+     */
+    public double aprilTagBearingNoise = 1;
+
+    /**
+     * The standard deviation of how far an AprilTag is turned away from the webcam, in degrees.  The yaw of a small
+     * tag is much less certain than its position.
+     */
+    public double aprilTagYawNoise = 4;
+
+    /**
+     * AprilTag fixes further than this many standard deviations from the estimated pose are rejected as outliers.
+     * This is much looser than for the tile edges, since a fix is absolute and is expected to correct a pose that has
+     * drifted a long way.
+     */
+    public double aprilTagRejectionThreshold = 10;
+
+    /**
+     * The uncertainty of a position or heading that is set directly, e.g. the start position of an auto path.
+     */
+    public double initialPositionNoise = 0.05;
+    public double initialHeadingNoise = 2;
+
+    /**
+     * How often telemetry is sent to the Driver Station in milliseconds.  The Driver Station only refreshes a few
+     * times per second, so there's no point formatting values more often than this.
+     */
+    public long telemetryTransmitPeriodMs = 250;
+
     /**
      * The webcam used for detecting April tags.
      */
     public WebCamDescriptor webCamAprilTagDescriptor = new WebCamDescriptor(
             "WebCamAprilTag",
             WebCamOrientation.FRONT_FORWARD,
-            new Size(640,480)
+            new Size(640,480),
+            new Position(0, 7.75),
+            0
     );
 
     /**
@@ -132,6 +290,12 @@ public class RobotDescriptor {
             anchor(new Position(640, 360), new Position(13.512, -0.896))
     );
 
+    {
+        // Finding the tile edges can take longer than a frame, so it's done off the camera callback.
+        webCamSideDescriptor.asyncProcessing = true;
+        webCamFrontDescriptor.asyncProcessing = true;
+    }
+
     /**
      * An empirically measured strafe correction value for a given motor power.
      * <p>
@@ -192,6 +356,25 @@ public class RobotDescriptor {
         public WebCamAnchorPoint bottomLeft;
         public WebCamAnchorPoint bottomRight;
 
+        /**
+         * For forward facing webcams, the position of the webcam in inches from the center of the robot, with x to the
+         * right and y forward.
+         */
+        public Position mountPosition = new Position(0, 0);
+
+        /**
+         * For forward facing webcams, the direction the webcam faces in degrees, counter-clockwise from the front of the
+         * robot.
+         */
+        public double mountHeading;
+
+        /**
+         * Whether frames are processed on a worker thread, rather than in the camera callback.  The callback then only
+         * hands the frame over and returns, so slow processing never holds up capture.  Frames that arrive while the
+         * worker is busy are dropped, and the worker always processes the latest one.
+         */
+        public boolean asyncProcessing;
+
         public WebCamDescriptor(String name, WebCamOrientation orientation) {
             this.name = name;
             this.orientation = orientation;
@@ -215,6 +398,17 @@ public class RobotDescriptor {
             this.orientation = orientation;
             this.resolution = resolution;
         }
+
+        public WebCamDescriptor(
+                String name, WebCamOrientation orientation, Size resolution,
+                Position mountPosition, double mountHeading
+        ) {
+            this.name = name;
+            this.orientation = orientation;
+            this.resolution = resolution;
+            this.mountPosition = mountPosition;
+            this.mountHeading = mountHeading;
+        }
     }
 
     public enum WebCamOrientation {
@@ -5,6 +5,7 @@ import static org.firstinspires.ftc.teamcode.Controller.AnalogControl.LEFT_TRIGG
 import static org.firstinspires.ftc.teamcode.Controller.AnalogControl.RIGHT_TRIGGER;
 import static org.firstinspires.ftc.teamcode.Controller.Button.A;
 import static org.firstinspires.ftc.teamcode.Controller.Button.B;
+import static org.firstinspires.ftc.teamcode.Controller.Button.BACK;
 import static org.firstinspires.ftc.teamcode.Controller.Button.DPAD_DOWN;
 import static org.firstinspires.ftc.teamcode.Controller.Button.DPAD_LEFT;
 import static org.firstinspires.ftc.teamcode.Controller.Button.DPAD_RIGHT;
@@ -95,6 +96,11 @@ public class TeleOpMain extends BaseDrivingTeleOp {
 
         //telemetry.addData("Turret Safe to Move", robot.getTurret().isSafeToMove() ? "yes" : "no");
 
+        // Loop timing
+        if (deliverer.isPressed(BACK)) {
+            robot.setShowTiming(!robot.isShowTiming());
+        }
+
         robot.updateStatus();
     }
 
@@ -69,10 +69,15 @@ public abstract class BaseWebCamCalibration extends BaseTeleOp {
 
         resetCalibration();
 
-        webCam.setFrameProcessor(new WebCam.FrameProcessor() {
+        webCam.addFrameProcessor(new WebCam.FrameProcessor() {
             @Override
             public void processFrame(Mat input, Mat output, FrameContext frameContext) {
 
+                // There is nothing to draw on if the webcam isn't streaming.
+                if (!webCam.isStreaming()) {
+                    return;
+                }
+
                 if (!calibrationMode) {
 
                     // Draw the corners that have been set so far, and lines between
@@ -17,9 +17,7 @@ import static org.firstinspires.ftc.teamcode.util.FormatUtil.format;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 
 import org.firstinspires.ftc.teamcode.BaseDrivingTeleOp;
-import org.firstinspires.ftc.teamcode.RobotDescriptor.EmpiricalStrafeCorrection;
-
-import java.util.Collections;
+import org.firstinspires.ftc.teamcode.util.SlipModel;
 
 @TeleOp(group = "Calibration")
 public class RampingCalibration extends BaseDrivingTeleOp {
@@ -91,10 +89,8 @@ public class RampingCalibration extends BaseDrivingTeleOp {
             applyDriving();
         }
 
-        // Overwrite the empirical strafe corrections with a single value to force it to be used.
-        descriptor.empiricalStrafeCorrections = Collections.singletonList(
-                new EmpiricalStrafeCorrection(limiter, strafeCorrection)
-        );
+        // Overwrite the slip model with a single value to force it to be used.
+        robot.getDriveTrain().getOdometry().setSlipModel(SlipModel.constant(strafeCorrection));
 
         telemetry.addData("Strafe Correction", format(strafeCorrection));
         telemetry.addData("Ramp Down Min Power", format(descriptor.rampingDownMinMotorPower));
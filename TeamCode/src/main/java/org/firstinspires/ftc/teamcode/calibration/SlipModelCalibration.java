@@ -0,0 +1,172 @@
+package org.firstinspires.ftc.teamcode.calibration;
+
+import static org.firstinspires.ftc.teamcode.util.FormatUtil.format;
+
+import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+
+import org.firstinspires.ftc.teamcode.components.DriveTrain;
+import org.firstinspires.ftc.teamcode.components.Robot;
+import org.firstinspires.ftc.teamcode.components.Robot.Camera;
+import org.firstinspires.ftc.teamcode.components.TileEdgeDetector.TileEdgeObservationAggregator.Snapshot;
+import org.firstinspires.ftc.teamcode.util.MecanumOdometry;
+import org.firstinspires.ftc.teamcode.util.MecanumUtil;
+import org.firstinspires.ftc.teamcode.util.MecanumUtil.MotorPowers;
+import org.firstinspires.ftc.teamcode.util.SlipModel;
+
+import java.util.Arrays;
+
+/**
+ * Fits the slip model by driving a known distance at each of several directions and powers, and comparing the strafe
+ * movement measured by the wheel encoders with the movement of the tile edges seen by the side webcam.
+ * <p>
+ * Start with the robot square to the tiles, in the middle of a tile with at least one clear tile to its right.  Each
+ * move is followed by the same move in reverse, so the robot ends up back where it started.  The fitted model is
+ * saved to disk, and used by the drive train from then on.
+ */
+@Autonomous(group = "Calibration")
+public class SlipModelCalibration extends LinearOpMode {
+
+    /**
+     * The distance to drive for each sample, in tiles.
+     */
+    private static final double DISTANCE = 1.0;
+
+    private static final double[] DIRECTIONS = {30, 60, 90};
+    private static final double[] SPEEDS = {0.3, 0.5, 0.7, 0.9};
+
+    /**
+     * The fewest samples to fit a model from, one for each direction and speed.  With fewer, too many of the tile
+     * edges were missed for the fit to be trusted.
+     */
+    private static final int MIN_SAMPLES = DIRECTIONS.length * SPEEDS.length;
+
+    private Robot robot;
+    private DriveTrain driveTrain;
+
+    private SlipModel prior;
+    private SlipModel.Fitter fitter = new SlipModel.Fitter();
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        try {
+            telemetry.log().setCapacity(10);
+
+            robot = new Robot(this, Camera.SIDE, Arrays.asList(Camera.SIDE));
+            robot.init();
+            robot.waitForInit();
+
+            driveTrain = robot.getDriveTrain();
+            prior = driveTrain.getOdometry().getSlipModel();
+
+            // Only look at the tile edges while stopped.  The aggregate is carried along by the odometry while the
+            // robot moves, which would bias it towards the odometry being calibrated.
+            driveTrain.deactivateTileEdgeDetection();
+
+            waitForStart();
+
+            // Record where the robot starts, so that the first frames have a pose to be applied at.
+            robot.updateStatus();
+
+            for (double speed : SPEEDS) {
+                for (double direction : DIRECTIONS) {
+                    // Out to the right, then back again.
+                    measure(direction, speed, 1);
+                    measure(direction, speed, -1);
+                    if (isStopRequested()) return;
+                }
+            }
+
+            if (fitter.getSampleCount() < MIN_SAMPLES) {
+                // Keep the previous model rather than saving one fitted from too little.
+                telemetry.log().add("Only " + fitter.getSampleCount() + " of " + MIN_SAMPLES +
+                        " samples needed, slip model not saved");
+            } else {
+                SlipModel fitted = fitter.fit(prior);
+                fitted.saveToDisk(SlipModel.FILENAME);
+                driveTrain.getOdometry().setSlipModel(fitted);
+
+                telemetry.log().add("Saved slip model from " + fitter.getSampleCount() + " samples");
+                for (String line : fitted.toLines()) {
+                    telemetry.log().add(line);
+                }
+            }
+            while (!isStopRequested()) {
+                telemetry.update();
+                sleep(100);
+            }
+
+        } finally {
+            if (robot != null) {
+                robot.stop();
+            }
+        }
+    }
+
+    /**
+     * Drives the sample distance in the given direction, in degrees to the right of forward, and adds a sample for
+     * the strafe movement.
+     *
+     * @param side 1 to drive to the right and forward, -1 to drive to the left and backward.
+     */
+    private void measure(double direction, double speed, int side) {
+        Snapshot start = driveTrain.waitForTileEdgeDetection(1, 3);
+        Double startDistance = start != null ? start.distanceRight : null;
+
+        // Drive at constant power until the encoders have moved the distance.
+        MecanumOdometry odometry = driveTrain.getOdometry();
+        odometry.resetTotalMovement();
+
+        double drive = side * Math.cos(Math.toRadians(direction));
+        double strafe = side * Math.sin(Math.toRadians(direction));
+        MotorPowers motorPowers = getMotorPowers(direction, speed, side);
+
+        while (!isStopRequested() && movedDistance(odometry.getTotalMovement()) < DISTANCE) {
+            driveTrain.drive(drive, 0, strafe, speed);
+            robot.updateStatus();
+        }
+        driveTrain.drive(0, 0, 0, 0);
+
+        // Let the robot come to a stop, so the encoders have counted all of the movement.
+        long stopTime = System.currentTimeMillis();
+        while (!isStopRequested() && System.currentTimeMillis() - stopTime < 500) {
+            robot.updateStatus();
+        }
+        double measured = odometry.getTotalMovement()[MecanumOdometry.STRAFE];
+
+        Snapshot end = driveTrain.waitForTileEdgeDetection(1, 3);
+        Double endDistance = end != null ? end.distanceRight : null;
+
+        if (startDistance == null || endDistance == null) {
+            telemetry.log().add("No tile edge for " + format(direction, 0) + " deg, speed " + format(speed));
+            return;
+        }
+
+        // The edge distances only give the movement within a tile, so add the whole tiles predicted by the prior
+        // model.  Moving right brings the right hand edge closer.
+        double predicted = measured * prior.getStrafeCorrection(motorPowers);
+        double withinTile = startDistance - endDistance;
+        double actual = predicted + Math.IEEEremainder(withinTile - predicted, 1.0);
+
+        fitter.addSample(SlipModel.getDirection(motorPowers), SlipModel.getPower(motorPowers), measured, actual);
+        telemetry.log().add(format(direction, 0) + " deg, speed " + format(speed) +
+                ": correction " + format(actual / measured));
+    }
+
+    /**
+     * Returns the motor powers the drive train applies to drive in the given direction, in degrees to the right of
+     * forward, which are what the sample is recorded against.
+     *
+     * @param side 1 to drive to the right and forward, -1 to drive to the left and backward.
+     */
+    static MotorPowers getMotorPowers(double direction, double speed, int side) {
+        double drive = side * Math.cos(Math.toRadians(direction));
+        double strafe = side * Math.sin(Math.toRadians(direction));
+        return MecanumUtil.calculateWheelPowerForDrive(drive, strafe, 0, speed);
+    }
+
+    private static double movedDistance(double[] movement) {
+        return Math.hypot(movement[MecanumOdometry.STRAFE], movement[MecanumOdometry.FORWARD]);
+    }
+
+}
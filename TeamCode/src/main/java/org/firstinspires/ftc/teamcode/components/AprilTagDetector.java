@@ -22,6 +22,7 @@ import org.openftc.apriltag.AprilTagDetectorJNI;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 public class AprilTagDetector extends BaseComponent {
 
@@ -32,15 +33,45 @@ public class AprilTagDetector extends BaseComponent {
 
     private FrameProcessor frameProcessor;
 
+    /**
+     * A frame processor created in the background during init, so activate doesn't have to wait for the native
+     * detector to be allocated.
+     */
+    private volatile FrameProcessor preparedFrameProcessor;
+
+    /**
+     * Counts down once the background preparation has finished, or null if init hasn't started it.
+     */
+    private CountDownLatch preparation;
+
     private AprilTagDetectionParameters parameters = new AprilTagDetectionParameters();
 
-    private List<AprilTagDetection> detections = new ArrayList<>();
+    private volatile DetectionFrame detectionFrame = new DetectionFrame(new ArrayList<AprilTagDetection>(), 0);
 
     public AprilTagDetector(RobotContext context, WebCam webCam) {
         super(context);
         this.webCam = webCam;
     }
 
+    @Override
+    public void init() {
+        super.init();
+
+        final AprilTagDetectionParameters parameters = this.parameters;
+        final CountDownLatch preparation = new CountDownLatch(1);
+        this.preparation = preparation;
+        context.parallelInit.run("AprilTag detector", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    preparedFrameProcessor = new FrameProcessor(parameters);
+                } finally {
+                    preparation.countDown();
+                }
+            }
+        });
+    }
+
     /**
      * Sets the detection parameters.  This should be called prior to calling activate.
      */
@@ -52,8 +83,38 @@ public class AprilTagDetector extends BaseComponent {
     }
 
     public void activate() {
-        frameProcessor = new FrameProcessor(parameters);
-        webCam.setFrameProcessor(frameProcessor);
+        // The webcam runs every processor added to it, so a second one would run alongside the first.
+        if (isActive()) {
+            return;
+        }
+
+        // Use the frame processor prepared during init, unless the parameters have changed since.  Wait for it if it
+        // isn't ready yet, or it would be left holding its native detector when it arrived.
+        FrameProcessor prepared = takePreparedFrameProcessor();
+        if (prepared != null && prepared.parameters == parameters) {
+            frameProcessor = prepared;
+        } else {
+            if (prepared != null) {
+                prepared.release();
+            }
+            frameProcessor = new FrameProcessor(parameters);
+        }
+        webCam.addFrameProcessor(frameProcessor);
+    }
+
+    private FrameProcessor takePreparedFrameProcessor() {
+        if (preparation != null) {
+            try {
+                preparation.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            preparation = null;
+        }
+
+        FrameProcessor prepared = preparedFrameProcessor;
+        preparedFrameProcessor = null;
+        return prepared;
     }
 
     public boolean isActive() {
@@ -61,21 +122,32 @@ public class AprilTagDetector extends BaseComponent {
     }
 
     public void deactivate() {
-        webCam.removeFrameProcessor();
+        webCam.removeFrameProcessor(frameProcessor);
         frameProcessor = null;
     }
 
     public List<AprilTagDetection> getDetections() {
-        return detections;
+        return detectionFrame.detections;
+    }
+
+    /**
+     * Returns the detections from the most recent frame, with the time the frame was captured.  A new frame object is
+     * published for every processed frame, so callers can tell whether they have seen it before.
+     */
+    public DetectionFrame getDetectionFrame() {
+        return detectionFrame;
     }
 
     public AprilTagDetection waitForDetection(double seconds) {
         ElapsedTime begin = new ElapsedTime();
-        while (begin.seconds() < seconds) {
-            List<AprilTagDetection> detections = this.detections;
+        while (!isStopRequested() && begin.seconds() < seconds) {
+            List<AprilTagDetection> detections = detectionFrame.detections;
             if (!detections.isEmpty()) {
                 return detections.get(0);
             }
+
+            // Give the camera thread the CPU while waiting for it to process a frame.
+            sleep(robotDescriptor.controlLoopPeriodMs);
         }
         return null;
     }
@@ -87,8 +159,9 @@ public class AprilTagDetector extends BaseComponent {
      */
     public class FrameProcessor implements WebCam.FrameProcessor {
 
+        private AprilTagDetectionParameters parameters;
+
         private long nativeApriltagPtr;
-        private Mat gray = new Mat();
 
         Mat cameraMatrix;
 
@@ -103,6 +176,7 @@ public class AprilTagDetector extends BaseComponent {
         private double tagsizeY;
 
         public FrameProcessor(AprilTagDetectionParameters parameters) {
+            this.parameters = parameters;
             this.tagsize = parameters.tagsize;
             this.tagsizeX = parameters.tagsize;
             this.tagsizeY = parameters.tagsize;
@@ -120,21 +194,27 @@ public class AprilTagDetector extends BaseComponent {
 
         @Override
         protected void finalize() {
-            // Might be null if createApriltagDetector() threw an exception
+            // Does nothing if createApriltagDetector() threw an exception, or the processor was already released
+            release();
+        }
+
+        /**
+         * Deletes the native context created in the constructor.  Only call this on a processor that isn't running
+         * on a webcam.
+         */
+        private synchronized void release() {
             if (nativeApriltagPtr != 0) {
-                // Delete the native context we created in the constructor
                 AprilTagDetectorJNI.releaseApriltagDetector(nativeApriltagPtr);
                 nativeApriltagPtr = 0;
-            } else {
-                System.out.println("AprilTagDetectionPipeline.finalize(): nativeApriltagPtr was NULL");
             }
         }
 
         @Override
         public void processFrame(Mat input, Mat output, FrameContext frameContext) {
+            long captureTime = frameContext.captureTime;
 
-            // Convert to greyscale
-            Imgproc.cvtColor(input, gray, Imgproc.COLOR_RGBA2GRAY);
+            // Use the greyscale image shared with the other processors on this camera
+            Mat gray = frameContext.images.getGray();
 
             // Run AprilTag
             List<AprilTagDetection> detections = AprilTagDetectorJNI.runAprilTagDetectorSimple(
@@ -143,15 +223,17 @@ public class AprilTagDetector extends BaseComponent {
                     fx, fy, cx, cy
             );
 
-            // Atomic update, so no need for synchronization
-            AprilTagDetector.this.detections = detections;
+            // Atomic update of a volatile field, so no need for synchronization
+            AprilTagDetector.this.detectionFrame = new DetectionFrame(detections, captureTime);
 
             // For fun, use OpenCV to draw 6DOF markers on the image. We actually recompute the pose using
             // OpenCV because I haven't yet figured out how to re-use AprilTag's pose in OpenCV.
-            for (AprilTagDetection detection : detections) {
-                Pose pose = poseFromTrapezoid(detection.corners, cameraMatrix, tagsizeX, tagsizeY);
-                drawAxisMarker(output, tagsizeY / 2.0, 6, pose.rvec, pose.tvec, cameraMatrix);
-                draw3dCubeMarker(output, tagsizeX, tagsizeX, tagsizeY, 5, pose.rvec, pose.tvec, cameraMatrix);
+            if (webCam.isStreaming()) {
+                for (AprilTagDetection detection : detections) {
+                    Pose pose = poseFromTrapezoid(detection.corners, cameraMatrix, tagsizeX, tagsizeY);
+                    drawAxisMarker(output, tagsizeY / 2.0, 6, pose.rvec, pose.tvec, cameraMatrix);
+                    draw3dCubeMarker(output, tagsizeX, tagsizeX, tagsizeY, 5, pose.rvec, pose.tvec, cameraMatrix);
+                }
             }
         }
 
@@ -288,6 +370,24 @@ public class AprilTagDetector extends BaseComponent {
 
     }
 
+    /**
+     * The AprilTags detected in a single frame.
+     */
+    public static class DetectionFrame {
+
+        public final List<AprilTagDetection> detections;
+
+        /**
+         * The System.nanoTime() at which the frame was handed to the detector.
+         */
+        public final long captureTime;
+
+        public DetectionFrame(List<AprilTagDetection> detections, long captureTime) {
+            this.detections = detections;
+            this.captureTime = captureTime;
+        }
+    }
+
     /*
      * A simple container to hold both rotation and translation
      * vectors, which together form a 6DOF pose.
@@ -1,16 +1,21 @@
 package org.firstinspires.ftc.teamcode.components;
 
+import android.annotation.SuppressLint;
+
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
+import org.firstinspires.ftc.robotcore.external.Func;
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.teamcode.RobotDescriptor;
+import org.firstinspires.ftc.teamcode.util.TimingHistogram;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public abstract class BaseComponent implements Component {
 
@@ -30,6 +35,27 @@ public abstract class BaseComponent implements Component {
 
     private List<Component> subComponents = new ArrayList<>();
 
+    /**
+     * When each sub-component is next due to be updated, and how long its updates take, in the same order as the
+     * sub-components.
+     */
+    private List<SubComponentSchedule> subComponentSchedules = new ArrayList<>();
+
+    /**
+     * How often this component wants to be updated in milliseconds, or zero to be updated in every iteration.
+     */
+    private long updatePeriodMs = 0;
+
+    /**
+     * The time of the first update of the sub-components, used to work out their share of the loop time.
+     */
+    private long firstUpdateNanos;
+
+    /**
+     * How long the updateStatus of this component's commands takes.
+     */
+    private TimingHistogram commandTiming = new TimingHistogram();
+
     public BaseComponent(RobotContext context) {
         this.context = context;
         this.opMode = context.opMode;
@@ -101,6 +127,22 @@ public abstract class BaseComponent implements Component {
 
     protected void addSubComponents(Component... subComponents) {
         this.subComponents.addAll(Arrays.asList(subComponents));
+        for (Component subComponent : subComponents) {
+            subComponentSchedules.add(new SubComponentSchedule(subComponent));
+        }
+    }
+
+    @Override
+    public long getUpdatePeriodMs() {
+        return updatePeriodMs;
+    }
+
+    /**
+     * Sets how often this component wants to be updated.  Components whose commands only need coarse timing can use
+     * a longer period, to leave more of the loop for the components that need every iteration.
+     */
+    protected void setUpdatePeriodMs(long updatePeriodMs) {
+        this.updatePeriodMs = updatePeriodMs;
     }
 
     @Override
@@ -126,7 +168,9 @@ public abstract class BaseComponent implements Component {
 
         // If there is a current command we are trying to execute, delegate to it for update status
         if (currentCommand != null) {
+            long commandStart = System.nanoTime();
             boolean finished = currentCommand.updateStatus();
+            commandTiming.record(System.nanoTime() - commandStart);
 
             // If the command is finished, remove it
             if (finished) {
@@ -135,9 +179,38 @@ public abstract class BaseComponent implements Component {
             }
         }
 
-        // Also update any sub-components
-        for (Component subComponent : subComponents) {
-            subComponent.updateStatus();
+        // Also update any sub-components that are due
+        long now = System.nanoTime();
+        if (firstUpdateNanos == 0) {
+            firstUpdateNanos = now;
+        }
+        for (int i = 0; i < subComponentSchedules.size(); i++) {
+            subComponentSchedules.get(i).updateIfDue(now);
+        }
+    }
+
+    /**
+     * Adds a line for the command timing of this component, and for the timing of each sub-component (including their
+     * own sub-components), to the given list.
+     */
+    public void addTimingReport(List<String> lines) {
+        addTimingReport(lines, toString());
+    }
+
+    private void addTimingReport(List<String> lines, String name) {
+        if (commandTiming.getCount() > 0) {
+            lines.add(name + " commands: " + commandTiming);
+        }
+
+        double elapsedNanos = System.nanoTime() - firstUpdateNanos;
+        for (SubComponentSchedule schedule : subComponentSchedules) {
+            Component subComponent = schedule.component;
+            String subComponentName = name + "/" + subComponent;
+            lines.add(subComponentName + ": " + schedule.toString(elapsedNanos));
+
+            if (subComponent instanceof BaseComponent) {
+                ((BaseComponent) subComponent).addTimingReport(lines, subComponentName);
+            }
         }
     }
 
@@ -154,6 +227,13 @@ public abstract class BaseComponent implements Component {
         return currentCommand != null || !nextCommands.isEmpty();
     }
 
+    /**
+     * Registers a value to be shown in the telemetry.  The value is only evaluated when the telemetry is transmitted.
+     */
+    protected <T> void addTelemetry(String caption, Func<T> valueProducer) {
+        context.telemetryBuffer.addData(caption, valueProducer);
+    }
+
     protected boolean isStopRequested() {
         return opMode instanceof LinearOpMode && ((LinearOpMode) opMode).isStopRequested();
     }
@@ -170,4 +250,51 @@ public abstract class BaseComponent implements Component {
         return getClass().getSimpleName();
     }
 
+    /**
+     * Keeps track of when a sub-component is next due to be updated, and how much of the loop it uses.
+     */
+    private static class SubComponentSchedule {
+
+        private Component component;
+
+        private TimingHistogram timing = new TimingHistogram();
+
+        private long nextUpdateNanos;
+        private long totalNanos;
+        private long skipCount;
+
+        private SubComponentSchedule(Component component) {
+            this.component = component;
+        }
+
+        private void updateIfDue(long now) {
+            if (now < nextUpdateNanos) {
+                skipCount++;
+                return;
+            }
+
+            long start = System.nanoTime();
+            component.updateStatus();
+            long duration = System.nanoTime() - start;
+            timing.record(duration);
+            totalNanos += duration;
+
+            // Keep to the period on average, but don't try to catch up on updates that were missed.
+            long periodNanos = TimeUnit.MILLISECONDS.toNanos(component.getUpdatePeriodMs());
+            nextUpdateNanos = now - nextUpdateNanos < periodNanos ?
+                    nextUpdateNanos + periodNanos :
+                    now + periodNanos;
+        }
+
+        @SuppressLint("DefaultLocale")
+        private String toString(double elapsedNanos) {
+            long updateCount = timing.getCount();
+            return String.format("%s, updated %d / %d, load %.1f%%",
+                    timing,
+                    updateCount,
+                    updateCount + skipCount,
+                    elapsedNanos > 0 ? 100 * totalNanos / elapsedNanos : 0.0);
+        }
+    }
+
 }
@@ -19,4 +19,10 @@ public interface Component {
      */
     boolean isBusy();
 
+    /**
+     * Returns how often this component wants its updateStatus to be called in milliseconds, or zero if it should be
+     * called in every iteration of the loop.
+     */
+    long getUpdatePeriodMs();
+
 }
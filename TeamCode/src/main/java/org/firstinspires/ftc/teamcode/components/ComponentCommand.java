@@ -0,0 +1,55 @@
+package org.firstinspires.ftc.teamcode.components;
+
+/**
+ * Wraps an instruction to a component (e.g. move the slide to a height) as a command, so it can be used in a command
+ * group.  The instruction is given when the command starts, and the command is finished when the component is no
+ * longer busy.
+ */
+public class ComponentCommand implements Command {
+
+    private BaseComponent component;
+    private Instruction instruction;
+    private String description;
+
+    private boolean finished;
+
+    public ComponentCommand(BaseComponent component, String description, Instruction instruction) {
+        this.component = component;
+        this.description = description;
+        this.instruction = instruction;
+    }
+
+    @Override
+    public void start() {
+        finished = false;
+        instruction.issue();
+    }
+
+    @Override
+    public void stop() {
+        // If the group stops this command before the component is done, stop the component too.
+        if (!finished) {
+            component.stopAllCommands();
+        }
+    }
+
+    @Override
+    public boolean updateStatus() {
+        finished = !component.isBusy();
+        return finished;
+    }
+
+    public String toString() {
+        return description;
+    }
+
+    public interface Instruction {
+
+        /**
+         * Gives the instruction to the component.
+         */
+        void issue();
+
+    }
+
+}
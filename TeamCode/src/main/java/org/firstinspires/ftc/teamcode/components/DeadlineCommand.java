@@ -0,0 +1,39 @@
+package org.firstinspires.ftc.teamcode.components;
+
+/**
+ * Runs a group of commands at the same time, until one of them (the deadline) is finished.  Any other commands that
+ * are still in progress at that point are stopped.
+ */
+public class DeadlineCommand extends ParallelCommand {
+
+    private Command deadline;
+
+    public DeadlineCommand(Command deadline, Command... others) {
+        super(prepend(deadline, others));
+        this.deadline = deadline;
+    }
+
+    @Override
+    public boolean updateStatus() {
+        super.updateStatus();
+
+        if (isFinished(0)) {
+            // Stop everything else that is still running.
+            stop();
+            return true;
+        }
+        return false;
+    }
+
+    private static Command[] prepend(Command first, Command[] others) {
+        Command[] commands = new Command[others.length + 1];
+        commands[0] = first;
+        System.arraycopy(others, 0, commands, 1, others.length);
+        return commands;
+    }
+
+    public String toString() {
+        return "Deadline(" + deadline + ")" + super.toString();
+    }
+
+}
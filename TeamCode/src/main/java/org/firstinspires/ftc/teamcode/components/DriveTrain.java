@@ -2,6 +2,7 @@ package org.firstinspires.ftc.teamcode.components;
 
 import static org.firstinspires.ftc.teamcode.util.DistanceUtil.inchesToTiles;
 import static org.firstinspires.ftc.teamcode.util.DistanceUtil.tilesToInches;
+import static org.firstinspires.ftc.teamcode.util.FormatUtil.format;
 import static org.firstinspires.ftc.teamcode.util.RobotFieldConversionUtil.FieldSpaceCoordinates;
 import static org.firstinspires.ftc.teamcode.util.RobotFieldConversionUtil.RobotSpaceCoordinates;
 import static org.firstinspires.ftc.teamcode.util.RobotFieldConversionUtil.convertToFieldSpace;
@@ -15,27 +16,49 @@ import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.DcMotorSimple;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
-import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
-import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
-import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
-import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
+import org.firstinspires.ftc.robotcore.external.Func;
+import org.firstinspires.ftc.teamcode.components.HardwareIO.MotorInput;
+import org.firstinspires.ftc.teamcode.components.HardwareIO.MotorOutput;
 import org.firstinspires.ftc.teamcode.components.RobotContext.RobotPositionProvider;
+import org.firstinspires.ftc.teamcode.components.AprilTagDetector.DetectionFrame;
 import org.firstinspires.ftc.teamcode.components.TileEdgeDetector.TileEdgeObservationAggregator;
+import org.firstinspires.ftc.teamcode.game.AprilTagFieldMap;
 import org.firstinspires.ftc.teamcode.game.Field;
 import org.firstinspires.ftc.teamcode.game.Field.Direction;
+import org.firstinspires.ftc.teamcode.geometry.AprilTagPoseSolver;
+import org.firstinspires.ftc.teamcode.geometry.AprilTagPoseSolver.AprilTagFix;
 import org.firstinspires.ftc.teamcode.geometry.Heading;
 import org.firstinspires.ftc.teamcode.geometry.Position;
 import org.firstinspires.ftc.teamcode.geometry.TileEdgeSolver;
 import org.firstinspires.ftc.teamcode.geometry.Vector2;
+import org.firstinspires.ftc.teamcode.util.MecanumOdometry;
 import org.firstinspires.ftc.teamcode.util.MecanumUtil;
 import org.firstinspires.ftc.teamcode.util.MecanumUtil.MotorPowers;
-
+import org.firstinspires.ftc.teamcode.util.PoseEstimator;
+import org.firstinspires.ftc.teamcode.util.PoseHistory;
+import org.firstinspires.ftc.teamcode.util.RampUtil;
+import org.firstinspires.ftc.teamcode.util.SlipModel;
+import org.firstinspires.ftc.teamcode.util.TileHypothesisTracker;
+import org.firstinspires.ftc.teamcode.util.VelocityEstimator;
+import org.openftc.apriltag.AprilTagDetection;
+
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 @SuppressLint("DefaultLocale")
 public class DriveTrain extends BaseComponent implements RobotPositionProvider {
 
+    /**
+     * The number of iterations of pose history to keep, which needs to cover the camera latency.
+     */
+    private static final int POSE_HISTORY_CAPACITY = 256;
+
+    /**
+     * The most whole tiles either way that the tile hypotheses consider the position to be out by.
+     */
+    private static final int TILE_HYPOTHESIS_MAX_OFFSET = 1;
+
     /**
      * A representation of the playing field.
      */
@@ -56,6 +79,32 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
      */
     private TileEdgeObservationAggregator tileEdgeAggregator;
 
+    /**
+     * Track which tile the robot is on along each field axis, since the tile edges only give the position within a
+     * tile.
+     */
+    private TileHypothesisTracker tileHypothesesX;
+    private TileHypothesisTracker tileHypothesesY;
+
+    /**
+     * Detects AprilTags, which give the robot an absolute fix on its pose, or null if the AprilTag webcam isn't
+     * enabled.
+     */
+    private AprilTagDetector aprilTagDetector;
+
+    /**
+     * Solves for the robot's pose from the AprilTags at known places on the field.
+     */
+    private AprilTagPoseSolver aprilTagPoseSolver;
+
+    /**
+     * The last AprilTag frame that was applied to the pose estimate, so that each frame is only counted once.
+     */
+    private DetectionFrame previousAprilTagFrame;
+
+    private int aprilTagFixCount;
+    private int aprilTagRejectedCount;
+
     /**
      * The hardware for the drive train
      */
@@ -67,29 +116,83 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
     private BNO055IMU imu;
 
     /**
-     * The current position for the robot.
+     * The encoder readings for the drive train motors, from the robot's bulk read.
+     */
+    private MotorInput frontLeftInput;
+    private MotorInput frontRightInput;
+    private MotorInput backLeftInput;
+    private MotorInput backRightInput;
+    private List<MotorInput> motorInputs;
+
+    /**
+     * The buffered outputs for the drive train motors, written once per loop by the robot.
+     */
+    private MotorOutput frontLeftOutput;
+    private MotorOutput frontRightOutput;
+    private MotorOutput backLeftOutput;
+    private MotorOutput backRightOutput;
+    private List<MotorOutput> motorOutputs;
+
+    /**
+     * Fuses the encoders, the IMU and the tile edge observations into a single estimate of the robot's pose.
+     */
+    private PoseEstimator poseEstimator;
+
+    /**
+     * The recent poses of the robot, so observations can be applied at the pose where their frame was captured.
+     */
+    private PoseHistory poseHistory = new PoseHistory(POSE_HISTORY_CAPACITY);
+    private double[] capturedPose = new double[PoseHistory.POSE_SIZE];
+    private double[] motionSinceCapture = new double[PoseHistory.POSE_SIZE];
+
+    /**
+     * The current position for the robot, from the pose estimator.
      */
     private Position position;
 
     /**
-     * The current heading for the robot.
+     * The current heading for the robot, from the pose estimator.
      */
     private Heading heading;
 
     /**
-     * The current velocity vector in tiles / sec.
+     * The current velocity vector in tiles / sec, from the velocity estimator.
      */
     private Vector2 velocity;
 
     /**
-     * The previous iteration's position.
+     * Smooths the velocity measured by the motor encoders.
+     */
+    private VelocityEstimator velocityEstimator;
+    private double[] wheelVelocity = new double[3];
+
+    /**
+     * The last observation from each tile edge detector that was applied to the pose estimate, so that each frame is
+     * only counted once.
+     */
+    private TileEdgeSolver.TileEdgeObservation previousSideObservation;
+    private TileEdgeSolver.TileEdgeObservation previousFrontObservation;
+
+    /**
+     * Which tile axis the robot's front is closest to, in quarter turns counter-clockwise from the x axis.  The tile
+     * edge aggregate is only valid while this stays the same.
+     */
+    private int tileEdgeFacing;
+
+    /**
+     * Reads the IMU on a background thread.
      */
-    private Position previousPosition;
+    private ImuSampler imuSampler;
 
     /**
-     * The previous iteration's orientation data obtained from the IMU.
+     * The previous iteration's sample from the IMU.
      */
-    private Orientation previousImuOrientation;
+    private ImuSampler.Sample previousImuSample;
+
+    /**
+     * Converts the wheel encoder movement into field movement.
+     */
+    private MecanumOdometry odometry;
 
     /**
      * The previous iteration's motor powers.
@@ -121,25 +224,111 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
         backRight = (DcMotorEx) hardwareMap.dcMotor.get("BackRight");
         motors = Arrays.asList(frontLeft, frontRight, backLeft, backRight);
 
+        frontLeftInput = context.hardwareIO.addMotor(frontLeft);
+        frontRightInput = context.hardwareIO.addMotor(frontRight);
+        backLeftInput = context.hardwareIO.addMotor(backLeft);
+        backRightInput = context.hardwareIO.addMotor(backRight);
+        motorInputs = Arrays.asList(frontLeftInput, frontRightInput, backLeftInput, backRightInput);
+
+        frontLeftOutput = context.hardwareIO.addMotorOutput(frontLeft);
+        frontRightOutput = context.hardwareIO.addMotorOutput(frontRight);
+        backLeftOutput = context.hardwareIO.addMotorOutput(backLeft);
+        backRightOutput = context.hardwareIO.addMotorOutput(backRight);
+        motorOutputs = Arrays.asList(frontLeftOutput, frontRightOutput, backLeftOutput, backRightOutput);
+
         imu = hardwareMap.get(BNO055IMU.class, "imu");
+        imuSampler = new ImuSampler(imu, robotDescriptor.imuSamplePeriodMs);
 
-        tileEdgeAggregator = new TileEdgeObservationAggregator();
+        tileEdgeAggregator = new TileEdgeObservationAggregator(robotDescriptor);
         tileEdgeDetectorSide = new TileEdgeDetector(context, webCamSide, tileEdgeAggregator);
         tileEdgeDetectorFront = new TileEdgeDetector(context, webCamFront, tileEdgeAggregator);
         addSubComponents(tileEdgeDetectorSide, tileEdgeDetectorFront);
 
+        tileHypothesesX = createTileHypothesisTracker();
+        tileHypothesesY = createTileHypothesisTracker();
+
+        aprilTagPoseSolver = new AprilTagPoseSolver(robotDescriptor, AprilTagFieldMap.powerPlay());
+
         // For now starting position is to be assumed the origin (0, 0)
-        position = new Position(0.5, 0.5);
-        heading = new Heading(90);
-        velocity = new Vector2(0, 0);
+        odometry = new MecanumOdometry(robotDescriptor);
+        SlipModel calibratedSlipModel = SlipModel.loadFromDisk(SlipModel.FILENAME);
+        if (calibratedSlipModel != null) {
+            odometry.setSlipModel(calibratedSlipModel);
+        }
+        velocityEstimator = new VelocityEstimator(robotDescriptor.velocityFilterAlpha,
+                robotDescriptor.velocityFilterBeta);
+        poseEstimator = new PoseEstimator(robotDescriptor);
+        poseEstimator.setPosition(new Position(0.5, 0.5));
+        poseEstimator.setHeading(new Heading(90));
+        updatePoseFromEstimator();
+        tileEdgeFacing = getTileEdgeFacing(heading);
+
+        addTelemetry("Heading", new Func<Heading>() {
+            @Override
+            public Heading value() {
+                return heading;
+            }
+        });
+        addTelemetry("Position", new Func<Position>() {
+            @Override
+            public Position value() {
+                return position;
+            }
+        });
+        addTelemetry("Pose Estimate", new Func<PoseEstimator>() {
+            @Override
+            public PoseEstimator value() {
+                return poseEstimator;
+            }
+        });
+        addTelemetry("Hough Stats", new Func<HoughStatistics>() {
+            @Override
+            public HoughStatistics value() {
+                return houghStatistics;
+            }
+        });
+        addTelemetry("AprilTag Fixes", new Func<String>() {
+            @Override
+            public String value() {
+                return String.format("Accepted %d, Rejected %d", aprilTagFixCount, aprilTagRejectedCount);
+            }
+        });
+        addTelemetry("Ramping Power", new Func<String>() {
+            @Override
+            public String value() {
+                return format(RampUtil.getLastRampingFactor());
+            }
+        });
+        addTelemetry("Turn factor", new Func<String>() {
+            @Override
+            public String value() {
+                return format(RampUtil.getLastRampingTurnFactor());
+            }
+        });
     }
 
     @Override
     public void init() {
         super.init();
 
-        initIMU();
+        // The IMU calibration is by far the slowest part of init, so it runs alongside everything else.  The motors
+        // are set up here, since the odometry reads their encoders as soon as init returns.
+        context.parallelInit.run("IMU calibration", new Runnable() {
+            @Override
+            public void run() {
+                initIMU();
+            }
+        });
+        initMotors();
+
+        // Activate the side tile edge detector immediately
+        tileEdgeDetectorSide.activate();
+        tileEdgeDetectorFront.activate();
+
+        previousUpdateTime = new ElapsedTime();
+    }
 
+    private void initMotors() {
         this.frontLeft.setDirection(DcMotorSimple.Direction.REVERSE);
         this.frontRight.setDirection(DcMotorSimple.Direction.FORWARD);
         this.backLeft.setDirection(DcMotorSimple.Direction.REVERSE);
@@ -148,12 +337,6 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
         for (DcMotorEx motor : motors) {
             motor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
         }
-
-        // Activate the side tile edge detector immediately
-        tileEdgeDetectorSide.activate();
-        tileEdgeDetectorFront.activate();
-
-        previousUpdateTime = new ElapsedTime();
     }
 
     private void initIMU() {
@@ -165,26 +348,35 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
 
         imu.initialize(parameters);
 
-        telemetry.addData("IMU", "calibrating...");
-        telemetry.update();
-
         // make sure the imu gyro is calibrated before continuing.
         while (!isStopRequested() && !imu.isGyroCalibrated()) {
             sleep(50);
         }
 
-        telemetry.addData("IMU", "waiting for start...");
-        telemetry.addData("IMU Calibration Status", imu.getCalibrationStatus().toString());
-        telemetry.update();
-
         // Start integration background thread, so we can get updated position in a loop.
         //imu.startAccelerationIntegration(null, null, 5);
+
+        // Read the heading in the background from now on, so the control loop never waits on the IMU.
+        if (!isStopRequested()) {
+            imuSampler.start();
+        }
+    }
+
+    /**
+     * Stops reading the IMU in the background.  This must be called when the OpMode stops.
+     */
+    public void stopImuSampler() {
+        imuSampler.stop();
     }
 
     public TileEdgeDetector getTileEdgeDetectorSide() {
         return tileEdgeDetectorSide;
     }
 
+    public MecanumOdometry getOdometry() {
+        return odometry;
+    }
+
     public BNO055IMU getImu() {
         return imu;
     }
@@ -213,42 +405,132 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
     @Override
     public void updateStatus() {
         // Update the current position and heading based off of sensory data
-        updateCurrentPosition();
-        updateCurrentHeading();
-        updateCurrentVelocity();
-
+        double elapsed = previousUpdateTime.seconds();
         previousUpdateTime.reset();
 
-        telemetry.addData("Heading", heading);
-        telemetry.addData("Position", position);
+        updateCurrentPose(elapsed);
+
         //telemetry.addData("Speed", format(velocity.magnitude()));
 
         //telemetry.addData("Current Command", getCurrentCommand());
         //telemetry.addData("Next Commands", getNextCommands());
 
-        telemetry.addData("Hough Stats", houghStatistics);
-
         // Now allow any commands to run with the updated data
         super.updateStatus();
     }
 
     /**
-     * Updates the current position of the bot.
+     * Updates the current position, heading and velocity of the bot.
+     */
+    private void updateCurrentPose(double elapsed) {
+        // Use the motor encoders and the IMU to predict the change in pose.  The IMU drifts, so take off the drift
+        // estimated from the tile edges.
+        double imuHeadingChange = calculateHeadingChange();
+        double headingChange = imuHeadingChange - poseEstimator.getGyroBias() * Math.max(elapsed, 0);
+        Vector2 positionOffset = calculatePositionOffsetFromMotorTicks(headingChange);
+        poseEstimator.predict(positionOffset, imuHeadingChange, elapsed);
+        updateCurrentVelocity(headingChange, elapsed);
+        updatePoseFromEstimator();
+
+        poseHistory.record(System.nanoTime(), position.getX(), position.getY(), heading.getValue(),
+                positionOffset.getX(), positionOffset.getY(), headingChange);
+
+        // The further the robot drives, the less the previous tile edge observations say about the next one.
+        double driftVariance = robotDescriptor.odometryNoisePerTile * robotDescriptor.odometryNoisePerTile *
+                positionOffset.magnitude();
+        tileHypothesesX.drift(driftVariance);
+        tileHypothesesY.drift(driftVariance);
+
+        // Correct this with the visual observations from hough code, if there are any.
+        moveTileEdgeAggregate(positionOffset, headingChange);
+        updateCurrentPoseWithTileEdgeObservations();
+
+        // The tile edges can't tell which tile the robot is on, so also correct it with any AprilTags in view.
+        updateCurrentPoseWithAprilTags();
+    }
+
+    /**
+     * Carries the aggregated tile edge observation along with the robot's movement in this iteration, so that the
+     * aggregation can carry on while the robot is driving.
+     */
+    private void moveTileEdgeAggregate(Vector2 positionOffset, double headingChange) {
+        // If the robot has turned far enough to be measuring against a different pair of tile edges, start again.
+        int facing = getTileEdgeFacing(heading);
+        if (facing != tileEdgeFacing) {
+            tileEdgeAggregator.reset();
+            tileEdgeFacing = facing;
+            return;
+        }
+
+        Vector2 front = new Vector2(1, 0).rotate(facing * 90);
+        Vector2 right = front.rotate(-90);
+        tileEdgeAggregator.move(positionOffset.dot(right), positionOffset.dot(front), headingChange);
+    }
+
+    private TileHypothesisTracker createTileHypothesisTracker() {
+        return new TileHypothesisTracker(
+                TILE_HYPOTHESIS_MAX_OFFSET,
+                robotDescriptor.tileEdgeDistanceNoise,
+                robotDescriptor.tileHypothesisDecay,
+                robotDescriptor.tileHypothesisMinProbability,
+                robotDescriptor.tileHypothesisMinObservations
+        );
+    }
+
+    private static int getTileEdgeFacing(Heading heading) {
+        return (int) Math.round(heading.getValue() / 90) % 4;
+    }
+
+    private void updatePoseFromEstimator() {
+        position = poseEstimator.getPosition();
+        heading = poseEstimator.getHeading();
+        velocity = velocityEstimator.getFieldVelocity(heading);
+    }
+
+    /**
+     * Updates the velocity from the motor controllers' encoder velocities, rather than the change in position, so
+     * it doesn't depend on the loop timing or jump when the position is corrected.
+     */
+    private void updateCurrentVelocity(double headingChange, double elapsed) {
+        odometry.calculateRobotVelocity(
+                backLeftInput.getVelocity(),
+                backRightInput.getVelocity(),
+                frontLeftInput.getVelocity(),
+                frontRightInput.getVelocity(),
+                previousMotorPowers,
+                wheelVelocity
+        );
+
+        // The IMU measures the turn rate more accurately than the wheels, which slip sideways when turning.
+        double angularRate = elapsed > 0 ?
+                headingChange / elapsed :
+                velocityEstimator.getAngularVelocity();
+
+        velocityEstimator.update(wheelVelocity[MecanumOdometry.STRAFE], wheelVelocity[MecanumOdometry.FORWARD],
+                angularRate, elapsed);
+    }
+
+    /**
+     * Returns the current velocity of the robot in robot space, with x being to the right and y forward.
      */
-    private void updateCurrentPosition() {
-        // Use the motor encoders to approximate the change in position.
-        updateCurrentPositionWithMotorTicks();
+    public Vector2 getRobotVelocity() {
+        return velocityEstimator.getRobotVelocity();
+    }
 
-        // Override this with a visual observation from hough code, if there is one.
-        updateCurrentPositionWithTileEdgeObservation();
+    /**
+     * Returns the current counter-clockwise angular velocity of the robot in degrees / sec.
+     */
+    public double getAngularVelocity() {
+        return velocityEstimator.getAngularVelocity();
     }
 
-    private void updateCurrentPositionWithMotorTicks() {
+    private Vector2 calculatePositionOffsetFromMotorTicks(double headingChange) {
         // Determine the number of ticks moved by each wheel.
         MotorTicks ticks = getCurrentMotorTicks();
 
         //telemetry.addData("Motor Ticks", ticks.toString());
 
+        Vector2 deltaPositionRelativeToField = new Vector2(0, 0);
         if (previousMotorTicks != null) {
 
             // If we have a previous tick count, calculate how far the robot has moved based on the delta in ticks,
@@ -259,151 +541,324 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
             int deltaFrontLeft = ticks.frontLeft - previousMotorTicks.frontLeft;
             int deltaFrontRight = ticks.frontRight - previousMotorTicks.frontRight;
 
-            Vector2 deltaPositionRelativeToField = MecanumUtil.calculatePositionOffsetFromWheelRotations(
-                    robotDescriptor,
+            // Integrate along the arc given by the IMU heading change over the same interval.
+            deltaPositionRelativeToField = odometry.calculatePositionOffset(
                     deltaBackLeft,
                     deltaBackRight,
                     deltaFrontLeft,
                     deltaFrontRight,
                     heading,
+                    headingChange,
                     previousMotorPowers
             );
-
-            position = position.add(deltaPositionRelativeToField);
         }
 
         // Remember the current motor ticks for the next loop iteration
         previousMotorTicks = ticks;
+
+        return deltaPositionRelativeToField;
     }
 
-    private void updateCurrentPositionWithTileEdgeObservation() {
+    private void updateCurrentPoseWithTileEdgeObservations() {
 
-        // If the bot is moving, just reset the aggregation.
-        if (velocity == null || velocity.magnitude() > 0.01) {
-            tileEdgeAggregator.reset();
-            return;
+        // Apply each new frame from the detectors once.  The pose estimator does the averaging over frames.
+        TileEdgeSolver.TileEdgeObservation sideObservation = tileEdgeDetectorSide.getObservation();
+        if (sideObservation != null && sideObservation != previousSideObservation) {
+            updateCurrentPoseWithTileEdgeObservation(sideObservation);
+            previousSideObservation = sideObservation;
         }
 
-        // Check whether there is an observation, and if we have not yet seen it.
-        TileEdgeSolver.TileEdgeObservation observation = tileEdgeAggregator.getAggregateObservation();
-        if (observation != null) {
+        TileEdgeSolver.TileEdgeObservation frontObservation = tileEdgeDetectorFront.getObservation();
+        if (frontObservation != null && frontObservation != previousFrontObservation) {
+            updateCurrentPoseWithTileEdgeObservation(frontObservation);
+            previousFrontObservation = frontObservation;
+        }
 
-            // First, compute the expected robot space coordinates using our theoretical position.
-            RobotSpaceCoordinates robotSpaceCoordinates = convertToRobotSpace(new FieldSpaceCoordinates(heading, position));
+        tileEdgeAggregator.publish(System.nanoTime());
+    }
 
-            // Then using the observation overwrite the expected with the actual values.
-            if (observation.distanceRight != null) {
-                houghStatistics.rightEdgeCorrections++;
-                houghStatistics.rightEdgeCorrectionDistance += Math.abs(observation.distanceRight - robotSpaceCoordinates.distanceRight);
-                robotSpaceCoordinates.distanceRight = observation.distanceRight;
-            }
-            if (observation.distanceFront != null) {
-                houghStatistics.frontEdgeCorrections++;
-                houghStatistics.frontEdgeCorrectionDistance += Math.abs(observation.distanceFront - robotSpaceCoordinates.distanceFront);
-                robotSpaceCoordinates.distanceFront = observation.distanceFront;
-            }
-            if (observation.headingOffset != null) {
-                robotSpaceCoordinates.headingOffset = observation.headingOffset;
-            }
+    private void updateCurrentPoseWithTileEdgeObservation(TileEdgeSolver.TileEdgeObservation observation) {
 
-            // Convert back to field space.
-            FieldSpaceCoordinates updatedFieldSpaceCoordinates = convertToFieldSpace(robotSpaceCoordinates);
+        // Look up where the robot was when the frame was captured.  Observations older than the history are dropped.
+        double elapsed = observation.observationTime.seconds();
+        long captureTime = System.nanoTime() - (long) (elapsed * 1e9);
+        if (!poseHistory.getPoseAt(captureTime, capturedPose)) {
+            return;
+        }
+        Position capturedPosition = new Position(capturedPose[0], capturedPose[1]);
+        Heading capturedHeading = new Heading(capturedPose[2]);
+
+        // First, compute the expected robot space coordinates using our theoretical position at the time.
+        RobotSpaceCoordinates robotSpaceCoordinates = convertToRobotSpace(
+                new FieldSpaceCoordinates(capturedHeading, capturedPosition));
+
+        // When the robot faces along the y axis, the front edge is measuring y and the right edge x, and vice versa.
+        boolean facingAlongY = robotSpaceCoordinates.frontLeftTileVertex.minus(
+                robotSpaceCoordinates.backLeftTileVertex).getY() != 0;
+
+        // Then using the observation overwrite the expected with the actual values.
+        if (observation.distanceRight != null) {
+            houghStatistics.rightEdgeCorrections++;
+            houghStatistics.rightEdgeCorrectionDistance += Math.abs(observation.distanceRight - robotSpaceCoordinates.distanceRight);
+            robotSpaceCoordinates.distanceRight = observation.distanceRight;
+        }
+        if (observation.distanceFront != null) {
+            houghStatistics.frontEdgeCorrections++;
+            houghStatistics.frontEdgeCorrectionDistance += Math.abs(observation.distanceFront - robotSpaceCoordinates.distanceFront);
+            robotSpaceCoordinates.distanceFront = observation.distanceFront;
+        }
+        if (observation.headingOffset != null) {
+            robotSpaceCoordinates.headingOffset = observation.headingOffset;
+        }
 
-            // Apply the current velocity as well, taking into account how old this observation is.
-            double elapsed = observation.observationTime.seconds();
-            Vector2 velocityCorrection = velocity != null ?
-                    velocity.multiply(elapsed) :
-                    new Vector2(0, 0);
+        // Convert back to field space.
+        FieldSpaceCoordinates observedFieldSpaceCoordinates = convertToFieldSpace(robotSpaceCoordinates);
+
+        // Carry the observation forward to now, with the odometry movement since the frame was captured.
+        poseHistory.getMotionSince(captureTime, motionSinceCapture);
+        Position observedPosition = observedFieldSpaceCoordinates.position.add(
+                new Vector2(motionSinceCapture[0], motionSinceCapture[1]));
+        Heading observedHeading = observedFieldSpaceCoordinates.heading.add(motionSinceCapture[2]);
+
+        aggregateTileEdgeObservation(observation, captureTime, capturedHeading, observedPosition, observedHeading);
+
+        // Fold the observed values into the pose estimate, once the tile hypotheses are sure which tile each is in.
+        // Values that are too far from the estimate to be believable are rejected, rather than making the robot jump.
+        Position estimatedPosition = poseEstimator.getPosition();
+        boolean observedX = facingAlongY ? observation.distanceRight != null : observation.distanceFront != null;
+        boolean observedY = facingAlongY ? observation.distanceFront != null : observation.distanceRight != null;
+        boolean corrected = false;
+        if (observedX) {
+            corrected |= updatePositionWithTileEdge(PoseEstimator.X, tileHypothesesX,
+                    estimatedPosition.getX(), observedPosition.getX());
+        }
+        if (observedY) {
+            corrected |= updatePositionWithTileEdge(PoseEstimator.Y, tileHypothesesY,
+                    estimatedPosition.getY(), observedPosition.getY());
+        }
+        if (observation.headingOffset != null) {
+            corrected |= updateHeadingWithTileEdge(observedHeading);
+        }
+        moveTileHypotheses(estimatedPosition);
 
-            Position updatedPosition = updatedFieldSpaceCoordinates.position.add(velocityCorrection);
+        Position previousPosition = position;
+        updatePoseFromEstimator();
 
-            // Sanity check - make sure that the distance we would be correcting is less than a maximum.
-            double maxHoughCorrectionDistance = inchesToTiles(12);
+        if (corrected) {
+            houghStatistics.totalCorrections++;
+            houghStatistics.totalCorrectionDistance += position.distance(previousPosition);
+            houghStatistics.totalObservationAge += elapsed;
 
-            Vector2 correction = updatedPosition.minus(position);
-            double correctionDistance = correction.magnitude();
+            if (velocity.magnitude() > 0.01) {
+                houghStatistics.movingCorrections++;
+            } else {
+                houghStatistics.stationaryCorrections++;
+            }
+        }
+    }
 
-            if (correctionDistance < maxHoughCorrectionDistance) {
-                // Finally update the current position to be the actual position.
-                //heading = updatedFieldSpaceCoordinates.heading;
-                position = updatedPosition;
+    /**
+     * Corrects one axis of the position with a tile edge observation, using the tile chosen by the tile hypotheses.
+     *
+     * @param estimatedValue The estimated position along the axis, before any of this observation was applied.
+     * @param observedValue  The observed position along the axis, which may be out by whole tiles.
+     * @return Whether the position was corrected.
+     */
+    private boolean updatePositionWithTileEdge(int index, TileHypothesisTracker tileHypotheses,
+                                               double estimatedValue, double observedValue) {
+        tileHypotheses.add(observedValue - estimatedValue, poseEstimator.getCovariance(index, index));
+        if (!tileHypotheses.isCommitted()) {
+            houghStatistics.ambiguousObservations++;
+            return false;
+        }
 
-                // Also update the previous position by the same amount, so the velocity doesn't jump.
-                if (previousPosition != null) {
-                    previousPosition = previousPosition.add(correction);
-                }
+        // Use the observation in the tile the hypotheses chose.
+        double residual = tileHypotheses.getResidual();
+        double value = estimatedValue + residual;
 
-                houghStatistics.totalCorrections++;
-                houghStatistics.totalCorrectionDistance += correctionDistance;
-                houghStatistics.totalObservationAge += observation.observationTime.seconds();
+        boolean accepted = Math.abs(residual) <= 0.5 && poseEstimator.update(index, value,
+                robotDescriptor.tileEdgeDistanceNoise, robotDescriptor.tileEdgeRejectionThreshold);
+        tileHypotheses.recordUpdate(accepted);
+        if (accepted) {
+            return true;
+        }
 
-                if (velocity != null && velocity.magnitude() > 0.01) {
-                    houghStatistics.movingCorrections++;
-                } else {
-                    houghStatistics.stationaryCorrections++;
-                }
-            }
+        // The estimate has drifted into the wrong tile, or has become too sure of a position the robot has left, so
+        // move it straight to the observation.
+        if (Math.abs(residual) > 0.5 || tileHypotheses.isEstimateStuck()) {
+            poseEstimator.set(index, value, robotDescriptor.tileEdgeDistanceNoise);
+            tileHypotheses.recordUpdate(true);
+            houghStatistics.tileChanges++;
+            return true;
         }
+        return false;
     }
 
-    public void setPosition(Position position) {
-        this.position = position;
-
-        // Also null out the previous position so that the velocity doesn't jump unnaturally.
-        previousPosition = null;
+    /**
+     * Corrects the heading with a tile edge observation, which also corrects the estimated gyro bias.
+     *
+     * @return Whether the heading was corrected.
+     */
+    private boolean updateHeadingWithTileEdge(Heading observedHeading) {
+        // The tile edges look the same every quarter turn, so use the observation in the quarter turn nearest to the
+        // estimate.
+        Heading estimatedHeading = poseEstimator.getHeading();
+        double residual = Math.IEEEremainder(observedHeading.delta(estimatedHeading), 90);
+
+        boolean accepted = poseEstimator.update(PoseEstimator.HEADING, estimatedHeading.getValue() + residual,
+                robotDescriptor.tileEdgeHeadingNoise, robotDescriptor.tileEdgeRejectionThreshold);
+        if (accepted) {
+            houghStatistics.headingCorrections++;
+            houghStatistics.totalHeadingResidual += Math.abs(residual);
+            houghStatistics.gyroBias = poseEstimator.getGyroBias();
+            houghStatistics.gyroBiasDeviation = poseEstimator.getStandardDeviation(PoseEstimator.GYRO_BIAS);
+        } else {
+            houghStatistics.rejectedHeadingCorrections++;
+        }
+        return accepted;
     }
 
-    public void setHeading(Heading heading) {
-        this.heading = heading;
+    /**
+     * Tells the tile hypotheses how far the estimated position has been corrected, so they can measure the next
+     * observations from the new position.
+     */
+    private void moveTileHypotheses(Position previousEstimate) {
+        Position estimate = poseEstimator.getPosition();
+        tileHypothesesX.moveEstimate(estimate.getX() - previousEstimate.getX());
+        tileHypothesesY.moveEstimate(estimate.getY() - previousEstimate.getY());
     }
 
-    private MotorTicks getCurrentMotorTicks() {
-        return new MotorTicks(
-                backLeft.getCurrentPosition(),
-                backRight.getCurrentPosition(),
-                frontLeft.getCurrentPosition(),
-                frontRight.getCurrentPosition()
-        );
+    /**
+     * Adds the observation, carried forward to the robot's current pose, to the aggregate.
+     */
+    private void aggregateTileEdgeObservation(TileEdgeSolver.TileEdgeObservation observation, long captureTime,
+                                              Heading capturedHeading, Position observedPosition,
+                                              Heading observedHeading) {
+        // The observation measured different tile edges if the robot has turned too far since the frame was captured.
+        if (getTileEdgeFacing(capturedHeading) != tileEdgeFacing) {
+            return;
+        }
+
+        RobotSpaceCoordinates observedNow = convertToRobotSpace(
+                new FieldSpaceCoordinates(observedHeading, observedPosition));
+
+        TileEdgeSolver.TileEdgeObservation carriedForward = new TileEdgeSolver.TileEdgeObservation();
+        if (observation.distanceRight != null) {
+            carriedForward.distanceRight = observedNow.distanceRight;
+        }
+        if (observation.distanceFront != null) {
+            carriedForward.distanceFront = observedNow.distanceFront;
+        }
+        if (observation.headingOffset != null) {
+            carriedForward.headingOffset = observedNow.headingOffset;
+        }
+        tileEdgeAggregator.add(carriedForward, captureTime);
     }
 
     /**
-     * Updates the current heading of the bot.
+     * Sets the AprilTag detector whose detections correct the robot's pose while it's active.
      */
-    private void updateCurrentHeading() {
+    public void setAprilTagDetector(AprilTagDetector aprilTagDetector) {
+        this.aprilTagDetector = aprilTagDetector;
+    }
 
-        // The following code adapted with permission from team SkyStone 2019-2020.
+    private void updateCurrentPoseWithAprilTags() {
+        if (aprilTagDetector == null || !aprilTagDetector.isActive()) {
+            return;
+        }
 
-        // We experimentally determined the Z axis is the axis we want to use for heading angle.
-        // We have to process the angle because the imu works in euler angles so the Z axis is
-        // returned as 0 to +180 or 0 to -180 rolling back to -179 or +179 when rotation passes
-        // 180 degrees. We detect this transition and track the total cumulative angle of rotation.
+        DetectionFrame frame = aprilTagDetector.getDetectionFrame();
+        if (frame == previousAprilTagFrame) {
+            return;
+        }
+        previousAprilTagFrame = frame;
 
-        Orientation orientation = imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.DEGREES);
+        // Look up where the robot was when the frame was captured.  Frames older than the history are dropped.
+        if (frame.detections.isEmpty() || !poseHistory.getPoseAt(frame.captureTime, capturedPose)) {
+            return;
+        }
+        Position capturedPosition = new Position(capturedPose[0], capturedPose[1]);
+        poseHistory.getMotionSince(frame.captureTime, motionSinceCapture);
+        Vector2 motion = new Vector2(motionSinceCapture[0], motionSinceCapture[1]);
+        Position estimatedPosition = poseEstimator.getPosition();
+
+        for (AprilTagDetection detection : frame.detections) {
+            AprilTagFix fix = aprilTagPoseSolver.solve(detection, capturedPosition);
+            if (fix == null) {
+                continue;
+            }
 
-        if (previousImuOrientation == null) {
-            previousImuOrientation = orientation;
+            // Carry the fix forward to now, with the odometry movement since the frame was captured.
+            boolean accepted = poseEstimator.update(
+                    fix.position.add(motion),
+                    fix.heading.add(motionSinceCapture[2]),
+                    fix.covariance,
+                    robotDescriptor.aprilTagRejectionThreshold
+            );
+            if (accepted) {
+                aprilTagFixCount++;
+            } else {
+                aprilTagRejectedCount++;
+            }
         }
 
-        double deltaAngle = orientation.firstAngle - previousImuOrientation.firstAngle;
-        heading = heading.add(deltaAngle);
+        moveTileHypotheses(estimatedPosition);
+        updatePoseFromEstimator();
+    }
 
-        previousImuOrientation = orientation;
+    public void setPosition(Position position) {
+        poseEstimator.setPosition(position);
+        tileHypothesesX.reset();
+        tileHypothesesY.reset();
+        velocityEstimator.reset();
+        updatePoseFromEstimator();
+        restartPoseHistory();
+    }
+
+    public void setHeading(Heading heading) {
+        poseEstimator.setHeading(heading);
+        updatePoseFromEstimator();
+        restartPoseHistory();
     }
 
     /**
-     * Updates the current velocity of the bot.
+     * Starts the pose history again from the current pose, so that frames captured from now on have a pose to be
+     * applied at even before the next update.
      */
-    private void updateCurrentVelocity() {
+    private void restartPoseHistory() {
+        poseHistory.clear();
+        poseHistory.record(System.nanoTime(), position.getX(), position.getY(), heading.getValue(), 0, 0, 0);
+    }
 
-        if (previousPosition != null) {
+    private MotorTicks getCurrentMotorTicks() {
+        return new MotorTicks(
+                backLeftInput.getPosition(),
+                backRightInput.getPosition(),
+                frontLeftInput.getPosition(),
+                frontRightInput.getPosition()
+        );
+    }
 
-            Vector2 delta = position.minus(previousPosition);
-            double elapsed = previousUpdateTime.seconds();
+    /**
+     * Returns the change in heading of the bot since the previous iteration, according to the IMU.
+     */
+    private double calculateHeadingChange() {
+
+        // The IMU sampler tracks the total cumulative angle of rotation, so the change in heading is just the change
+        // in that angle since the last sample we used.
+        ImuSampler.Sample sample = imuSampler.getLatestSample();
+        if (sample == null) {
+            return 0;
+        }
 
-            velocity = delta.multiply(1 / elapsed);
+        if (previousImuSample == null) {
+            previousImuSample = sample;
         }
 
-        previousPosition = position;
+        double deltaAngle = sample.cumulativeAngle - previousImuSample.cumulativeAngle;
+
+        previousImuSample = sample;
+        return deltaAngle;
     }
 
     /**
@@ -435,31 +890,42 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
      * <p>
      * Note that this method will block, and should only be called when the robot is not doing
      * anything else.  Otherwise, the effects are unpredictable.
+     *
+     * @return The aggregated observation, or null if there was none.
      */
-    public void waitForTileEdgeDetection(double minTime, double maxTime) {
+    public TileEdgeObservationAggregator.Snapshot waitForTileEdgeDetection(double minTime, double maxTime) {
         boolean active = isTileEdgeDetectionActive();
         if (!active) {
             // Activate the tile edge detector if it's not turned on.
             activateTileEdgeDetection();
         }
 
-        // Wait for up to the requested time until we have a valid observation.
-        ElapsedTime waitTime = new ElapsedTime();
-        while (!isStopRequested() && waitTime.seconds() < maxTime) {
-            TileEdgeSolver.TileEdgeObservation observation = tileEdgeAggregator.getAggregateObservation();
-            if (observation != null) {
-                updateCurrentPositionWithTileEdgeObservation();
-                if (waitTime.seconds() > minTime) {
-                    break;
-                }
-            }
-            sleep(5);
-        }
+        // Wait for up to the requested time until we have a valid observation.  The robot isn't being updated while
+        // this blocks, so the observations are fed to the aggregator here.
+        TileEdgeObservationAggregator.Snapshot observation = tileEdgeAggregator.waitForSnapshot(
+                new TileEdgeObservationAggregator.WaitLoop() {
+                    @Override
+                    public boolean isStopRequested() {
+                        return DriveTrain.this.isStopRequested();
+                    }
+
+                    @Override
+                    public void update() {
+                        updateCurrentPoseWithTileEdgeObservations();
+                    }
+
+                    @Override
+                    public void sleep(long millis) {
+                        DriveTrain.this.sleep(millis);
+                    }
+                }, minTime, maxTime);
 
         if (!active) {
             // If we turned on edge detection just for this method, now disable it.
             deactivateTileEdgeDetection();
         }
+
+        return observation;
     }
 
     /**
@@ -535,13 +1001,13 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
     }
 
     /**
-     * Moves to the given target position and heading
+     * Moves to the given target position, keeping the heading the robot has when the move starts.
      *
      * @param targetPosition The target position at which the robot should end.
      * @param speed          The speed you want to move at.
      */
     public void moveToTargetPosition(Position targetPosition, double speed) {
-        executeCommand(new MoveToTargetPosition(targetPosition, heading, speed));
+        executeCommand(new MoveToTargetPosition(targetPosition, null, speed));
     }
 
     /**
@@ -675,18 +1141,18 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
     private void setMotorPowers(MotorPowers motorPowers) {
         previousMotorPowers = motorPowers;
 
-        frontLeft.setPower(motorPowers.frontLeft);
-        frontRight.setPower(motorPowers.frontRight);
-        backLeft.setPower(motorPowers.backLeft);
-        backRight.setPower(motorPowers.backRight);
+        frontLeftOutput.setPower(motorPowers.frontLeft);
+        frontRightOutput.setPower(motorPowers.frontRight);
+        backLeftOutput.setPower(motorPowers.backLeft);
+        backRightOutput.setPower(motorPowers.backRight);
     }
 
     /**
      * Set the run mode for all motors.
      */
     private void setMotorMode(DcMotor.RunMode mode) {
-        for (DcMotorEx motor : motors) {
-            motor.setMode(mode);
+        for (MotorOutput output : motorOutputs) {
+            output.setMode(mode);
         }
 
         // Also, if the encoders are being reset, forget the previous motor ticks, in order to keep the robot from
@@ -701,10 +1167,10 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
      */
     private int averageMotorPosition() {
         int sum = 0;
-        for (DcMotorEx motor : motors) {
-            sum += Math.abs(motor.getCurrentPosition());
+        for (MotorInput input : motorInputs) {
+            sum += Math.abs(input.getPosition());
         }
-        return sum / motors.size();
+        return sum / motorInputs.size();
     }
 
     /**
@@ -891,10 +1357,13 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
     /**
      * Moves the robot to the given target position and heading.
      */
-    private class MoveToTargetPosition extends BaseMoveCommand {
+    private class MoveToTargetPosition extends BaseMoveCommand implements CombinableCommand {
 
         private Position targetPosition;
 
+        /**
+         * The target heading, or null to keep the heading the robot has when the move starts.
+         */
         private Heading targetHeading;
 
         public MoveToTargetPosition(Position targetPosition, Heading targetHeading, double speed) {
@@ -910,7 +1379,163 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
 
         @Override
         protected Heading calculateTargetHeading() {
-            return targetHeading;
+            return targetHeading != null ? targetHeading : heading;
+        }
+
+        @Override
+        public Command combineWith(Command other) {
+            // Consecutive moves are followed as a single path, so the robot doesn't stop at each waypoint.
+            if (robotDescriptor.pathBlendingCornerRadius > 0 && other instanceof MoveToTargetPosition) {
+                List<MoveToTargetPosition> waypoints = new ArrayList<>();
+                waypoints.add(this);
+                waypoints.add((MoveToTargetPosition) other);
+                return new FollowPath(waypoints, null);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Follows a path through the waypoints of several consecutive moves to target positions.
+     * <p>
+     * Instead of stopping at each waypoint, the robot heads for the next one as soon as it is within the corner radius,
+     * and only ramps down for the final waypoint.  Corners sharper than the maximum corner angle can't be cut, so the
+     * robot still stops at those.
+     */
+    private class FollowPath extends BaseCommand implements CombinableCommand {
+
+        private List<MoveToTargetPosition> waypoints;
+
+        /**
+         * The index of the waypoint the robot is currently heading for.
+         */
+        private int index;
+
+        /**
+         * The position the path started from.
+         */
+        private Position pathStartPosition;
+
+        /**
+         * The position and heading the robot had when it started heading for the current waypoint.
+         */
+        private Position waypointStartPosition;
+        private Heading waypointStartHeading;
+
+        /**
+         * The heading the robot is trying to achieve.  Waypoints without a heading keep the one before.
+         */
+        private Heading targetHeading;
+
+        public FollowPath(List<MoveToTargetPosition> waypoints, Heading targetHeading) {
+            this.waypoints = waypoints;
+            this.targetHeading = targetHeading;
+        }
+
+        @Override
+        public void start() {
+            index = 0;
+            pathStartPosition = position;
+            startWaypoint();
+
+            setMotorMode(DcMotorEx.RunMode.RUN_USING_ENCODER);
+        }
+
+        private void startWaypoint() {
+            Heading waypointHeading = waypoints.get(index).targetHeading;
+            if (waypointHeading != null) {
+                targetHeading = waypointHeading;
+            } else if (targetHeading == null) {
+                targetHeading = heading;
+            }
+
+            waypointStartPosition = position;
+            waypointStartHeading = heading;
+        }
+
+        @Override
+        public boolean updateStatus() {
+
+            // Move on to the next waypoint once the robot is close enough to cut the corner.
+            while (index < waypoints.size() - 1 && isWaypointPassed(index)) {
+                index++;
+                startWaypoint();
+            }
+
+            MoveToTargetPosition waypoint = waypoints.get(index);
+            MotorPowers motorPowers = MecanumUtil.calculateWheelPowerForTargetPosition(
+                    robotDescriptor,
+                    position, heading, velocity,
+                    waypoint.targetPosition, targetHeading,
+                    getDistanceToStop(),
+                    waypoint.getSpeed()
+            );
+            setMotorPowers(motorPowers);
+
+            if (index < waypoints.size() - 1) {
+                return false;
+            }
+
+            // Finish at the last waypoint the same way as a single move.
+            double headingMoved = Math.abs(heading.delta(waypointStartHeading));
+            double headingRemaining = Math.abs(heading.delta(targetHeading));
+
+            boolean targetHeadingReached =
+                    headingMoved >= Math.abs(waypointStartHeading.delta(targetHeading)) ||
+                            headingRemaining <= robotDescriptor.rotationTargetHeadingReachedThreshold;
+
+            return isWaypointPassed(index) && targetHeadingReached;
+        }
+
+        private boolean isWaypointPassed(int i) {
+            Position waypointPosition = waypoints.get(i).targetPosition;
+            double distanceRemaining = position.distance(waypointPosition);
+            double threshold = isStopPoint(i) ?
+                    robotDescriptor.movementTargetPositionReachedThreshold :
+                    robotDescriptor.pathBlendingCornerRadius;
+
+            return distanceRemaining <= threshold ||
+                    position.distance(waypointStartPosition) >= waypointStartPosition.distance(waypointPosition);
+        }
+
+        /**
+         * Indicates whether the robot has to stop at the given waypoint, because it is the last one or the corner there
+         * is too sharp to cut.
+         */
+        private boolean isStopPoint(int i) {
+            if (i >= waypoints.size() - 1) {
+                return true;
+            }
+
+            Position previous = i == 0 ? pathStartPosition : waypoints.get(i - 1).targetPosition;
+            Position current = waypoints.get(i).targetPosition;
+            Position next = waypoints.get(i + 1).targetPosition;
+
+            double cornerAngle = current.minus(previous).angleTo(next.minus(current));
+            return !(cornerAngle <= robotDescriptor.pathBlendingMaxCornerAngle);
+        }
+
+        /**
+         * Returns the distance along the path to the next waypoint the robot has to stop at, which is what the speed
+         * should ramp down for.
+         */
+        private double getDistanceToStop() {
+            double distance = position.distance(waypoints.get(index).targetPosition);
+            for (int i = index; !isStopPoint(i); i++) {
+                distance += waypoints.get(i).targetPosition.distance(waypoints.get(i + 1).targetPosition);
+            }
+            return distance;
+        }
+
+        @Override
+        public Command combineWith(Command other) {
+            if (other instanceof MoveToTargetPosition) {
+                // If this path has already started, the new one carries on from the waypoint the robot is heading for.
+                List<MoveToTargetPosition> remaining = new ArrayList<>(waypoints.subList(index, waypoints.size()));
+                remaining.add((MoveToTargetPosition) other);
+                return new FollowPath(remaining, targetHeading);
+            }
+            return null;
         }
     }
 
@@ -1112,8 +1737,8 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
 
             setMotorMode(DcMotorEx.RunMode.STOP_AND_RESET_ENCODER);
 
-            for (DcMotorEx motor : motors) {
-                motor.setTargetPosition(ticks);
+            for (MotorOutput output : motorOutputs) {
+                output.setTargetPosition(ticks);
             }
 
             setMotorMode(DcMotorEx.RunMode.RUN_TO_POSITION);
@@ -1125,8 +1750,10 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
             // Check if we've reached the correct number of ticks
             int ticksMoved = averageMotorPosition();
 
-            telemetry.addData("ticks moved", ticksMoved);
-            telemetry.addData("ticks", ticks);
+            if (context.telemetryBuffer.isTransmitDue()) {
+                telemetry.addData("ticks moved", ticksMoved);
+                telemetry.addData("ticks", ticks);
+            }
 
             setMotorPower(getPowerCurveForPosition(ticksMoved, 0, Math.abs(ticks), speed));
             return progress >= 1.0;
@@ -1168,10 +1795,10 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
 
             setMotorMode(DcMotorEx.RunMode.STOP_AND_RESET_ENCODER);
 
-            frontLeft.setTargetPosition(-ticks);
-            frontRight.setTargetPosition(ticks);
-            backLeft.setTargetPosition(ticks);
-            backRight.setTargetPosition(-ticks);
+            frontLeftOutput.setTargetPosition(-ticks);
+            frontRightOutput.setTargetPosition(ticks);
+            backLeftOutput.setTargetPosition(ticks);
+            backRightOutput.setTargetPosition(-ticks);
 
             setMotorMode(DcMotor.RunMode.RUN_TO_POSITION);
         }
@@ -1180,8 +1807,10 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
         public boolean updateStatus() {
             int ticksMoved = averageMotorPosition();
 
-            telemetry.addData("tick moved", ticksMoved);
-            telemetry.addData("ticks", ticks);
+            if (context.telemetryBuffer.isTransmitDue()) {
+                telemetry.addData("tick moved", ticksMoved);
+                telemetry.addData("ticks", ticks);
+            }
 
             setMotorPower(getPowerCurveForPosition(ticksMoved, 0, Math.abs(ticks), speed));
 
@@ -1217,15 +1846,16 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
             }
             double progress = scaleProgress(heading.getValue(), initialHeading.getValue(), targetHeading.getValue());
 
-            telemetry.addData("Heading", heading);
-            telemetry.addData("Initial Heading", initialHeading);
-            telemetry.addData("Target Heading", targetHeading);
-            telemetry.addData("Motor Power Curve", power);
+            if (context.telemetryBuffer.isTransmitDue()) {
+                telemetry.addData("Initial Heading", initialHeading);
+                telemetry.addData("Target Heading", targetHeading);
+                telemetry.addData("Motor Power Curve", power);
+            }
 
-            frontLeft.setPower(-power);
-            backLeft.setPower(-power);
-            frontRight.setPower(power);
-            backRight.setPower(power);
+            frontLeftOutput.setPower(-power);
+            backLeftOutput.setPower(-power);
+            frontRightOutput.setPower(power);
+            backRightOutput.setPower(power);
 
             return progress >= 1.0;
         }
@@ -1264,19 +1894,34 @@ public class DriveTrain extends BaseComponent implements RobotPositionProvider {
         public int rightEdgeCorrections;
         public int stationaryCorrections;
         public int movingCorrections;
+        public int ambiguousObservations;
+        public int tileChanges;
+        public int headingCorrections;
+        public int rejectedHeadingCorrections;
+        public double totalHeadingResidual;
+        public double gyroBias;
+        public double gyroBiasDeviation;
 
         @Override
         public String toString() {
             double averageObservationAge = totalCorrections != 0 ?
                     totalObservationAge / totalCorrections :
                     0.0;
+            double averageHeadingResidual = headingCorrections != 0 ?
+                    totalHeadingResidual / headingCorrections :
+                    0.0;
 
             return String.format(
-                    "Total [%.1f in, %d], Front [%.1f in, %d], Right [%.1f in, %d], Stationary [%d], Moving [%d], Avg Age [%.3f s]",
+                    "Total [%.1f in, %d], Front [%.1f in, %d], Right [%.1f in, %d], Stationary [%d], Moving [%d], Avg Age [%.3f s], " +
+                            "Ambiguous [%d], Tile Changes [%d], " +
+                            "Heading [%.2f deg, %d, %d rejected], Gyro Bias [%.3f +/- %.3f deg/s]",
                     tilesToInches(totalCorrectionDistance), totalCorrections,
                     tilesToInches(frontEdgeCorrectionDistance), frontEdgeCorrections,
                     tilesToInches(rightEdgeCorrectionDistance), rightEdgeCorrections,
-                    stationaryCorrections, movingCorrections, averageObservationAge
+                    stationaryCorrections, movingCorrections, averageObservationAge,
+                    ambiguousObservations, tileChanges,
+                    averageHeadingResidual, headingCorrections, rejectedHeadingCorrections,
+                    gyroBias, gyroBiasDeviation
             );
         }
 
@@ -0,0 +1,423 @@
+package org.firstinspires.ftc.teamcode.components;
+
+import android.annotation.SuppressLint;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.DcMotorSimple;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.Servo;
+import com.qualcomm.robotcore.hardware.TouchSensor;
+
+import org.firstinspires.ftc.teamcode.RobotDescriptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Owns all reads from and writes to the robot's hubs.
+ * <p>
+ * Every hub is put into MANUAL bulk caching mode, so that the cache is only cleared once per loop iteration in
+ * {@link #readInputs()}.  All registered inputs are then read from that single bulk read, giving every component the
+ * same consistent snapshot of encoder positions, velocities and digital inputs for the rest of the iteration.
+ * <p>
+ * See ConceptMotorBulkRead in the FtcRobotController samples for details of the underlying SDK feature.
+ * <p>
+ * Outputs are buffered in the same way.  Components record the desired power, mode, target position and servo
+ * position during the iteration, and {@link #writeOutputs()} sends only the values that have actually changed.
+ */
+public class HardwareIO {
+
+    private RobotDescriptor robotDescriptor;
+
+    /**
+     * The hubs (control hub and expansion hubs) that the inputs are read from.
+     */
+    private List<LynxModule> hubs;
+
+    /**
+     * The motors whose encoders are read in each iteration.
+     */
+    private List<MotorInput> motorInputs = new ArrayList<>();
+
+    /**
+     * The digital inputs that are read in each iteration.
+     */
+    private List<DigitalInput> digitalInputs = new ArrayList<>();
+
+    /**
+     * The motors and continuous rotation servos whose outputs are written in each iteration.
+     */
+    private List<PowerOutput> powerOutputs = new ArrayList<>();
+
+    /**
+     * The servos whose outputs are written in each iteration.
+     */
+    private List<ServoOutput> servoOutputs = new ArrayList<>();
+
+    /**
+     * The number of hardware writes that were sent to the hubs.
+     */
+    private int writesIssued;
+
+    /**
+     * The number of requested writes that were suppressed because the value had not changed.
+     */
+    private int writesSuppressed;
+
+    public HardwareIO(HardwareMap hardwareMap, RobotDescriptor robotDescriptor) {
+        this.robotDescriptor = robotDescriptor;
+
+        hubs = hardwareMap.getAll(LynxModule.class);
+        for (LynxModule hub : hubs) {
+            hub.setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+        }
+    }
+
+    /**
+     * Registers a motor so that its encoder position and velocity are read in every iteration.
+     */
+    public MotorInput addMotor(DcMotorEx motor) {
+        MotorInput input = new MotorInput(motor);
+        motorInputs.add(input);
+        return input;
+    }
+
+    /**
+     * Registers a touch sensor so that its state is read in every iteration.
+     */
+    public DigitalInput addTouchSensor(TouchSensor touchSensor) {
+        DigitalInput input = new DigitalInput(touchSensor);
+        digitalInputs.add(input);
+        return input;
+    }
+
+    /**
+     * Registers a motor so that its power, mode and target position are written through the output buffer.
+     */
+    public MotorOutput addMotorOutput(DcMotor motor) {
+        MotorOutput output = new MotorOutput(motor);
+        powerOutputs.add(output);
+        return output;
+    }
+
+    /**
+     * Registers a motor or continuous rotation servo so that its power is written through the output buffer.
+     */
+    public PowerOutput addPowerOutput(DcMotorSimple device) {
+        PowerOutput output = new PowerOutput(device);
+        powerOutputs.add(output);
+        return output;
+    }
+
+    /**
+     * Registers a servo so that its position is written through the output buffer.
+     */
+    public ServoOutput addServoOutput(Servo servo) {
+        ServoOutput output = new ServoOutput(servo);
+        servoOutputs.add(output);
+        return output;
+    }
+
+    /**
+     * Clears the bulk cache and reads a fresh snapshot of all registered inputs.  This should be called exactly once
+     * at the start of each loop iteration, before any component is updated.
+     */
+    public void readInputs() {
+        for (LynxModule hub : hubs) {
+            hub.clearBulkCache();
+        }
+
+        for (MotorInput input : motorInputs) {
+            input.read();
+        }
+        for (DigitalInput input : digitalInputs) {
+            input.read();
+        }
+    }
+
+    /**
+     * Writes any outputs that have changed since they were last written.  This should be called exactly once at the
+     * end of each loop iteration, after all components have been updated.
+     */
+    public void writeOutputs() {
+        for (PowerOutput output : powerOutputs) {
+            output.write();
+        }
+        for (ServoOutput output : servoOutputs) {
+            output.write();
+        }
+    }
+
+    public int getWritesIssued() {
+        return writesIssued;
+    }
+
+    public int getWritesSuppressed() {
+        return writesSuppressed;
+    }
+
+    /**
+     * Zeroes the snapshot of the position of the given motor's encoder, if it's read, after the encoder was reset.
+     */
+    private void resetInputPosition(DcMotor motor) {
+        for (MotorInput input : motorInputs) {
+            if (input.motor == motor) {
+                input.position = 0;
+            }
+        }
+    }
+
+    @SuppressLint("DefaultLocale")
+    public String toString() {
+        return String.format("Writes [%d], Suppressed [%d]", writesIssued, writesSuppressed);
+    }
+
+    /**
+     * Indicates whether a requested value differs enough from the value last written to be worth writing.
+     */
+    private static boolean hasChanged(double requested, double written, double threshold) {
+        return Double.isNaN(written) ||
+                Math.abs(requested - written) > threshold ||
+                (requested == 0.0 && written != 0.0);
+    }
+
+    /**
+     * The buffered power of a motor or continuous rotation servo.
+     */
+    public class PowerOutput {
+
+        private DcMotorSimple device;
+
+        private double requestedPower;
+        private boolean powerRequested;
+        private double writtenPower = Double.NaN;
+
+        private PowerOutput(DcMotorSimple device) {
+            this.device = device;
+        }
+
+        public void setPower(double power) {
+            requestedPower = power;
+            powerRequested = true;
+        }
+
+        /**
+         * Returns the most recently requested power, whether or not it has been written yet.
+         */
+        public double getPower() {
+            return powerRequested || Double.isNaN(writtenPower) ?
+                    requestedPower :
+                    writtenPower;
+        }
+
+        /**
+         * Forgets the last written power, so that the next requested power is always written.
+         */
+        protected void forgetWrittenPower() {
+            writtenPower = Double.NaN;
+        }
+
+        protected void write() {
+            if (powerRequested) {
+                if (hasChanged(requestedPower, writtenPower, robotDescriptor.outputPowerThreshold)) {
+                    device.setPower(requestedPower);
+                    writtenPower = requestedPower;
+                    writesIssued++;
+                } else {
+                    writesSuppressed++;
+                }
+                powerRequested = false;
+            }
+        }
+    }
+
+    /**
+     * The buffered power, mode and target position of a motor.
+     */
+    public class MotorOutput extends PowerOutput {
+
+        private DcMotor motor;
+
+        private DcMotor.RunMode requestedMode;
+        private DcMotor.RunMode writtenMode;
+
+        private int requestedTargetPosition;
+        private boolean targetPositionRequested;
+        private Integer writtenTargetPosition;
+
+        private MotorOutput(DcMotor motor) {
+            super(motor);
+            this.motor = motor;
+        }
+
+        /**
+         * Sets the run mode.  Resetting the encoder is an action rather than a state, so it is written immediately.
+         * This also stops the motor, so the power is written again afterwards, and zeroes the motor's position in
+         * the snapshot, so the rest of the iteration doesn't see the ticks from before the reset.
+         */
+        public void setMode(DcMotor.RunMode mode) {
+            if (mode == DcMotor.RunMode.STOP_AND_RESET_ENCODER) {
+                motor.setMode(mode);
+                writtenMode = mode;
+                requestedMode = null;
+                forgetWrittenPower();
+                resetInputPosition(motor);
+                writesIssued++;
+            } else {
+                requestedMode = mode;
+            }
+        }
+
+        public void setTargetPosition(int position) {
+            requestedTargetPosition = position;
+            targetPositionRequested = true;
+        }
+
+        @Override
+        protected void write() {
+            // The target position must be written before switching to RUN_TO_POSITION.
+            if (targetPositionRequested) {
+                if (writtenTargetPosition == null || writtenTargetPosition != requestedTargetPosition) {
+                    motor.setTargetPosition(requestedTargetPosition);
+                    writtenTargetPosition = requestedTargetPosition;
+                    writesIssued++;
+                } else {
+                    writesSuppressed++;
+                }
+                targetPositionRequested = false;
+            }
+
+            if (requestedMode != null) {
+                if (requestedMode != writtenMode) {
+                    motor.setMode(requestedMode);
+                    writtenMode = requestedMode;
+                    writesIssued++;
+                } else {
+                    writesSuppressed++;
+                }
+                requestedMode = null;
+            }
+
+            super.write();
+        }
+    }
+
+    /**
+     * The buffered position and PWM state of a servo.
+     */
+    public class ServoOutput {
+
+        private Servo servo;
+
+        private double requestedPosition;
+        private boolean positionRequested;
+        private double writtenPosition = Double.NaN;
+
+        private Boolean requestedPwmEnabled;
+        private Boolean writtenPwmEnabled;
+
+        private ServoOutput(Servo servo) {
+            this.servo = servo;
+        }
+
+        public void setPosition(double position) {
+            requestedPosition = position;
+            positionRequested = true;
+        }
+
+        public void setPwmEnabled(boolean enabled) {
+            requestedPwmEnabled = enabled;
+        }
+
+        private void write() {
+            if (positionRequested) {
+                if (hasChanged(requestedPosition, writtenPosition, robotDescriptor.outputServoPositionThreshold)) {
+                    servo.setPosition(requestedPosition);
+                    writtenPosition = requestedPosition;
+                    // Setting a position turns the PWM back on in the controller.
+                    writtenPwmEnabled = true;
+                    writesIssued++;
+                } else {
+                    writesSuppressed++;
+                }
+                positionRequested = false;
+            }
+
+            if (requestedPwmEnabled != null) {
+                if (!requestedPwmEnabled.equals(writtenPwmEnabled)) {
+                    if (requestedPwmEnabled) {
+                        servo.getController().pwmEnable();
+                    } else {
+                        servo.getController().pwmDisable();
+                        // The servo has gone limp, so the next position must be written even if it's unchanged.
+                        writtenPosition = Double.NaN;
+                    }
+                    writtenPwmEnabled = requestedPwmEnabled;
+                    writesIssued++;
+                } else {
+                    writesSuppressed++;
+                }
+                requestedPwmEnabled = null;
+            }
+        }
+    }
+
+    /**
+     * The snapshot of a motor's encoder from the most recent bulk read.
+     */
+    public static class MotorInput {
+
+        private DcMotorEx motor;
+
+        private int position;
+        private double velocity;
+
+        private MotorInput(DcMotorEx motor) {
+            this.motor = motor;
+        }
+
+        private void read() {
+            position = motor.getCurrentPosition();
+            velocity = motor.getVelocity();
+        }
+
+        /**
+         * Returns the encoder position in ticks.
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * Returns the encoder velocity in ticks per second.
+         */
+        public double getVelocity() {
+            return velocity;
+        }
+    }
+
+    /**
+     * The snapshot of a digital input from the most recent bulk read.
+     */
+    public static class DigitalInput {
+
+        private TouchSensor touchSensor;
+
+        private boolean pressed;
+
+        private DigitalInput(TouchSensor touchSensor) {
+            this.touchSensor = touchSensor;
+        }
+
+        private void read() {
+            pressed = touchSensor.isPressed();
+        }
+
+        public boolean isPressed() {
+            return pressed;
+        }
+    }
+
+}
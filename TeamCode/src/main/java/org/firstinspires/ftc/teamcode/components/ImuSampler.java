@@ -0,0 +1,165 @@
+package org.firstinspires.ftc.teamcode.components;
+
+import android.annotation.SuppressLint;
+
+import com.qualcomm.hardware.bosch.BNO055IMU;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
+
+/**
+ * Reads the IMU on its own thread, so the slow I2C transaction doesn't block the control loop.
+ * <p>
+ * The sampler thread is the only writer.  Each reading is published as an immutable {@link Sample} through a volatile
+ * field, so the control loop can always get the latest sample without locking or waiting.
+ */
+public class ImuSampler implements Runnable {
+
+    private BNO055IMU imu;
+
+    private long samplePeriodMs;
+
+    private Thread thread;
+
+    private volatile boolean running;
+
+    /**
+     * The most recent sample, or null if the IMU hasn't been read yet.
+     */
+    private volatile Sample latestSample;
+
+    public ImuSampler(BNO055IMU imu, long samplePeriodMs) {
+        this.imu = imu;
+        this.samplePeriodMs = samplePeriodMs;
+    }
+
+    /**
+     * Starts reading the IMU in the background.  The IMU must already be initialized.
+     */
+    public synchronized void start() {
+        if (thread == null) {
+            running = true;
+            thread = new Thread(this, "ImuSampler");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the background thread and waits briefly for it to finish.
+     */
+    public synchronized void stop() {
+        if (thread != null) {
+            running = false;
+            thread.interrupt();
+            try {
+                thread.join(samplePeriodMs * 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the most recent sample, or null if the IMU hasn't been read yet.
+     */
+    public Sample getLatestSample() {
+        return latestSample;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running && !Thread.currentThread().isInterrupted()) {
+                readSample();
+                Thread.sleep(samplePeriodMs);
+            }
+        } catch (InterruptedException e) {
+            // Stopping, so there's nothing else to do.
+        } finally {
+            running = false;
+        }
+    }
+
+    private void readSample() {
+
+        // The following code adapted with permission from team SkyStone 2019-2020.
+
+        // We experimentally determined the Z axis is the axis we want to use for heading angle.
+        // We have to process the angle because the imu works in euler angles so the Z axis is
+        // returned as 0 to +180 or 0 to -180 rolling back to -179 or +179 when rotation passes
+        // 180 degrees. We detect this transition and track the total cumulative angle of rotation.
+
+        Orientation orientation = imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.DEGREES);
+        long time = System.nanoTime();
+
+        Sample previousSample = latestSample;
+        double cumulativeAngle = orientation.firstAngle;
+        long sequence = 0;
+        if (previousSample != null) {
+            cumulativeAngle = previousSample.cumulativeAngle + unwrap(orientation.firstAngle - previousSample.angle);
+            sequence = previousSample.sequence + 1;
+        }
+
+        latestSample = new Sample(orientation.firstAngle, cumulativeAngle, time, sequence);
+    }
+
+    /**
+     * Converts a change in angle to the equivalent change in the range (-180, 180].
+     */
+    static double unwrap(double deltaAngle) {
+        while (deltaAngle > 180) {
+            deltaAngle -= 360;
+        }
+        while (deltaAngle <= -180) {
+            deltaAngle += 360;
+        }
+        return deltaAngle;
+    }
+
+    /**
+     * A single reading of the IMU heading.
+     */
+    public static class Sample {
+
+        /**
+         * The raw Z axis angle from the IMU in degrees, from -180 to 180.
+         */
+        public final double angle;
+
+        /**
+         * The total angle rotated since the first sample in degrees, which does not wrap around.
+         */
+        public final double cumulativeAngle;
+
+        /**
+         * The time the sample was read, from System.nanoTime().
+         */
+        public final long timeNanos;
+
+        /**
+         * Increases by one for each sample.
+         */
+        public final long sequence;
+
+        public Sample(double angle, double cumulativeAngle, long timeNanos, long sequence) {
+            this.angle = angle;
+            this.cumulativeAngle = cumulativeAngle;
+            this.timeNanos = timeNanos;
+            this.sequence = sequence;
+        }
+
+        @SuppressLint("DefaultLocale")
+        public String toString() {
+            return String.format("%.1f (%d)", cumulativeAngle, sequence);
+        }
+    }
+
+}
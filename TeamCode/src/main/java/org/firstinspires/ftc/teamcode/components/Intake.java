@@ -3,31 +3,49 @@ package org.firstinspires.ftc.teamcode.components;
 import com.qualcomm.robotcore.hardware.CRServo;
 import com.qualcomm.robotcore.hardware.TouchSensor;
 
+import org.firstinspires.ftc.robotcore.external.Func;
+import org.firstinspires.ftc.teamcode.components.HardwareIO.DigitalInput;
+import org.firstinspires.ftc.teamcode.components.HardwareIO.PowerOutput;
+
+import java.util.List;
+
 public class Intake extends BaseComponent {
 
+    /**
+     * The intake commands are purely time based, so they don't need to be checked in every iteration of the loop.
+     */
+    private static final long UPDATE_PERIOD_MS = 50;
+
     private CRServo intakeServo;
+    private PowerOutput intakeServoOutput;
     private TouchSensor touchSensor;
+    private DigitalInput touchSensorInput;
 
     public Intake(RobotContext context) {
         super(context);
+        setUpdatePeriodMs(UPDATE_PERIOD_MS);
         intakeServo = hardwareMap.crservo.get("Intake");
+        intakeServoOutput = context.hardwareIO.addPowerOutput(intakeServo);
         touchSensor = hardwareMap.touchSensor.get("IntakeTouchSensor");
+        touchSensorInput = context.hardwareIO.addTouchSensor(touchSensor);
+
+        addTelemetry("Next Commands", new Func<List<Command>>() {
+            @Override
+            public List<Command> value() {
+                return getNextCommands();
+            }
+        });
     }
 
-    @Override
-    public void updateStatus() {
-        super.updateStatus();
-        telemetry.addData("Next Commands", getNextCommands());
-    }
 
     public void intakeManual() {
         stopAllCommands();
-        intakeServo.setPower(1);
+        intakeServoOutput.setPower(1);
     }
 
     public void outakeManual() {
         stopAllCommands();
-        intakeServo.setPower(-1);
+        intakeServoOutput.setPower(-1);
     }
 
     public void intake(double power, double time) {
@@ -50,7 +68,7 @@ public class Intake extends BaseComponent {
      * Stops the intake
      */
     public void stopIntake() {
-        intakeServo.setPower(0);
+        intakeServoOutput.setPower(0);
     }
 
     private abstract class BaseCommand implements Command {
@@ -64,7 +82,7 @@ public class Intake extends BaseComponent {
 
         @Override
         public void start() {
-            intakeServo.setPower(power);
+            intakeServoOutput.setPower(power);
         }
 
         @Override
@@ -85,8 +103,7 @@ public class Intake extends BaseComponent {
 
         @Override
         public boolean updateStatus() {
-            telemetry.addData("Am I beeping and booping:", "yes I am");
-            return commandTime.seconds() > getTime();//|| (touchSensor != null ? touchSensor.isPressed() : false);
+            return commandTime.seconds() > getTime();//|| touchSensorInput.isPressed();
         }
     }
 
@@ -97,7 +114,6 @@ public class Intake extends BaseComponent {
 
         @Override
         public boolean updateStatus() {
-            telemetry.addData("Am I beeping and booping:", "yes I am");
             return commandTime.seconds() > getTime();
         }
     }
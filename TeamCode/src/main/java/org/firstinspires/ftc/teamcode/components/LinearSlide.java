@@ -7,6 +7,10 @@ import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.DcMotorSimple;
 
+import org.firstinspires.ftc.robotcore.external.Func;
+import org.firstinspires.ftc.teamcode.components.HardwareIO.MotorInput;
+import org.firstinspires.ftc.teamcode.components.HardwareIO.MotorOutput;
+
 public class LinearSlide extends BaseComponent {
 
     private static final int TICKS_PER_STACKED_CONE = 100;
@@ -28,7 +32,7 @@ public class LinearSlide extends BaseComponent {
         TRAVEL(350),
         INTAKE(0);
 
-        private final int ticks;
+        final int ticks;
 
         SlideHeight(int ticks) {
             this.ticks = ticks;
@@ -44,6 +48,16 @@ public class LinearSlide extends BaseComponent {
 
     private DcMotorEx motor;
 
+    /**
+     * The encoder reading for the slide motor, from the robot's bulk read.
+     */
+    private MotorInput motorInput;
+
+    /**
+     * The buffered output for the slide motor, written once per loop by the robot.
+     */
+    private MotorOutput motorOutput;
+
     /**
      * The target position in motor ticks that the slide is trying to achieve.
      */
@@ -52,6 +66,21 @@ public class LinearSlide extends BaseComponent {
     public LinearSlide(RobotContext context) {
         super(context);
         motor = (DcMotorEx) hardwareMap.dcMotor.get("Slide");
+        motorInput = context.hardwareIO.addMotor(motor);
+        motorOutput = context.hardwareIO.addMotorOutput(motor);
+
+        addTelemetry("Target Position", new Func<Integer>() {
+            @Override
+            public Integer value() {
+                return targetPosition;
+            }
+        });
+        addTelemetry("Leeway position", new Func<Integer>() {
+            @Override
+            public Integer value() {
+                return TRAVEL.ticks - TURRET_SAFETY_LEEWAY;
+            }
+        });
     }
 
     @Override
@@ -59,7 +88,7 @@ public class LinearSlide extends BaseComponent {
         targetPosition = SlideHeight.INTAKE.ticks;
 
         motor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        motor.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+        motorOutput.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
         motor.setDirection(DcMotorSimple.Direction.FORWARD);
     }
 
@@ -79,8 +108,8 @@ public class LinearSlide extends BaseComponent {
         ) {
             stopMotor();
         } else {
-            motor.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-            motor.setPower(power);
+            motorOutput.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+            motorOutput.setPower(power);
         }
     }
 
@@ -108,28 +137,38 @@ public class LinearSlide extends BaseComponent {
      * Returns the current position of the slide
      */
     public double getPosition() {
-        return motor.getCurrentPosition();
+        return motorInput.getPosition();
     }
 
     public void stopMotor() {
-        motor.setTargetPosition(motor.getCurrentPosition());
-        motor.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-        motor.setPower(idlePower);
+        motorOutput.setTargetPosition(motorInput.getPosition());
+        motorOutput.setMode(DcMotor.RunMode.RUN_TO_POSITION);
+        motorOutput.setPower(idlePower);
     }
 
-    @Override
-    public void updateStatus() {
-        telemetry.addData("Target Position", targetPosition);
-        telemetry.addData("Leeway position", TRAVEL.ticks - TURRET_SAFETY_LEEWAY);
-
-        super.updateStatus();
-    }
 
     /**
      * Indicates whether the slide is currently at or above the given known position.
      */
     public boolean isAtOrAbove(SlideHeight position) {
-        return getPosition() >= (position.ticks - TURRET_SAFETY_LEEWAY - TARGET_REACHED_THRESHOLD);
+        return isAtOrAbove(getPosition(), position);
+    }
+
+    private static boolean isAtOrAbove(double slidePosition, SlideHeight position) {
+        return slidePosition >= (position.ticks - TURRET_SAFETY_LEEWAY - TARGET_REACHED_THRESHOLD);
+    }
+
+    /**
+     * Indicates whether a turret move that is waiting for the slide can go ahead.  It only waits for the slide to be
+     * at the travel height when the slide is headed there or above.  While it's headed below, e.g. to the ground pole,
+     * waiting would never end, so the turret goes ahead straight away.
+     */
+    public boolean isReadyForTurret() {
+        return isReadyForTurret(getPosition(), targetPosition);
+    }
+
+    static boolean isReadyForTurret(double slidePosition, int targetTicks) {
+        return targetTicks < TRAVEL.ticks || isAtOrAbove(slidePosition, TRAVEL);
     }
 
     /**
@@ -219,14 +258,14 @@ public class LinearSlide extends BaseComponent {
 
         @Override
         public void start() {
-            motor.setTargetPosition(ticks);
-            motor.setMode(DcMotor.RunMode.RUN_TO_POSITION);
+            motorOutput.setTargetPosition(ticks);
+            motorOutput.setMode(DcMotor.RunMode.RUN_TO_POSITION);
 
             double power = ticks > getPosition() ?
                     ascendingPower :
                     descendingPower;
 
-            motor.setPower(power);
+            motorOutput.setPower(power);
         }
 
         @Override
@@ -236,7 +275,7 @@ public class LinearSlide extends BaseComponent {
 
         @Override
         public boolean updateStatus() {
-            return Math.abs(motor.getCurrentPosition() - ticks) <= TARGET_REACHED_THRESHOLD;
+            return Math.abs(motorInput.getPosition() - ticks) <= TARGET_REACHED_THRESHOLD;
         }
     }
 }
@@ -0,0 +1,77 @@
+package org.firstinspires.ftc.teamcode.components;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs a group of commands at the same time.  The group is finished when all of its commands are finished.
+ */
+public class ParallelCommand implements Command {
+
+    private List<Command> commands;
+
+    /**
+     * Indicates which of the commands are finished, in the same order as the commands.
+     */
+    private boolean[] finished;
+
+    public ParallelCommand(Command... commands) {
+        this.commands = new ArrayList<>(Arrays.asList(commands));
+        this.finished = new boolean[commands.length];
+    }
+
+    @Override
+    public void start() {
+        for (int i = 0; i < commands.size(); i++) {
+            finished[i] = false;
+            commands.get(i).start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        // Stop any commands that are still in progress.
+        for (int i = 0; i < commands.size(); i++) {
+            if (!finished[i]) {
+                commands.get(i).stop();
+                finished[i] = true;
+            }
+        }
+    }
+
+    @Override
+    public boolean updateStatus() {
+        for (int i = 0; i < commands.size(); i++) {
+            if (!finished[i] && commands.get(i).updateStatus()) {
+                commands.get(i).stop();
+                finished[i] = true;
+            }
+        }
+        return isFinished();
+    }
+
+    /**
+     * Indicates whether the group is finished, based on which of its commands are finished.
+     */
+    protected boolean isFinished() {
+        for (boolean commandFinished : finished) {
+            if (!commandFinished) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether the command at the given index is finished.
+     */
+    protected boolean isFinished(int index) {
+        return finished[index];
+    }
+
+    public String toString() {
+        return "Parallel" + commands;
+    }
+
+}
@@ -8,15 +8,24 @@ import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 import com.qualcomm.robotcore.hardware.VoltageSensor;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
+import org.firstinspires.ftc.robotcore.external.Func;
 import org.firstinspires.ftc.teamcode.RobotDescriptor;
 import org.firstinspires.ftc.teamcode.geometry.Heading;
 import org.firstinspires.ftc.teamcode.geometry.Position;
 import org.firstinspires.ftc.teamcode.util.ErrorUtil;
 import org.firstinspires.ftc.teamcode.util.FileUtil;
+import org.firstinspires.ftc.teamcode.util.LoopScheduler;
+import org.firstinspires.ftc.teamcode.util.ParallelInit;
+import org.firstinspires.ftc.teamcode.util.TelemetryBuffer;
 import org.firstinspires.ftc.teamcode.util.TelemetryHolder;
+import org.firstinspires.ftc.teamcode.util.TimingHistogram;
+import org.openftc.apriltag.AprilTagDetection;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class Robot extends BaseComponent {
 
@@ -26,6 +35,7 @@ public class Robot extends BaseComponent {
     private WebCam webCamAprilTag;
     private WebCam webCamSide;
     private WebCam webCamFront;
+    private final List<Camera> enabledCameras;
     private AprilTagDetector aprilTagDetector;
 
     private Turret turret;
@@ -34,8 +44,32 @@ public class Robot extends BaseComponent {
 
     private int updateCount;
     private ElapsedTime initTime;
+
+    /**
+     * Done when all the init steps started by init have finished.
+     */
+    private Future<Void> initReadiness;
+    private boolean initReported;
     private ElapsedTime firstUpdateTime;
 
+    /**
+     * How long each iteration of updateStatus takes, and how much of that is spent on the hardware reads and writes
+     * and on sending telemetry.
+     */
+    private TimingHistogram loopTiming = new TimingHistogram();
+    private TimingHistogram hardwareIOTiming = new TimingHistogram();
+    private TimingHistogram telemetryTiming = new TimingHistogram();
+
+    /**
+     * Runs the loop at a fixed rate while the robot is waiting on its own commands.
+     */
+    private LoopScheduler loopScheduler;
+
+    /**
+     * Indicates whether the loop timing should be shown in the telemetry.
+     */
+    private boolean showTiming = false;
+
     public enum Camera {
         APRIL,
         SIDE,
@@ -45,6 +79,9 @@ public class Robot extends BaseComponent {
     public Robot(OpMode opMode, Camera streamingCamera, List<Camera> enabledCameras) {
         super(createRobotContext(opMode));
 
+        this.loopScheduler = new LoopScheduler(robotDescriptor.controlLoopPeriodMs);
+        this.enabledCameras = enabledCameras;
+
         this.webCamAprilTag = new WebCam(context, robotDescriptor.webCamAprilTagDescriptor,
                 streamingCamera == Camera.APRIL);
         this.webCamSide = new WebCam(context, robotDescriptor.webCamSideDescriptor,
@@ -72,15 +109,31 @@ public class Robot extends BaseComponent {
         for (Camera camera : enabledCameras) {
             addSubComponents(getWebCam(camera));
         }
+        if (enabledCameras.contains(Camera.APRIL)) {
+            addSubComponents(aprilTagDetector);
+            driveTrain.setAprilTagDetector(aprilTagDetector);
+        }
 
         TelemetryHolder.telemetry = telemetry;
+
+        addTelemetry("Hardware IO", new Func<HardwareIO>() {
+            @Override
+            public HardwareIO value() {
+                return context.hardwareIO;
+            }
+        });
     }
 
     private static RobotContext createRobotContext(OpMode opMode) {
-        return new RobotContext(
+        RobotContext context = new RobotContext(
                 opMode,
                 new RobotDescriptor()
         );
+        context.hardwareIO = new HardwareIO(opMode.hardwareMap, context.robotDescriptor);
+        context.telemetryBuffer = new TelemetryBuffer(opMode.telemetry,
+                context.robotDescriptor.telemetryTransmitPeriodMs);
+        context.parallelInit = new ParallelInit();
+        return context;
     }
 
     public RobotContext getRobotContext() {
@@ -94,9 +147,18 @@ public class Robot extends BaseComponent {
         this(opMode, null, Arrays.asList(Camera.FRONT, Camera.SIDE));
     }
 
+    /**
+     * Starts initializing the components.  The slow steps (opening the cameras, calibrating the IMU, etc.) carry on in
+     * the background after this returns, so call {@link #waitForInit()} or check {@link #getInitReadiness()} before
+     * relying on them.
+     */
     @Override
     public void init() {
         super.init();
+        initReadiness = context.parallelInit.finish();
+
+        // Take an initial snapshot of the inputs, so components have valid readings before the first update.
+        context.hardwareIO.readInputs();
 
         double voltage = computeBatteryVoltage();
         if (voltage < VOLTAGE_WARNING_THRESHOLD) {
@@ -104,27 +166,157 @@ public class Robot extends BaseComponent {
             telemetry.log().add("My battery is low and it's getting dark -Opportunity");
         }
 
-        telemetry.log().add("Robot is initialized");
+        telemetry.log().add("Robot is initializing");
         telemetry.update();
 
         initTime = new ElapsedTime();
     }
 
+    /**
+     * Returns the future that is done when all the init steps have finished.
+     */
+    public Future<Void> getInitReadiness() {
+        return initReadiness;
+    }
+
+    /**
+     * Waits for all the init steps to finish, showing their progress in the meantime.
+     */
+    public void waitForInit() {
+        while (!isStopRequested() && !initReadiness.isDone()) {
+            showInitProgress();
+            sleep(robotDescriptor.controlLoopPeriodMs);
+        }
+        showInitProgress();
+    }
+
+    /**
+     * Shows how far each init step has got.  Once they have all finished, logs how long each one took.  OpModes that
+     * don't wait for the init can call this from init_loop.
+     */
+    public void showInitProgress() {
+        if (initReadiness.isDone()) {
+            if (!initReported) {
+                initReported = true;
+                logInitReport();
+            }
+            return;
+        }
+
+        if (context.telemetryBuffer.isTransmitDue()) {
+            for (String line : context.parallelInit.getReport()) {
+                telemetry.addLine(line);
+            }
+        }
+        context.telemetryBuffer.update();
+    }
+
+    private void logInitReport() {
+        for (String line : context.parallelInit.getReport()) {
+            telemetry.log().add(line);
+        }
+
+        try {
+            initReadiness.get();
+            telemetry.log().add("Robot is initialized");
+        } catch (ExecutionException e) {
+            telemetry.log().add("Init failed: " + ErrorUtil.convertToString(e.getCause()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        telemetry.update();
+    }
+
     @SuppressLint("DefaultLocale")
     @Override
     public void updateStatus() {
+        long loopStart = System.nanoTime();
+
+        // Read all inputs in a single bulk read, before any of the components are updated.
+        context.hardwareIO.readInputs();
+        long readEnd = System.nanoTime();
+
         super.updateStatus();
 
+        // Write all the outputs the components requested, skipping any that haven't changed.
+        long writeStart = System.nanoTime();
+        context.hardwareIO.writeOutputs();
+        hardwareIOTiming.record(System.nanoTime() - writeStart + readEnd - loopStart);
+
         if (updateCount == 0) {
             firstUpdateTime = new ElapsedTime();
             onStart();
         }
         updateCount++;
-        //double updatesPerSecond = updateCount / firstUpdateTime.seconds();
-        //telemetry.addData("Updates / sec", String.format("%.1f", updatesPerSecond));
 
-        // Update telemetry once per iteration after all components have been called.
-        telemetry.update();
+        if (showTiming && context.telemetryBuffer.isTransmitDue()) {
+            for (String line : getTimingReport()) {
+                telemetry.addLine(line);
+            }
+        }
+
+        // Update telemetry after all components have been called.  It is only actually sent a few times per second.
+        long telemetryStart = System.nanoTime();
+        context.telemetryBuffer.update();
+        long loopEnd = System.nanoTime();
+        telemetryTiming.record(loopEnd - telemetryStart);
+        loopTiming.record(loopEnd - loopStart);
+    }
+
+    /**
+     * Returns the number of loop iterations per second since the first update.
+     */
+    public double getUpdatesPerSecond() {
+        return firstUpdateTime != null && firstUpdateTime.seconds() > 0 ?
+                updateCount / firstUpdateTime.seconds() :
+                0.0;
+    }
+
+    /**
+     * Returns one line for the overall loop, and one for each component and its commands, with the p50, p95 and max
+     * time taken.
+     */
+    @SuppressLint("DefaultLocale")
+    public List<String> getTimingReport() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Loop: %.1f Hz, %s", getUpdatesPerSecond(), loopTiming));
+        lines.add("Hardware IO: " + hardwareIOTiming);
+        lines.add("Telemetry: " + telemetryTiming);
+        lines.add("Scheduler: " + loopScheduler);
+        addTimingReport(lines);
+        return lines;
+    }
+
+    public boolean isShowTiming() {
+        return showTiming;
+    }
+
+    public void setShowTiming(boolean showTiming) {
+        this.showTiming = showTiming;
+    }
+
+    /**
+     * Stops any background work started by the robot.  This must be called when the OpMode stops.
+     */
+    public void stop() {
+        driveTrain.stopImuSampler();
+        for (Camera camera : enabledCameras) {
+            getWebCam(camera).stop();
+        }
+
+        // Keep a record of where the loop time went, so it can be checked after the match.
+        saveTimingToDisk();
+    }
+
+    public void saveTimingToDisk() {
+        saveTimingToDisk("loop-timing");
+    }
+
+    /**
+     * Writes the loop timing report to a file, so it can be looked at after the OpMode has stopped.
+     */
+    public void saveTimingToDisk(String filename) {
+        FileUtil.writeLines(filename, getTimingReport().toArray());
     }
 
     /**
@@ -139,6 +331,14 @@ public class Robot extends BaseComponent {
         telemetry.log().clear();
     }
 
+    /**
+     * Runs the given command as part of the robot's update loop.  This is typically a command group that coordinates
+     * several components, e.g. raising the slide while driving.  Use waitForCommandsToFinish to wait for it.
+     */
+    public void execute(Command command) {
+        executeCommand(command);
+    }
+
     /**
      * Finish all currently running commands.
      */
@@ -147,10 +347,12 @@ public class Robot extends BaseComponent {
     }
 
     public void waitForCommandsToFinish(double maxTime) {
-        // While the components are busy trying to execute a command, keep looping and giving
+        // While the components are busy trying to execute a command, keep looping at the control loop rate and giving
         // each of them a chance to update.
         ElapsedTime time = new ElapsedTime();
+        loopScheduler.restart();
         while (!isStopRequested() && isBusy() && time.seconds() < maxTime) {
+            loopScheduler.waitForNextLoop();
             updateStatus();
         }
     }
@@ -160,19 +362,45 @@ public class Robot extends BaseComponent {
      */
     public void idle(double idleTime) {
         ElapsedTime time = new ElapsedTime();
+        loopScheduler.restart();
         while (!isStopRequested() && time.seconds() < idleTime) {
+            loopScheduler.waitForNextLoop();
             updateStatus();
         }
     }
 
+    /**
+     * Waits up to the given time for the AprilTag detector to see a tag.  The robot is updated while it waits, so the
+     * drive train can also correct its pose from the detections.
+     *
+     * @return The first tag detected, or null if there was none.
+     */
+    public AprilTagDetection waitForAprilTagDetection(double maxTime) {
+        ElapsedTime time = new ElapsedTime();
+        loopScheduler.restart();
+        while (!isStopRequested() && time.seconds() < maxTime) {
+            loopScheduler.waitForNextLoop();
+            updateStatus();
+
+            List<AprilTagDetection> detections = aprilTagDetector.getDetections();
+            if (!detections.isEmpty()) {
+                return detections.get(0);
+            }
+        }
+        return null;
+    }
+
     /**
      * Idle until the opMode is stopped.
      */
     public void waitForStop() {
+        loopScheduler.restart();
         while (!isStopRequested()) {
+            loopScheduler.waitForNextLoop();
             updateStatus();
         }
         stopAllCommands();
+        context.hardwareIO.writeOutputs();
     }
 
     public DriveTrain getDriveTrain() {
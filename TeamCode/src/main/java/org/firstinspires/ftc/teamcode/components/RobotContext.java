@@ -6,6 +6,8 @@ import org.firstinspires.ftc.teamcode.RobotDescriptor;
 import org.firstinspires.ftc.teamcode.geometry.Heading;
 import org.firstinspires.ftc.teamcode.geometry.Position;
 import org.firstinspires.ftc.teamcode.geometry.Vector2;
+import org.firstinspires.ftc.teamcode.util.ParallelInit;
+import org.firstinspires.ftc.teamcode.util.TelemetryBuffer;
 
 public class RobotContext {
 
@@ -15,6 +17,12 @@ public class RobotContext {
 
     public RobotPositionProvider robotPositionProvider;
 
+    public HardwareIO hardwareIO;
+
+    public TelemetryBuffer telemetryBuffer;
+
+    public ParallelInit parallelInit;
+
     public RobotContext(OpMode opMode, RobotDescriptor robotDescriptor) {
         this.opMode = opMode;
         this.robotDescriptor = robotDescriptor;
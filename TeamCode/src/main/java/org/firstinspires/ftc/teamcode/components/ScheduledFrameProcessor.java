@@ -0,0 +1,149 @@
+package org.firstinspires.ftc.teamcode.components;
+
+import android.annotation.SuppressLint;
+
+import org.firstinspires.ftc.teamcode.components.WebCam.FrameContext;
+import org.firstinspires.ftc.teamcode.components.WebCam.FrameProcessor;
+import org.opencv.core.Mat;
+
+/**
+ * A frame processor added to a webcam, with how often it should run.
+ * <p>
+ * A webcam runs its processors in the order they were added.  Each one can run on every frame, every Nth frame, or
+ * only when a frame is requested, and can be disabled without being removed.  A processor can also be given a time
+ * budget per frame.  When it takes longer than its budget, it skips enough of the following frames to bring its
+ * average back within the budget, so one slow processor can't starve the others on the same camera.
+ * <p>
+ * The settings can be changed from any thread.  The scheduling state is only used on the camera thread.
+ */
+public class ScheduledFrameProcessor {
+
+    /**
+     * The period of a processor that only runs when a frame is requested.
+     */
+    public static final int ON_DEMAND = 0;
+
+    private final FrameProcessor processor;
+
+    private volatile int period = 1;
+    private volatile boolean enabled = true;
+    private volatile double budgetMs;
+    private volatile boolean requested;
+
+    /**
+     * The first frame this processor may run on.
+     */
+    private int nextFrame;
+
+    private volatile double lastDurationMs;
+    private volatile int processedCount;
+    private volatile int overBudgetCount;
+
+    public ScheduledFrameProcessor(FrameProcessor processor) {
+        this.processor = processor;
+    }
+
+    public FrameProcessor getProcessor() {
+        return processor;
+    }
+
+    /**
+     * Sets how many frames apart the processor runs, e.g. 1 for every frame, or ON_DEMAND to only run when a frame is
+     * requested.
+     */
+    public void setPeriod(int period) {
+        if (period < 0) {
+            throw new IllegalArgumentException("Period must not be negative: " + period);
+        }
+        this.period = period;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the time budget per frame in milliseconds, or zero for no budget.
+     */
+    public void setBudgetMs(double budgetMs) {
+        this.budgetMs = budgetMs;
+    }
+
+    public double getBudgetMs() {
+        return budgetMs;
+    }
+
+    /**
+     * Asks for an on demand processor to run on the next frame it's allowed to.
+     */
+    public void requestFrame() {
+        requested = true;
+    }
+
+    /**
+     * Returns whether the processor should run on the given frame.
+     */
+    boolean isDue(int frameCount) {
+        if (!enabled || frameCount < nextFrame) {
+            return false;
+        }
+        return period != ON_DEMAND || requested;
+    }
+
+    /**
+     * Runs the processor on the frame, and schedules its next frame.
+     */
+    void process(Mat input, Mat output, FrameContext frameContext) {
+        long start = System.nanoTime();
+        try {
+            processor.processFrame(input, output, frameContext);
+        } finally {
+            finish(frameContext.frameCount, (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    /**
+     * Records that the processor took the given time on the given frame, and schedules its next frame.
+     */
+    void finish(int frameCount, double durationMs) {
+        requested = false;
+        lastDurationMs = durationMs;
+        processedCount++;
+
+        int framesUntilNext = Math.max(period, 1);
+        double budget = budgetMs;
+        if (budget > 0 && durationMs > budget) {
+            overBudgetCount++;
+            framesUntilNext = Math.max(framesUntilNext, (int) Math.ceil(durationMs / budget));
+        }
+        nextFrame = frameCount + framesUntilNext;
+    }
+
+    public double getLastDurationMs() {
+        return lastDurationMs;
+    }
+
+    public int getProcessedCount() {
+        return processedCount;
+    }
+
+    public int getOverBudgetCount() {
+        return overBudgetCount;
+    }
+
+    @SuppressLint("DefaultLocale")
+    @Override
+    public String toString() {
+        return String.format("%s [%.1f ms, %d, %d over budget]", processor.getClass().getSimpleName(),
+                lastDurationMs, processedCount, overBudgetCount);
+    }
+
+}
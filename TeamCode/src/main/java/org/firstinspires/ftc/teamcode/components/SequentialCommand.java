@@ -0,0 +1,63 @@
+package org.firstinspires.ftc.teamcode.components;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs a list of commands one after another.  The sequence is finished when the last command is finished.
+ */
+public class SequentialCommand implements Command {
+
+    private List<Command> commands;
+
+    /**
+     * The index of the command that is currently running.
+     */
+    private int index;
+
+    public SequentialCommand(Command... commands) {
+        this.commands = new ArrayList<>(Arrays.asList(commands));
+    }
+
+    @Override
+    public void start() {
+        index = 0;
+        if (!commands.isEmpty()) {
+            commands.get(0).start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        // Only the command in progress needs to be stopped, the others have either finished or not been started.
+        if (index < commands.size()) {
+            commands.get(index).stop();
+            index = commands.size();
+        }
+    }
+
+    @Override
+    public boolean updateStatus() {
+        // Move through as many commands as finish in this iteration, so instantaneous steps (like a condition that is
+        // already true) don't each cost a full loop.
+        while (index < commands.size()) {
+            Command command = commands.get(index);
+            if (!command.updateStatus()) {
+                return false;
+            }
+
+            command.stop();
+            index++;
+            if (index < commands.size()) {
+                commands.get(index).start();
+            }
+        }
+        return true;
+    }
+
+    public String toString() {
+        return "Sequence" + commands;
+    }
+
+}
@@ -12,10 +12,13 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.teamcode.RobotDescriptor;
 import org.firstinspires.ftc.teamcode.components.WebCam.FrameContext;
+import org.firstinspires.ftc.teamcode.geometry.Heading;
 import org.firstinspires.ftc.teamcode.geometry.Line;
 import org.firstinspires.ftc.teamcode.geometry.Position;
 import org.firstinspires.ftc.teamcode.geometry.TileEdgeSolver;
+import org.firstinspires.ftc.teamcode.geometry.TileEdgeSolver.TileEdgePrediction;
 import org.firstinspires.ftc.teamcode.util.Color;
+import org.firstinspires.ftc.teamcode.util.DecayingSampleWindow;
 import org.firstinspires.ftc.teamcode.util.DrawUtil;
 import org.firstinspires.ftc.teamcode.util.HoughLineDetector;
 import org.opencv.core.Mat;
@@ -32,6 +35,16 @@ public class TileEdgeDetector extends BaseComponent {
      */
     private static final double PREVIOUS_DETECTION_THRESHOLD = 0.2;
 
+    /**
+     * The observations are produced on the camera thread, so there is nothing to do in every iteration of the loop.
+     */
+    private static final long UPDATE_PERIOD_MS = 100;
+
+    /**
+     * How far from a predicted tile edge to look for it, in inches.
+     */
+    private static final double PREDICTED_EDGE_MARGIN_INCHES = 3;
+
     /**
      * The webcam to use for observations
      */
@@ -58,9 +71,9 @@ public class TileEdgeDetector extends BaseComponent {
     private TileEdgeSolver tileEdgeSolver;
 
     /**
-     * The most recently acquired observation.
+     * The most recently acquired observation.  Each frame produces a new instance.
      */
-    private TileEdgeObservation observation;
+    private volatile TileEdgeObservation observation;
 
     /**
      * Aggregates observations from multiple webcams to provide the most current observation data.
@@ -75,6 +88,7 @@ public class TileEdgeDetector extends BaseComponent {
             TileEdgeObservationAggregator aggregator
     ) {
         super(context);
+        setUpdatePeriodMs(UPDATE_PERIOD_MS);
         this.webCam = webCam;
         this.webCamDescriptor = webCam.getWebCamDescriptor();
         this.aggregator = aggregator;
@@ -98,6 +112,8 @@ public class TileEdgeDetector extends BaseComponent {
         horizontalParameters.minTheta = 45;
         horizontalParameters.maxTheta = 135;
         horizontalParameters.pixelVoterThreshold = 100; //(int) (resolution.width * (1.0 / 4.0));
+        // The distance of a horizontal line is measured down the image.
+        horizontalParameters.predictedRhoMargin = PREDICTED_EDGE_MARGIN_INCHES * verticalPixelsPerInch;
         this.houghLineDetectorHorizontal = new HoughLineDetector(horizontalParameters);
 
         HoughParameters verticalParameters = new HoughParameters();
@@ -106,6 +122,7 @@ public class TileEdgeDetector extends BaseComponent {
         verticalParameters.minTheta = -45;
         verticalParameters.maxTheta = 45;
         verticalParameters.pixelVoterThreshold = 90; //(int) (resolution.height * (1.0 / 4.0));
+        verticalParameters.predictedRhoMargin = PREDICTED_EDGE_MARGIN_INCHES * horizontalPixelsPerInch;
         this.houghLineDetectorVertical = new HoughLineDetector(verticalParameters);
 
         this.tileEdgeSolver = new TileEdgeSolver(context, webCamDescriptor);
@@ -120,8 +137,13 @@ public class TileEdgeDetector extends BaseComponent {
     }
 
     public void activate() {
+        // The webcam runs every processor added to it, so a second one would run alongside the first.
+        if (isActive()) {
+            return;
+        }
+
         frameProcessor = new FrameProcessor();
-        webCam.setFrameProcessor(frameProcessor);
+        webCam.addFrameProcessor(frameProcessor);
     }
 
     public boolean isActive() {
@@ -129,7 +151,7 @@ public class TileEdgeDetector extends BaseComponent {
     }
 
     public void deactivate() {
-        webCam.removeFrameProcessor();
+        webCam.removeFrameProcessor(frameProcessor);
         frameProcessor = null;
         reset();
     }
@@ -155,34 +177,39 @@ public class TileEdgeDetector extends BaseComponent {
         @Override
         public void processFrame(Mat input, Mat output, FrameContext frameContext) {
 
-            // Remember the time of the current frame capture as early as possible (before all the math).
-            ElapsedTime beginFrameTime = new ElapsedTime();
+            // Time the observation from when the frame was captured, which may have been before it was processed.
+            ElapsedTime beginFrameTime = frameContext.frameTime;
+
+            // Both detectors look for lines in the same edges, which are only found once per frame.
+            Mat edges = frameContext.images.getEdges();
+
+            // Where the robot thinks it is says where the tile edges should be, so only look near there.
+            TileEdgePrediction prediction = predictTileEdges();
 
             List<Line> lines = new ArrayList<>();
-            for (HoughLine houghLine : houghLineDetectorHorizontal.detectLines(input)) {
+            for (HoughLine houghLine : detectLines(houghLineDetectorHorizontal, edges, prediction)) {
                 lines.add(houghLine.toLine(webCam.getResolution()));
             }
-            for (HoughLine houghLine : houghLineDetectorVertical.detectLines(input)) {
+            for (HoughLine houghLine : detectLines(houghLineDetectorVertical, edges, prediction)) {
                 lines.add(houghLine.toLine(webCam.getResolution()));
             }
 
             TileEdgeObservation observation = tileEdgeSolver.solve(lines);
 
             if (observation != null) {
-                // Remember the observation so that it can be used by the drivetrain.
+                // Remember the observation so that it can be used by the drivetrain, which also adds it to the
+                // aggregator once it has been carried forward to the robot's current pose.
                 observation.setObservationTime(beginFrameTime);
                 TileEdgeDetector.this.observation = observation;
 
-                // If there is an aggregator, also add this observation to it.
-                aggregator.add(observation);
-
             } else {
                 // Keep the previous detection results if they are still within the previous detection threshold,
                 // This helps in case we skip a frame or two for some reason.
-                // Otherwise, discard the result so we no longer have a detection.
+                // Otherwise, discard the result so we no longer have a detection.  The aggregate is kept, since it
+                // moves along with the robot.
                 TileEdgeObservation previousObservation = TileEdgeDetector.this.observation;
                 if (previousObservation != null && previousObservation.observationTime.seconds() > PREVIOUS_DETECTION_THRESHOLD) {
-                    reset();
+                    TileEdgeDetector.this.observation = null;
                 }
             }
 
@@ -192,6 +219,44 @@ public class TileEdgeDetector extends BaseComponent {
             }
         }
 
+        /**
+         * Returns where the tile edges should appear in the image, or null if the robot's pose isn't known.
+         */
+        private TileEdgePrediction predictTileEdges() {
+            RobotContext.RobotPositionProvider positionProvider = context.robotPositionProvider;
+            if (positionProvider == null) {
+                return null;
+            }
+
+            Position position = positionProvider.getPosition();
+            Heading heading = positionProvider.getHeading();
+            if (position == null || heading == null) {
+                return null;
+            }
+            return tileEdgeSolver.predict(position, heading);
+        }
+
+        /**
+         * Detects lines near whichever predicted tile edge runs at the angles the detector looks for, or all the lines
+         * if there is no prediction.
+         */
+        private List<HoughLine> detectLines(HoughLineDetector detector, Mat edges, TileEdgePrediction prediction) {
+            if (prediction != null) {
+                HoughParameters parameters = detector.getParameters();
+
+                HoughLine frontEdge = HoughLine.fromLine(prediction.frontEdge);
+                if (frontEdge.withThetaFrom(parameters.minTheta).theta <= parameters.maxTheta) {
+                    return detector.detectLines(edges, frontEdge, prediction.frontEdgeInView);
+                }
+
+                HoughLine rightEdge = HoughLine.fromLine(prediction.rightEdge);
+                if (rightEdge.withThetaFrom(parameters.minTheta).theta <= parameters.maxTheta) {
+                    return detector.detectLines(edges, rightEdge, prediction.rightEdgeInView);
+                }
+            }
+            return detector.detectLines(edges);
+        }
+
         private void drawOutput(Mat output, TileEdgeObservation observation) {
             if (observation != null) {
                 for (Line badLine : observation.badLines) {
@@ -208,21 +273,21 @@ public class TileEdgeDetector extends BaseComponent {
                 }
             }
 
-            TileEdgeObservation aggregate = aggregator.getAggregateObservation();
+            TileEdgeObservationAggregator.Snapshot aggregate = aggregator.getSnapshot();
             if (aggregate != null) {
                 String distanceRightInches = aggregate.distanceRight != null ?
                         format(tilesToInches(aggregate.distanceRight) -
                                 robotDescriptor.robotDimensionsInInches.width / 2, 1) +
-                                " in, [" + aggregator.countRight + " obs]" :
+                                " in, [" + aggregate.countRight + " obs]" :
                         "___";
                 String distanceFrontInches = aggregate.distanceFront != null ?
                         format(tilesToInches(aggregate.distanceFront) -
                                 robotDescriptor.robotDimensionsInInches.height / 2, 1) +
-                                " in, [" + aggregator.countFront + " obs]" :
+                                " in, [" + aggregate.countFront + " obs]" :
                         "___";
                 String headingOffset = aggregate.headingOffset != null ?
                         format(aggregate.headingOffset, 1) +
-                                " deg, [" + aggregator.countHeading + "]" :
+                                " deg, [" + aggregate.countHeading + "]" :
                         "___";
 
                 DrawUtil.drawText(output, "DR " + distanceRightInches, new Position(50, 20), Color.ORANGE, 0.5, 1);
@@ -239,59 +304,195 @@ public class TileEdgeDetector extends BaseComponent {
 
     }
 
+    /**
+     * Combines the observations from both webcams, over the last moments, into a single observation.
+     * <p>
+     * Each of the right distance, front distance and heading offset is kept in its own {@link DecayingSampleWindow},
+     * so the aggregate favors the most recent observations, and an outlier in one of them, such as the edge of a pole
+     * or of another robot, is rejected without affecting the others.
+     * <p>
+     * The drive train adds the observations and moves the windows along with the robot, all on the control thread.
+     * After each update it publishes an immutable {@link Snapshot} through a volatile field, so other threads, such as
+     * the camera threads drawing their output, can read it without locking.
+     */
     public static class TileEdgeObservationAggregator {
 
-        private TileEdgeObservation aggregate;
-        private int countRight;
-        private int countFront;
-        private int countHeading;
+        /**
+         * The most observations to keep for each value, about a second's worth from the webcams.
+         */
+        private static final int CAPACITY = 32;
 
-        public synchronized void add(TileEdgeObservation observation) {
-            if (observation == null) return;
+        private final DecayingSampleWindow right;
+        private final DecayingSampleWindow front;
+        private final DecayingSampleWindow heading;
 
-            if (aggregate == null) {
-                aggregate = new TileEdgeObservation();
-            }
+        private volatile Snapshot snapshot;
+
+        public TileEdgeObservationAggregator(RobotDescriptor robotDescriptor) {
+            double timeConstant = robotDescriptor.tileEdgeAggregateTimeConstant;
+            double outlierThreshold = robotDescriptor.tileEdgeOutlierThreshold;
+            double distanceNoise = robotDescriptor.tileEdgeDistanceNoise;
+
+            // Distances to the nearest tile edge repeat every tile.
+            right = new DecayingSampleWindow(CAPACITY, timeConstant, 1.0, distanceNoise, outlierThreshold);
+            front = new DecayingSampleWindow(CAPACITY, timeConstant, 1.0, distanceNoise, outlierThreshold);
+            heading = new DecayingSampleWindow(CAPACITY, timeConstant, 0,
+                    robotDescriptor.tileEdgeHeadingNoise, outlierThreshold);
+        }
 
-            aggregate.observationTime = observation.observationTime;
+        /**
+         * Adds an observation, which should already be carried forward to the robot's current pose.
+         *
+         * @param captureTime The System.nanoTime() at which the frame was captured.
+         */
+        public void add(TileEdgeObservation observation, long captureTime) {
+            if (observation == null) return;
 
             if (observation.distanceRight != null) {
-                countRight++;
-                if (aggregate.distanceRight != null) {
-                    aggregate.distanceRight = (observation.distanceRight + (aggregate.distanceRight * (countRight - 1))) / countRight;
-                } else {
-                    aggregate.distanceRight = observation.distanceRight;
-                }
+                right.add(observation.distanceRight, captureTime);
             }
-
             if (observation.distanceFront != null) {
-                countFront++;
-                if (aggregate.distanceFront != null) {
-                    aggregate.distanceFront = (observation.distanceFront + (aggregate.distanceFront * (countFront - 1))) / countFront;
-                } else {
-                    aggregate.distanceFront = observation.distanceFront;
-                }
+                front.add(observation.distanceFront, captureTime);
             }
-
             if (observation.headingOffset != null) {
-                countHeading++;
-                if (aggregate.headingOffset != null) {
-                    aggregate.headingOffset = (observation.headingOffset + (aggregate.headingOffset * (countHeading - 1))) / countHeading;
-                } else {
-                    aggregate.headingOffset = observation.headingOffset;
+                heading.add(observation.headingOffset, captureTime);
+            }
+        }
+
+        /**
+         * Carries the aggregate along with the robot's movement, so that observations made at different poses can be
+         * combined while the robot is driving.
+         *
+         * @param towardsRight The robot's movement towards the right hand tile edge, in tiles.
+         * @param towardsFront The robot's movement towards the front tile edge, in tiles.
+         * @param rotation     The robot's counter-clockwise rotation, in degrees.
+         */
+        public void move(double towardsRight, double towardsFront, double rotation) {
+            right.shift(-towardsRight);
+            front.shift(-towardsFront);
+            heading.shift(rotation);
+        }
+
+        /**
+         * Drops the observations that are too old to matter, and publishes a new snapshot of the aggregate.
+         */
+        public void publish(long now) {
+            right.expire(now);
+            front.expire(now);
+            heading.expire(now);
+
+            if (right.isEmpty() && front.isEmpty() && heading.isEmpty()) {
+                snapshot = null;
+                return;
+            }
+
+            snapshot = new Snapshot(
+                    average(right, now),
+                    average(front, now),
+                    average(heading, now),
+                    right.size(),
+                    front.size(),
+                    heading.size(),
+                    right.getRejectedCount() + front.getRejectedCount() + heading.getRejectedCount()
+            );
+        }
+
+        private static Double average(DecayingSampleWindow window, long now) {
+            return window.isEmpty() ? null : window.getAverage(now);
+        }
+
+        public void reset() {
+            right.clear();
+            front.clear();
+            heading.clear();
+            snapshot = null;
+        }
+
+        /**
+         * Returns the most recently published aggregate, or null if there are no observations.
+         */
+        public Snapshot getSnapshot() {
+            return snapshot;
+        }
+
+        /**
+         * Waits up to maxTime seconds for an aggregate.  Nothing reaches the aggregate unless the loop's update runs,
+         * so it runs on every pass, not only once there is a snapshot.  Once there is one, the wait carries on until
+         * minTime so that more frames are averaged.
+         *
+         * @return The aggregate, or null if there was none.
+         */
+        public Snapshot waitForSnapshot(WaitLoop loop, double minTime, double maxTime) {
+            long startTime = System.nanoTime();
+            Snapshot result = null;
+            while (!loop.isStopRequested()) {
+                loop.update();
+                result = snapshot;
+
+                double elapsed = (System.nanoTime() - startTime) / 1e9;
+                if (elapsed >= maxTime || (result != null && elapsed >= minTime)) {
+                    break;
                 }
+                loop.sleep(5);
             }
+            return result;
         }
 
-        public synchronized void reset() {
-            aggregate = null;
-            countRight = 0;
-            countFront = 0;
-            countHeading = 0;
+        /**
+         * What {@link #waitForSnapshot} needs from the robot while it waits.
+         */
+        public interface WaitLoop {
+
+            boolean isStopRequested();
+
+            /**
+             * Adds any new observations to the aggregate, and publishes a new snapshot.
+             */
+            void update();
+
+            void sleep(long millis);
+
         }
 
-        public TileEdgeObservation getAggregateObservation() {
-            return aggregate;
+        /**
+         * The aggregate at the time it was published.  Any of the values can be null if there are no recent
+         * observations of it.
+         */
+        public static final class Snapshot {
+
+            public final Double distanceRight;
+            public final Double distanceFront;
+            public final Double headingOffset;
+
+            /**
+             * The number of observations in the aggregate for each value.
+             */
+            public final int countRight;
+            public final int countFront;
+            public final int countHeading;
+
+            /**
+             * The number of values rejected as outliers since the aggregator was reset.
+             */
+            public final int rejectedCount;
+
+            public Snapshot(Double distanceRight, Double distanceFront, Double headingOffset,
+                            int countRight, int countFront, int countHeading, int rejectedCount) {
+                this.distanceRight = distanceRight;
+                this.distanceFront = distanceFront;
+                this.headingOffset = headingOffset;
+                this.countRight = countRight;
+                this.countFront = countFront;
+                this.countHeading = countHeading;
+                this.rejectedCount = rejectedCount;
+            }
+
+            public String toString() {
+                return "DR " + format(distanceRight) + " [" + countRight + "], " +
+                        "DF " + format(distanceFront) + " [" + countFront + "]\n" +
+                        "Heading " + format(headingOffset, 1) + " deg [" + countHeading + "], " +
+                        "Rejected " + rejectedCount;
+            }
         }
 
     }
@@ -2,16 +2,24 @@ package org.firstinspires.ftc.teamcode.components;
 
 import com.qualcomm.robotcore.hardware.Servo;
 
+import org.firstinspires.ftc.teamcode.components.HardwareIO.ServoOutput;
 import org.firstinspires.ftc.teamcode.geometry.Heading;
 
 import java.util.Arrays;
 
 public class Turret extends BaseComponent {
 
+    /**
+     * The servo moves on its own once its position is set, so the turret doesn't need to be checked in every iteration
+     * of the loop.
+     */
+    private static final long UPDATE_PERIOD_MS = 50;
+
     //private static double MAXIMUM = 1;
     //private static double MINIMUM = .3;
 
     private Servo servo;
+    private ServoOutput servoOutput;
     private SafetyCheck safetyCheck;
 
     private double targetPosition = Orientation.FRONT.servoPosition;
@@ -42,7 +50,9 @@ public class Turret extends BaseComponent {
 
     public Turret(RobotContext context, SafetyCheck safetyCheck) {
         super(context);
+        setUpdatePeriodMs(UPDATE_PERIOD_MS);
         servo = hardwareMap.servo.get("Turret");
+        servoOutput = context.hardwareIO.addServoOutput(servo);
         this.safetyCheck = safetyCheck;
     }
 
@@ -51,11 +61,11 @@ public class Turret extends BaseComponent {
     }
 
     public void stopTurret() {
-        servo.getController().pwmDisable();
+        servoOutput.setPwmEnabled(false);
     }
 
     public void moveTurretManually(double targetPosition) {
-        servo.setPosition(targetPosition);
+        servoOutput.setPosition(targetPosition);
     }
 
     public void moveToOrientation(Orientation orientation) {
@@ -111,8 +121,8 @@ public class Turret extends BaseComponent {
 
              */
 
-            servo.setPosition(servoPosition);
-            servo.getController().pwmEnable();
+            servoOutput.setPosition(servoPosition);
+            servoOutput.setPwmEnabled(true);
         }
 
         @Override
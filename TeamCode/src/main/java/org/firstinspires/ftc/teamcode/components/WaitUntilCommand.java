@@ -0,0 +1,55 @@
+package org.firstinspires.ftc.teamcode.components;
+
+/**
+ * A command that does nothing except wait until a condition is true.  This is mostly useful in a sequence, to hold
+ * back the following commands until it is safe for them to run.
+ */
+public class WaitUntilCommand implements Command {
+
+    private Condition condition;
+
+    /**
+     * The most seconds to wait before giving up on the condition, or infinity to wait for as long as it takes.
+     */
+    private double timeout;
+
+    private long startTime;
+
+    public WaitUntilCommand(Condition condition) {
+        this(condition, Double.POSITIVE_INFINITY);
+    }
+
+    public WaitUntilCommand(Condition condition, double timeout) {
+        this.condition = condition;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void start() {
+        startTime = System.nanoTime();
+    }
+
+    @Override
+    public void stop() {
+
+    }
+
+    @Override
+    public boolean updateStatus() {
+        return condition.isTrue() || (System.nanoTime() - startTime) / 1e9 >= timeout;
+    }
+
+    public String toString() {
+        return "WaitUntil";
+    }
+
+    public interface Condition {
+
+        /**
+         * Indicates if the condition has been met.
+         */
+        boolean isTrue();
+
+    }
+
+}
@@ -2,12 +2,18 @@ package org.firstinspires.ftc.teamcode.components;
 
 import static android.os.Environment.getExternalStorageDirectory;
 
+import android.annotation.SuppressLint;
+
 import com.qualcomm.robotcore.util.ElapsedTime;
 
+import org.firstinspires.ftc.robotcore.external.Func;
 import org.firstinspires.ftc.robotcore.external.hardware.camera.WebcamName;
 import org.firstinspires.ftc.robotcore.external.hardware.camera.controls.ExposureControl;
 import org.firstinspires.ftc.teamcode.RobotDescriptor.WebCamDescriptor;
 import org.firstinspires.ftc.teamcode.util.ErrorUtil;
+import org.firstinspires.ftc.teamcode.util.FrameImageCache;
+import org.firstinspires.ftc.teamcode.util.LatestFrameBuffer;
+import org.firstinspires.ftc.teamcode.util.ParallelInit;
 import org.opencv.core.Mat;
 import org.opencv.core.Size;
 import org.opencv.imgcodecs.Imgcodecs;
@@ -18,10 +24,22 @@ import org.openftc.easyopencv.OpenCvPipeline;
 import org.openftc.easyopencv.OpenCvWebcam;
 
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 public class WebCam extends BaseComponent {
 
+    /**
+     * Frames are processed on the camera thread, so there is nothing to do in every iteration of the loop.
+     */
+    private static final long UPDATE_PERIOD_MS = 100;
+
+    /**
+     * How long the worker waits for a frame before checking whether it should stop.
+     */
+    private static final long WORKER_TIMEOUT_MS = 100;
+
     /**
      * The webcam descriptor.
      */
@@ -33,14 +51,41 @@ public class WebCam extends BaseComponent {
     private boolean streamOutput;
 
     /**
-     * The output that will be rendered to the viewport (in RGBA format).
+     * The output that will be rendered to the viewport (in RGBA format).  It's allocated once and reused for every
+     * frame.  When not streaming, it's only filled when a frame is saved.
      */
     private Mat output = new Mat();
 
     /**
-     * The frame processor that will be invoked to process any captured data.
+     * Set when a frame is to be saved while not streaming, until the camera has copied the next frame to the output.
      */
-    private FrameProcessor frameProcessor;
+    private boolean frameCaptureRequested;
+
+    /**
+     * When processing asynchronously, the copy of the latest output that the camera callback returns to the viewport,
+     * and the output the worker annotates before publishing it.  Like the output, they are only used when streaming.
+     */
+    private Mat displayOutput = new Mat();
+    private Mat workerOutput = new Mat();
+
+    /**
+     * The images derived from the current frame, shared by the frame processors.
+     */
+    private FrameImageCache frameImages = new FrameImageCache();
+
+    /**
+     * The frame processors that will be invoked to process any captured data, in the order they were added.  The list
+     * can be iterated on the worker thread while processors are added and removed.
+     */
+    private List<ScheduledFrameProcessor> frameProcessors = new CopyOnWriteArrayList<>();
+
+    /**
+     * When processing asynchronously, the frames handed from the camera callback to the worker thread.
+     */
+    private LatestFrameBuffer<Mat> frameBuffer;
+    private Thread worker;
+    private volatile boolean workerRunning;
+    private volatile int processedFrameCount;
 
     /**
      * The number of frames that have been processed.
@@ -60,6 +105,7 @@ public class WebCam extends BaseComponent {
 
     public WebCam(RobotContext context, WebCamDescriptor descriptor, boolean streamOutput) {
         super(context);
+        setUpdatePeriodMs(UPDATE_PERIOD_MS);
         this.webCamDescriptor = descriptor;
         this.streamOutput = streamOutput;
     }
@@ -67,8 +113,8 @@ public class WebCam extends BaseComponent {
     @Override
     public void init() {
 
-        String name = webCamDescriptor.name;
-        Size resolution = webCamDescriptor.resolution;
+        final String name = webCamDescriptor.name;
+        final Size resolution = webCamDescriptor.resolution;
         WebcamName webcamName = hardwareMap.get(WebcamName.class, name);
 
         if (streamOutput) {
@@ -79,27 +125,47 @@ public class WebCam extends BaseComponent {
             camera = OpenCvCameraFactory.getInstance().createWebcam(webcamName);
         }
 
+        // The camera opens asynchronously, so the rest of the robot can carry on initializing in the meantime.
+        final ParallelInit.Step openStep = context.parallelInit.begin("Camera " + name);
+
+        if (webCamDescriptor.asyncProcessing) {
+            startWorker();
+        }
+
         camera.setPipeline(new CameraPipeline());
         camera.openCameraDeviceAsync(new OpenCvCamera.AsyncCameraOpenListener() {
             @Override
             public void onOpened() {
-                camera.startStreaming((int) resolution.width, (int) resolution.height, OpenCvCameraRotation.UPRIGHT);
-                camera.showFpsMeterOnViewport(false);
-
-                // Now that the camera is open the exposure can be adjusted.
-                exposureControl = camera.getExposureControl();
-                exposureControl.setMode(ExposureControl.Mode.Manual);
-                setExposure(webCamDescriptor.exposureMs);
+                try {
+                    camera.startStreaming((int) resolution.width, (int) resolution.height, OpenCvCameraRotation.UPRIGHT);
+                    camera.showFpsMeterOnViewport(false);
+
+                    // Now that the camera is open the exposure can be adjusted.
+                    exposureControl = camera.getExposureControl();
+                    exposureControl.setMode(ExposureControl.Mode.Manual);
+                    setExposure(webCamDescriptor.exposureMs);
+
+                    openStep.complete();
+                } catch (RuntimeException e) {
+                    openStep.fail(e);
+                }
             }
 
             @Override
             public void onError(int errorCode) {
-                //telemetry.log().add("Error opening " + cameraName + ": " + errorCode);
+                openStep.fail(new IllegalStateException("Error opening " + name + ": " + errorCode));
             }
         });
     }
 
+    /**
+     * Stops processing and closes the camera.  Does nothing if the camera isn't open, or was already stopped.
+     */
     public void stop() {
+        if (camera == null) {
+            return;
+        }
+        stopWorker();
         camera.setPipeline(null);
         camera.closeCameraDeviceAsync(new OpenCvCamera.AsyncCameraCloseListener() {
             @Override
@@ -107,23 +173,83 @@ public class WebCam extends BaseComponent {
                 telemetry.log().add("Stopped camera [" + webCamDescriptor.name + "]");
             }
         });
+        camera = null;
     }
 
-    public synchronized void saveLastFrame() {
+    /**
+     * Saves the last output to a file.  Only copying the output holds up the camera, not writing the file.  When not
+     * streaming there is no output, so the next frame is saved as captured instead.
+     */
+    public void saveLastFrame() {
         String filename = getExternalStorageDirectory() + "/webcam-frame-" +
                 new Date().toString().replace(' ', '-') +
                 this.getExposure() + ".bmp";
 
+        Mat frame;
+        synchronized (this) {
+            if (!streamOutput) {
+                waitForFrameCapture();
+            }
+            frame = output.clone();
+        }
+
         telemetry.addData("WebCam Frame Saved", filename);
 
-        boolean success = Imgcodecs.imwrite(filename, output);
+        boolean success = Imgcodecs.imwrite(filename, frame);
         telemetry.addData("did I write?", success);
+        frame.release();
+    }
+
+    /**
+     * Asks the camera to copy the next frame to the output, and waits for it.  Must be called holding the lock.
+     */
+    private void waitForFrameCapture() {
+        frameCaptureRequested = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WORKER_TIMEOUT_MS * 10);
+        try {
+            while (frameCaptureRequested) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    break;
+                }
+                wait(remainingMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        frameCaptureRequested = false;
+    }
+
+    /**
+     * Copies the frame to the output if it has been asked for, for a frame to be saved while not streaming.  Must be
+     * called holding the lock.
+     */
+    private void captureFrameIfRequested(Mat input) {
+        if (frameCaptureRequested) {
+            input.copyTo(output);
+            frameCaptureRequested = false;
+            notifyAll();
+        }
     }
 
     public int getFrameCount() {
         return frameCount;
     }
 
+    /**
+     * Returns the number of frames that the frame processors have been run on.
+     */
+    public int getProcessedFrameCount() {
+        return processedFrameCount;
+    }
+
+    /**
+     * Returns the number of frames that were dropped because the worker was still busy with an earlier frame.
+     */
+    public int getDroppedFrameCount() {
+        return frameBuffer != null ? frameBuffer.getDroppedCount() : 0;
+    }
+
     public boolean getStreamOutput() {
         return streamOutput;
     }
@@ -146,12 +272,23 @@ public class WebCam extends BaseComponent {
         }
     }
 
-    public void setFrameProcessor(FrameProcessor frameProcessor) {
-        this.frameProcessor = frameProcessor;
+    /**
+     * Adds a frame processor, which runs on every frame after the processors already added.  The returned schedule
+     * can be used to run it less often, disable it, or give it a time budget.
+     */
+    public ScheduledFrameProcessor addFrameProcessor(FrameProcessor frameProcessor) {
+        ScheduledFrameProcessor scheduled = new ScheduledFrameProcessor(frameProcessor);
+        frameProcessors.add(scheduled);
+        return scheduled;
     }
 
-    public void removeFrameProcessor() {
-        this.frameProcessor = null;
+    public synchronized void removeFrameProcessor(FrameProcessor frameProcessor) {
+        for (int i = 0; i < frameProcessors.size(); i++) {
+            if (frameProcessors.get(i).getProcessor() == frameProcessor) {
+                frameProcessors.remove(i);
+                return;
+            }
+        }
     }
 
     public boolean isStreaming() {
@@ -173,38 +310,157 @@ public class WebCam extends BaseComponent {
                 null;
     }
 
+    private void startWorker() {
+        frameBuffer = new LatestFrameBuffer<>(new Mat(), new Mat(), new Mat());
+        workerRunning = true;
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWorker();
+            }
+        }, "WebCam-" + webCamDescriptor.name);
+        worker.setDaemon(true);
+        worker.start();
+
+        addTelemetry("WebCam " + webCamDescriptor.name, new Func<String>() {
+            @SuppressLint("DefaultLocale")
+            @Override
+            public String value() {
+                return String.format("%d frames, %d processed, %d dropped",
+                        frameCount, processedFrameCount, getDroppedFrameCount());
+            }
+        });
+    }
+
+    private void stopWorker() {
+        if (worker != null) {
+            workerRunning = false;
+            worker.interrupt();
+            try {
+                worker.join(WORKER_TIMEOUT_MS * 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+    }
+
+    /**
+     * Processes the latest frame from the camera callback, until stopped.
+     */
+    private void runWorker() {
+        try {
+            while (workerRunning && !Thread.currentThread().isInterrupted()) {
+                Mat frame = frameBuffer.take(WORKER_TIMEOUT_MS);
+                if (frame == null) {
+                    continue;
+                }
+
+                // The frame may have waited, so its time is the time it was captured, not now.
+                long captureTime = frameBuffer.getTakenCaptureTime();
+                frameImages.reset(frame);
+                FrameContext context = new FrameContext(
+                        new ElapsedTime(captureTime),
+                        captureTime,
+                        frameBuffer.getTakenFrameNumber(),
+                        frameImages
+                );
+
+                if (streamOutput) {
+                    frame.copyTo(workerOutput);
+                    runFrameProcessors(frame, workerOutput, context);
+
+                    synchronized (this) {
+                        workerOutput.copyTo(output);
+                    }
+                } else {
+                    runFrameProcessors(frame, null, context);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stopping, so there's nothing else to do.
+        } finally {
+            workerRunning = false;
+        }
+    }
+
+    /**
+     * Allows any frame processors that are due to analyze the image and annotate the output.  An error in one
+     * processor doesn't stop the others.
+     */
+    private void runFrameProcessors(Mat input, Mat output, FrameContext context) {
+        for (ScheduledFrameProcessor frameProcessor : frameProcessors) {
+            if (frameProcessor.isDue(context.frameCount)) {
+                try {
+                    frameProcessor.process(input, output, context);
+                } catch (Exception e) {
+                    telemetry.addData("Frame Error", ErrorUtil.convertToString(e));
+                }
+            }
+        }
+        processedFrameCount++;
+    }
+
     private class CameraPipeline extends OpenCvPipeline {
 
         @Override
         public Mat processFrame(Mat input) {
 
+            // Make sure it is RGBA, and the size that we expect.
+            Size resolution = webCamDescriptor.resolution;
+            assert input.width() == (int) resolution.width && input.height() == (int) resolution.height;
+            assert input.channels() == 4 : "Expected RGBA image from webcam";
+
+            if (frameBuffer != null) {
+                return handOverFrame(input);
+            }
+
             synchronized (WebCam.this) {
 
+                frameImages.reset(input);
                 FrameContext context = new FrameContext(
                         new ElapsedTime(),
-                        frameCount++
+                        System.nanoTime(),
+                        frameCount++,
+                        frameImages
                 );
 
-                input.copyTo(output);
-
-                // Make sure it is RGBA, and the size that we expect.
-                Size resolution = webCamDescriptor.resolution;
-                assert input.width() == (int) resolution.width && input.height() == (int) resolution.height;
-                assert input.channels() == 4 : "Expected RGBA image from webcam";
-
-                // Allow any frame processors to analyze the image and annotate the output.
-                if (frameProcessor != null) {
-                    try {
-                        frameProcessor.processFrame(input, output, context);
-                    } catch (Exception e) {
-                        telemetry.addData("Frame Error", ErrorUtil.convertToString(e));
-                    }
+                // Only copy the frame to annotate it when it will be shown.  Otherwise the input is returned untouched.
+                if (!streamOutput) {
+                    captureFrameIfRequested(input);
+                    runFrameProcessors(input, null, context);
+                    return input;
                 }
 
+                input.copyTo(output);
+                runFrameProcessors(input, output, context);
+
                 return output;
             }
         }
 
+        /**
+         * Hands the frame over to the worker and returns straight away, showing the latest output the worker has
+         * finished.
+         */
+        private Mat handOverFrame(Mat input) {
+            long captureTime = System.nanoTime();
+            input.copyTo(frameBuffer.getWriteFrame());
+            frameBuffer.publish(captureTime, frameCount++);
+
+            synchronized (WebCam.this) {
+                if (!streamOutput) {
+                    captureFrameIfRequested(input);
+                    return input;
+                }
+                if (output.empty()) {
+                    return input;
+                }
+                output.copyTo(displayOutput);
+            }
+            return displayOutput;
+        }
+
     }
 
     public interface FrameProcessor {
@@ -214,7 +470,8 @@ public class WebCam extends BaseComponent {
          * and, if desired, update the output image.
          *
          * @param input  the input frame image, in RGBA.
-         * @param output the output image, in RGBA.
+         * @param output the output image, in RGBA, or null if the webcam isn't streaming, in which case there is
+         *               nothing to draw on.
          */
         void processFrame(Mat input, Mat output, FrameContext frameContext);
 
@@ -222,12 +479,29 @@ public class WebCam extends BaseComponent {
 
     public static class FrameContext {
 
+        /**
+         * The time since the frame was captured.
+         */
         public ElapsedTime frameTime;
+
+        /**
+         * The System.nanoTime() at which the frame was captured.  When frames are processed asynchronously, this can
+         * be a little before the frame is processed.
+         */
+        public long captureTime;
+
         public int frameCount;
 
-        public FrameContext(ElapsedTime frameTime, int frameCount) {
+        /**
+         * The grayscale, edge and downscaled images of this frame, computed once and shared by every processor.
+         */
+        public FrameImageCache images;
+
+        public FrameContext(ElapsedTime frameTime, long captureTime, int frameCount, FrameImageCache images) {
             this.frameTime = frameTime;
+            this.captureTime = captureTime;
             this.frameCount = frameCount;
+            this.images = images;
         }
     }
 
@@ -0,0 +1,74 @@
+package org.firstinspires.ftc.teamcode.game;
+
+import org.firstinspires.ftc.teamcode.geometry.Heading;
+import org.firstinspires.ftc.teamcode.geometry.Position;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The AprilTags at known places on the field, which give the robot an absolute fix on its pose.
+ * <p>
+ * The same tag id can be in more than one place, such as the signal sleeves in front of the left and right start
+ * positions, so looking up a tag returns every place it could be.
+ */
+public class AprilTagFieldMap {
+
+    private List<FieldTag> tags = new ArrayList<>();
+
+    /**
+     * Returns the map for the POWERPLAY field, with a signal sleeve in front of each start position.  The signal
+     * sleeves show tag 1, 2 or 3 on the side facing the start position.
+     */
+    public static AprilTagFieldMap powerPlay() {
+        AprilTagFieldMap map = new AprilTagFieldMap();
+        for (int id = 1; id <= 3; id++) {
+            map.add(id, new Position(1.5, 1.5), new Heading(270));
+            map.add(id, new Position(4.5, 1.5), new Heading(270));
+        }
+        return map;
+    }
+
+    public void add(int id, Position position, Heading facing) {
+        tags.add(new FieldTag(id, position, facing));
+    }
+
+    /**
+     * Returns the places on the field that show the given tag id.
+     */
+    public List<FieldTag> getTags(int id) {
+        List<FieldTag> matches = Collections.emptyList();
+        for (FieldTag tag : tags) {
+            if (tag.id == id) {
+                if (matches.isEmpty()) {
+                    matches = new ArrayList<>();
+                }
+                matches.add(tag);
+            }
+        }
+        return matches;
+    }
+
+    public static class FieldTag {
+
+        public final int id;
+
+        /**
+         * The position of the center of the tag on the field, in tiles.
+         */
+        public final Position position;
+
+        /**
+         * The direction that the printed face of the tag points in.
+         */
+        public final Heading facing;
+
+        public FieldTag(int id, Position position, Heading facing) {
+            this.id = id;
+            this.position = position;
+            this.facing = facing;
+        }
+    }
+
+}
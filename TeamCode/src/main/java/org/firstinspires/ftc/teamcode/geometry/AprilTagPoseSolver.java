@@ -0,0 +1,206 @@
+package org.firstinspires.ftc.teamcode.geometry;
+
+import static org.firstinspires.ftc.teamcode.util.DistanceUtil.inchesToTiles;
+
+import org.firstinspires.ftc.robotcore.external.matrices.MatrixF;
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
+import org.firstinspires.ftc.teamcode.RobotDescriptor;
+import org.firstinspires.ftc.teamcode.RobotDescriptor.WebCamDescriptor;
+import org.firstinspires.ftc.teamcode.game.AprilTagFieldMap;
+import org.firstinspires.ftc.teamcode.game.AprilTagFieldMap.FieldTag;
+import org.firstinspires.ftc.teamcode.util.DistanceUtil;
+import org.openftc.apriltag.AprilTagDetection;
+
+import java.util.List;
+
+/**
+ * Solves for the robot's pose on the field from an AprilTag detected by the AprilTag webcam.
+ * <p>
+ * The detection gives the position of the tag relative to the webcam, and how far the tag is turned away from facing
+ * the webcam.  The webcam's mount position and direction on the robot turn that into the tag's pose relative to the
+ * robot, and the tag's known place on the field then gives the robot's position and heading.  Unlike the tile edges,
+ * which repeat every tile, this is an absolute fix.
+ * <p>
+ * The uncertainty of the fix comes from the uncertainty of the range, bearing and yaw of the detection, which grow
+ * with the distance to the tag.  It's returned as a covariance of the position and heading, since an error in the yaw
+ * moves the position sideways too.
+ */
+public class AprilTagPoseSolver {
+
+    /**
+     * The step used to calculate the derivatives of the pose, for the covariance.
+     */
+    private static final double EPSILON = 1e-4;
+
+    private RobotDescriptor robotDescriptor;
+    private AprilTagFieldMap fieldMap;
+
+    /**
+     * The position of the webcam on the robot in tiles, with x to the right and y forward from the center.
+     */
+    private Vector2 mountPosition;
+
+    /**
+     * The direction the webcam faces in degrees, counter-clockwise from the front of the robot.
+     */
+    private double mountHeading;
+
+    public AprilTagPoseSolver(RobotDescriptor robotDescriptor, AprilTagFieldMap fieldMap) {
+        this.robotDescriptor = robotDescriptor;
+        this.fieldMap = fieldMap;
+
+        WebCamDescriptor webCamDescriptor = robotDescriptor.webCamAprilTagDescriptor;
+        this.mountPosition = new Vector2(
+                inchesToTiles(webCamDescriptor.mountPosition.getX()),
+                inchesToTiles(webCamDescriptor.mountPosition.getY())
+        );
+        this.mountHeading = webCamDescriptor.mountHeading;
+    }
+
+    /**
+     * Solves for the robot's pose from the detection.  Where the tag is on the field more than once, the place that
+     * puts the robot nearest to its estimated position is used.
+     *
+     * @return The fix, or null if the tag isn't on the field map.
+     */
+    public AprilTagFix solve(AprilTagDetection detection, Position estimatedPosition) {
+        // The detection pose is in the units of the tag size, in meters, with x to the right and z away from the
+        // webcam.
+        double right = DistanceUtil.toTiles(detection.pose.x, DistanceUnit.METER);
+        double forward = DistanceUtil.toTiles(detection.pose.z, DistanceUnit.METER);
+        return solve(detection.id, right, forward, getYaw(detection.pose.R), estimatedPosition);
+    }
+
+    /**
+     * Returns how far the tag is turned clockwise, seen from above, from facing the webcam, in degrees.
+     *
+     * @param rotation The rotation of the tag relative to the webcam, with x to the right, y down and z away from the
+     *                 webcam.  Turning about y, the first of the YXZ angles, is clockwise seen from above.
+     */
+    public static double getYaw(MatrixF rotation) {
+        Orientation orientation = Orientation.getOrientation(rotation, AxesReference.INTRINSIC, AxesOrder.YXZ,
+                AngleUnit.DEGREES);
+        return orientation.firstAngle;
+    }
+
+    /**
+     * Solves for the robot's pose from a tag seen at the given position relative to the webcam.
+     *
+     * @param right   The distance of the tag to the right of the webcam, in tiles.
+     * @param forward The distance of the tag in front of the webcam, in tiles.
+     * @param yaw     How far the tag is turned clockwise, seen from above, from facing the webcam, in degrees.
+     */
+    public AprilTagFix solve(int id, double right, double forward, double yaw, Position estimatedPosition) {
+        List<FieldTag> tags = fieldMap.getTags(id);
+
+        FieldTag nearestTag = null;
+        Position nearestPosition = null;
+        for (FieldTag tag : tags) {
+            Position position = solvePosition(tag, right, forward, yaw);
+            if (nearestTag == null || (estimatedPosition != null &&
+                    position.distance(estimatedPosition) < nearestPosition.distance(estimatedPosition))) {
+                nearestTag = tag;
+                nearestPosition = position;
+            }
+        }
+        if (nearestTag == null) {
+            return null;
+        }
+
+        Heading heading = new Heading(solveHeading(nearestTag, right, forward, yaw));
+        double[][] covariance = calculateCovariance(nearestTag, right, forward, yaw);
+        return new AprilTagFix(id, nearestPosition, heading, covariance, Math.hypot(right, forward));
+    }
+
+    private double solveHeading(FieldTag tag, double right, double forward, double yaw) {
+        // The direction the tag faces relative to the robot, with the front of the robot being 90 degrees.  A tag
+        // facing the webcam squarely points back the way the webcam looks.
+        double tagFacing = 90 + mountHeading + 180 - yaw;
+        return tag.facing.getValue() - tagFacing + 90;
+    }
+
+    private Position solvePosition(FieldTag tag, double right, double forward, double yaw) {
+        Vector2 tagFromRobot = mountPosition.add(new Vector2(right, forward).rotate(mountHeading));
+        double heading = solveHeading(tag, right, forward, yaw);
+        return tag.position.add(tagFromRobot.rotate(heading - 90).multiply(-1));
+    }
+
+    /**
+     * Propagates the uncertainty of the range, bearing and yaw of the detection to the pose, using the derivatives
+     * of the pose with respect to each of them.
+     */
+    private double[][] calculateCovariance(FieldTag tag, double right, double forward, double yaw) {
+        double range = Math.hypot(right, forward);
+        double bearing = Math.atan2(right, forward);
+
+        double[] sigma = {
+                robotDescriptor.aprilTagRangeNoise * range,
+                Math.toRadians(robotDescriptor.aprilTagBearingNoise),
+                robotDescriptor.aprilTagYawNoise
+        };
+
+        // The derivatives of x, y and heading with respect to range, bearing and yaw.
+        double[][] jacobian = new double[3][3];
+        for (int j = 0; j < 3; j++) {
+            double[] plus = {range, bearing, yaw};
+            double[] minus = {range, bearing, yaw};
+            plus[j] += EPSILON;
+            minus[j] -= EPSILON;
+
+            Position positionPlus = solvePosition(tag, plus[0] * Math.sin(plus[1]), plus[0] * Math.cos(plus[1]), plus[2]);
+            Position positionMinus = solvePosition(tag, minus[0] * Math.sin(minus[1]), minus[0] * Math.cos(minus[1]), minus[2]);
+            double headingPlus = solveHeading(tag, 0, 0, plus[2]);
+            double headingMinus = solveHeading(tag, 0, 0, minus[2]);
+
+            jacobian[0][j] = (positionPlus.getX() - positionMinus.getX()) / (2 * EPSILON);
+            jacobian[1][j] = (positionPlus.getY() - positionMinus.getY()) / (2 * EPSILON);
+            jacobian[2][j] = (headingPlus - headingMinus) / (2 * EPSILON);
+        }
+
+        // covariance = J * diag(sigma^2) * J^T
+        double[][] covariance = new double[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int k = 0; k < 3; k++) {
+                double sum = 0;
+                for (int j = 0; j < 3; j++) {
+                    sum += jacobian[i][j] * sigma[j] * sigma[j] * jacobian[k][j];
+                }
+                covariance[i][k] = sum;
+            }
+        }
+        return covariance;
+    }
+
+    /**
+     * The robot's pose on the field, as seen from an AprilTag.
+     */
+    public static class AprilTagFix {
+
+        public final int id;
+        public final Position position;
+        public final Heading heading;
+
+        /**
+         * The covariance of x, y (in tiles) and heading (in degrees).
+         */
+        public final double[][] covariance;
+
+        /**
+         * The distance from the webcam to the tag, in tiles.
+         */
+        public final double range;
+
+        public AprilTagFix(int id, Position position, Heading heading, double[][] covariance, double range) {
+            this.id = id;
+            this.position = position;
+            this.heading = heading;
+            this.covariance = covariance;
+            this.range = range;
+        }
+    }
+
+}
@@ -10,6 +10,9 @@ import org.firstinspires.ftc.teamcode.RobotDescriptor;
 import org.firstinspires.ftc.teamcode.RobotDescriptor.WebCamDescriptor;
 import org.firstinspires.ftc.teamcode.components.RobotContext;
 import org.firstinspires.ftc.teamcode.util.DistanceUtil;
+import org.firstinspires.ftc.teamcode.util.RobotFieldConversionUtil;
+import org.firstinspires.ftc.teamcode.util.RobotFieldConversionUtil.FieldSpaceCoordinates;
+import org.firstinspires.ftc.teamcode.util.RobotFieldConversionUtil.RobotSpaceCoordinates;
 import org.opencv.core.Size;
 
 import java.util.ArrayList;
@@ -46,20 +49,7 @@ public class TileEdgeSolver {
      */
     public TileEdgeObservation solve(List<Line> webCamLines) {
 
-        Size resolution = webCamDescriptor.resolution;
-
-        // Convert the webcam corners to coordinates that are relative to the center of the robot.
-        Position topLeft = convertFromWebCamFieldSpaceToRobotSpace(webCamDescriptor.topLeft.robot);
-        Position topRight = convertFromWebCamFieldSpaceToRobotSpace(webCamDescriptor.topRight.robot);
-        Position bottomLeft = convertFromWebCamFieldSpaceToRobotSpace(webCamDescriptor.bottomLeft.robot);
-        Position bottomRight = convertFromWebCamFieldSpaceToRobotSpace(webCamDescriptor.bottomRight.robot);
-
-        Viewport viewport = new Viewport(
-                resolution.width, resolution.height,
-                topLeft, topRight,
-                bottomLeft, bottomRight
-        );
-
+        Viewport viewport = createViewport();
 
         // Convert the lines from webcam coordinates into coordinates relative to the robot.
         List<Line> robotLines = new ArrayList<>();
@@ -121,6 +111,82 @@ public class TileEdgeSolver {
         }
     }
 
+    /**
+     * Predicts where the tile edges should appear in the webcam image, if the robot is at the given pose.  This lets
+     * the line detection only look near where the edges are expected.
+     * <p>
+     * Of the edges that repeat every tile, the one passing nearest the middle of the image is predicted, even if it's
+     * out of view, since its angle still says which way the edges run.
+     */
+    public TileEdgePrediction predict(Position position, Heading heading) {
+        RobotSpaceCoordinates expected = RobotFieldConversionUtil.convertToRobotSpace(
+                new FieldSpaceCoordinates(heading, position));
+
+        // In robot space, the front edge runs along x turned by the heading offset, and the right edge along y.  The
+        // distances are measured along the perpendiculars from the robot center, as in solve(), so the front edge is
+        // along the right edge from the center, and the other way round.
+        double offset = Math.toRadians(expected.headingOffset);
+        Vector2 alongFrontEdge = new Vector2(Math.cos(offset), Math.sin(offset));
+        Vector2 alongRightEdge = new Vector2(-Math.sin(offset), Math.cos(offset));
+
+        Viewport viewport = createViewport();
+        TileEdgePrediction prediction = new TileEdgePrediction();
+        prediction.frontEdge = predictEdge(viewport, expected.distanceFront, alongRightEdge, alongFrontEdge);
+        prediction.rightEdge = predictEdge(viewport, expected.distanceRight, alongFrontEdge, alongRightEdge);
+        prediction.frontEdgeInView = isInView(prediction.frontEdge);
+        prediction.rightEdgeInView = isInView(prediction.rightEdge);
+        return prediction;
+    }
+
+    /**
+     * Returns the edge in view coordinates, of the edges that repeat every tile, that passes nearest the middle of the
+     * image.
+     *
+     * @param distance  The distance from the robot center to the nearest edge, in tiles.
+     * @param normal    The direction from the robot center to the edge.
+     * @param direction The direction along the edge.
+     */
+    private Line predictEdge(Viewport viewport, double distance, Vector2 normal, Vector2 direction) {
+        Size resolution = webCamDescriptor.resolution;
+        Position imageCenter = new Position(resolution.width / 2, resolution.height / 2);
+
+        Line nearest = null;
+        for (int tiles = -1; tiles <= 1; tiles++) {
+            Position foot = new Position(0, 0).add(normal.multiply(distance + tiles));
+
+            // The edges are much longer than the view, so two tiles either way always crosses it.
+            Line edge = new Line(
+                    viewport.solveViewPosition(foot.add(direction.multiply(-2))),
+                    viewport.solveViewPosition(foot.add(direction.multiply(2)))
+            );
+            if (nearest == null || imageCenter.distance(edge) < imageCenter.distance(nearest)) {
+                nearest = edge;
+            }
+        }
+        return nearest;
+    }
+
+    private boolean isInView(Line line) {
+        Size resolution = webCamDescriptor.resolution;
+        return new Rectangle(resolution.height, resolution.width, 0, 0).clip(line) != null;
+    }
+
+    private Viewport createViewport() {
+        Size resolution = webCamDescriptor.resolution;
+
+        // Convert the webcam corners to coordinates that are relative to the center of the robot.
+        Position topLeft = convertFromWebCamFieldSpaceToRobotSpace(webCamDescriptor.topLeft.robot);
+        Position topRight = convertFromWebCamFieldSpaceToRobotSpace(webCamDescriptor.topRight.robot);
+        Position bottomLeft = convertFromWebCamFieldSpaceToRobotSpace(webCamDescriptor.bottomLeft.robot);
+        Position bottomRight = convertFromWebCamFieldSpaceToRobotSpace(webCamDescriptor.bottomRight.robot);
+
+        return new Viewport(
+                resolution.width, resolution.height,
+                topLeft, topRight,
+                bottomLeft, bottomRight
+        );
+    }
+
     private List<Line> filterTileEdgeLines(List<Line> lines, TileEdgeObservation observation, Map<Line, Line> originalLines) {
         // todo: another idea is to use the color around the detected line (tile edges should be
         // todo: dark gray, while posts and other robots will be different colors).
@@ -207,6 +273,16 @@ public class TileEdgeSolver {
         return fromRobotCenterInTiles;
     }
 
+    /**
+     * Where the tile edges are expected to appear in the webcam image, in view coordinates.
+     */
+    public static class TileEdgePrediction {
+        public Line frontEdge;
+        public Line rightEdge;
+        public boolean frontEdgeInView;
+        public boolean rightEdgeInView;
+    }
+
     public static class TileEdgeObservation {
         public Double distanceFront;
         public Double distanceRight;
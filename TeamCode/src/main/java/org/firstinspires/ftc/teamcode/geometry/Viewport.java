@@ -11,6 +11,13 @@ import org.firstinspires.ftc.teamcode.util.ScalingUtil;
  */
 public class Viewport {
 
+    /**
+     * The most iterations, and the error in external coordinates that is close enough, when solving for a view
+     * position.
+     */
+    private static final int MAX_ITERATIONS = 20;
+    private static final double TOLERANCE = 1e-9;
+
     private Position viewTopLeft, viewTopRight, viewBottomLeft, viewBottomRight;
     private Position externalTopLeft, externalTopRight, externalBottomLeft, externalBottomRight;
 
@@ -87,6 +94,40 @@ public class Viewport {
         return view;
     }
 
+    /**
+     * Finds the view position that converts to the given external position.  Unlike convertExternalToView, this works
+     * whichever way the external corners are turned, e.g. for a webcam looking out of the side of the robot, since it
+     * inverts the bilinear interpolation of convertViewToExternal with Newton's method.
+     */
+    public Position solveViewPosition(Position externalPosition) {
+        double x = 0.5, y = 0.5;
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            Position estimate = scaleFromUnit(new Position(x, y),
+                    externalTopLeft, externalTopRight,
+                    externalBottomLeft, externalBottomRight
+            );
+            Vector2 error = externalPosition.minus(estimate);
+            if (error.magnitude() < TOLERANCE) {
+                break;
+            }
+
+            // The derivatives of the external position with respect to the unit coordinates.
+            Vector2 dx = externalBottomRight.minus(externalBottomLeft).multiply(1 - y)
+                    .add(externalTopRight.minus(externalTopLeft).multiply(y));
+            Vector2 dy = externalTopLeft.minus(externalBottomLeft).multiply(1 - x)
+                    .add(externalTopRight.minus(externalBottomRight).multiply(x));
+            double determinant = dx.getX() * dy.getY() - dx.getY() * dy.getX();
+
+            x += (error.getX() * dy.getY() - error.getY() * dy.getX()) / determinant;
+            y += (dx.getX() * error.getY() - dx.getY() * error.getX()) / determinant;
+        }
+
+        return scaleFromUnit(new Position(x, y),
+                viewTopLeft, viewTopRight,
+                viewBottomLeft, viewBottomRight
+        );
+    }
+
     private Position scaleToUnit(
             Position position,
             Position topLeft, Position topRight,
@@ -71,4 +71,9 @@ public class HoughTransformTest extends OpMode {
         telemetry.addData("Exposure(ms):",robot.getWebCamSide().getExposure());
         telemetry.update();
     }
+
+    @Override
+    public void stop() {
+        robot.stop();
+    }
 }
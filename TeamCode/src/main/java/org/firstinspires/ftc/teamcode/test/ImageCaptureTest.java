@@ -47,4 +47,9 @@ public class ImageCaptureTest extends OpMode {
             robot.getDriveTrain().moveToHeading(new Heading(60),.3);
         }
     }
+
+    @Override
+    public void stop() {
+        robot.stop();
+    }
 }
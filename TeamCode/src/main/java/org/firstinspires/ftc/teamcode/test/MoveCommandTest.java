@@ -100,6 +100,11 @@ public class MoveCommandTest extends OpMode {
 
     }
 
+    @Override
+    public void stop() {
+        robot.stop();
+    }
+
     private static boolean nonZero(double... values) {
         for (double value : values) {
             if (value != 0.0) {
@@ -0,0 +1,208 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import java.util.Arrays;
+
+/**
+ * A window of recent time stamped samples of a single value, combined into an average that favors the most recent
+ * samples and ignores outliers.
+ * <p>
+ * Each sample's weight decays exponentially with its age, so the average follows a value that drifts, and samples
+ * older than a few time constants are dropped.  A new sample further from the median of the window than a number of
+ * median absolute deviations (MADs) is rejected, so a single bad sample can't pull the average away.  The spread used
+ * for rejection never goes below the given minimum, so a window of nearly identical samples doesn't reject ordinary
+ * noise.
+ * <p>
+ * For a periodic value, such as the distance to the nearest tile edge, each new sample is moved by whole periods to be
+ * nearest to the median, and the average is returned within [0, period).
+ * <p>
+ * The samples are kept in primitive arrays, so adding samples and calculating the average doesn't allocate anything.
+ * This class is not thread safe.  Times are from System.nanoTime().
+ */
+public class DecayingSampleWindow {
+
+    /**
+     * Samples older than this many time constants have so little weight that they are dropped.
+     */
+    private static final double MAX_AGE_TIME_CONSTANTS = 4;
+
+    /**
+     * The number of samples needed before outliers are rejected.
+     */
+    private static final int MIN_SAMPLES_FOR_REJECTION = 5;
+
+    /**
+     * Scales a MAD to the standard deviation of normally distributed samples.
+     */
+    private static final double MAD_TO_STANDARD_DEVIATION = 1.4826;
+
+    private double timeConstant;
+    private double period;
+    private double minSpread;
+    private double outlierThreshold;
+
+    private double[] values;
+    private long[] times;
+    private double[] scratch;
+
+    /**
+     * The index of the oldest sample, and the number of samples.
+     */
+    private int start;
+    private int count;
+
+    private int rejectedCount;
+
+    /**
+     * @param capacity         The most samples to keep.  Once full, adding a sample drops the oldest.
+     * @param timeConstant     The age in seconds at which a sample's weight has decayed to 1/e.
+     * @param period           The period of the value, or zero if it isn't periodic.
+     * @param minSpread        The smallest standard deviation to assume when rejecting outliers.
+     * @param outlierThreshold Samples further than this many standard deviations from the median are rejected.
+     */
+    public DecayingSampleWindow(int capacity, double timeConstant, double period, double minSpread,
+                                double outlierThreshold) {
+        this.timeConstant = timeConstant;
+        this.period = period;
+        this.minSpread = minSpread;
+        this.outlierThreshold = outlierThreshold;
+
+        values = new double[capacity];
+        times = new long[capacity];
+        scratch = new double[capacity];
+    }
+
+    /**
+     * Adds a sample, unless it's an outlier.
+     *
+     * @return Whether the sample was added.
+     */
+    public boolean add(double value, long time) {
+        if (count > 0) {
+            double median = getMedian();
+            if (period > 0) {
+                value = median + Math.IEEEremainder(value - median, period);
+            }
+
+            if (count >= MIN_SAMPLES_FOR_REJECTION) {
+                double spread = Math.max(minSpread, getMedianAbsoluteDeviation(median) * MAD_TO_STANDARD_DEVIATION);
+                if (Math.abs(value - median) > outlierThreshold * spread) {
+                    rejectedCount++;
+                    return false;
+                }
+            }
+        } else if (period > 0) {
+            value -= Math.floor(value / period) * period;
+        }
+
+        int capacity = values.length;
+        if (count == capacity) {
+            start = (start + 1) % capacity;
+            count--;
+        }
+        int index = (start + count) % capacity;
+        values[index] = value;
+        times[index] = time;
+        count++;
+        return true;
+    }
+
+    /**
+     * Adds the given change to every sample, e.g. to carry them along with the robot's movement.
+     */
+    public void shift(double delta) {
+        if (count == 0) return;
+
+        int capacity = values.length;
+        for (int i = 0; i < count; i++) {
+            values[(start + i) % capacity] += delta;
+        }
+
+        if (period > 0) {
+            // Keep the samples around the first period, by whole periods so that they stay consistent.
+            double wrap = Math.floor(getMedian() / period) * period;
+            if (wrap != 0) {
+                for (int i = 0; i < count; i++) {
+                    values[(start + i) % capacity] -= wrap;
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the samples that are too old to matter.
+     */
+    public void expire(long now) {
+        long maxAge = (long) (MAX_AGE_TIME_CONSTANTS * timeConstant * 1e9);
+        while (count > 0 && now - times[start] > maxAge) {
+            start = (start + 1) % values.length;
+            count--;
+        }
+    }
+
+    /**
+     * Returns the average of the samples, weighted by how recent they are.  Returns NaN if there are no samples.
+     */
+    public double getAverage(long now) {
+        if (count == 0) return Double.NaN;
+
+        double weightedSum = 0;
+        double totalWeight = 0;
+        int capacity = values.length;
+        for (int i = 0; i < count; i++) {
+            int index = (start + i) % capacity;
+            double age = Math.max(0, (now - times[index]) / 1e9);
+            double weight = Math.exp(-age / timeConstant);
+            weightedSum += weight * values[index];
+            totalWeight += weight;
+        }
+
+        double average = weightedSum / totalWeight;
+        if (period > 0) {
+            average -= Math.floor(average / period) * period;
+        }
+        return average;
+    }
+
+    private double getMedian() {
+        int capacity = values.length;
+        for (int i = 0; i < count; i++) {
+            scratch[i] = values[(start + i) % capacity];
+        }
+        return sortedMedian();
+    }
+
+    private double getMedianAbsoluteDeviation(double median) {
+        int capacity = values.length;
+        for (int i = 0; i < count; i++) {
+            scratch[i] = Math.abs(values[(start + i) % capacity] - median);
+        }
+        return sortedMedian();
+    }
+
+    private double sortedMedian() {
+        Arrays.sort(scratch, 0, count);
+        int middle = count / 2;
+        return count % 2 == 1 ?
+                scratch[middle] :
+                (scratch[middle - 1] + scratch[middle]) / 2;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public void clear() {
+        start = 0;
+        count = 0;
+        rejectedCount = 0;
+    }
+
+}
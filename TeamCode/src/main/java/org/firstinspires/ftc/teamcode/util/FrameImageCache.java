@@ -0,0 +1,110 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * The images derived from a camera frame, such as the grayscale and edge images, shared by all the frame processors on
+ * the camera.
+ * <p>
+ * Each image is computed the first time a processor asks for it in a frame, and then reused by the other processors
+ * for the rest of that frame, so the expensive conversions run at most once per frame.  The Mats are kept from one
+ * frame to the next, so once they have been allocated for the camera's resolution there are no further native
+ * allocations.
+ * <p>
+ * This class is not thread safe.  It should only be used on the camera thread, while the frame is being processed.
+ */
+public class FrameImageCache {
+
+    /**
+     * The thresholds for the Canny edge detector.  Pixels with a gradient above the high threshold start an edge, and
+     * pixels above the low threshold continue one.
+     */
+    private static final double CANNY_LOW_THRESHOLD = 60;
+    private static final double CANNY_HIGH_THRESHOLD = 60 * 3;
+    private static final int CANNY_APERTURE_SIZE = 3;
+
+    /**
+     * The most times the grayscale image can be halved in size.
+     */
+    public static final int MAX_PYRAMID_LEVEL = 3;
+
+    private Mat input;
+
+    private Mat gray = new Mat();
+    private boolean grayValid;
+
+    private Mat edges = new Mat();
+    private boolean edgesValid;
+
+    /**
+     * The grayscale image halved in size once, twice and so on.  Level 0 is the grayscale image itself.
+     */
+    private Mat[] pyramid = new Mat[MAX_PYRAMID_LEVEL + 1];
+    private int pyramidValidLevels;
+
+    /**
+     * Starts a new frame, discarding the images derived from the previous frame.
+     *
+     * @param input The frame image, in RGBA.
+     */
+    public void reset(Mat input) {
+        this.input = input;
+        grayValid = false;
+        edgesValid = false;
+        pyramidValidLevels = 0;
+    }
+
+    /**
+     * Returns the frame image, in RGBA.
+     */
+    public Mat getInput() {
+        return input;
+    }
+
+    /**
+     * Returns the frame converted to grayscale.
+     */
+    public Mat getGray() {
+        if (!grayValid) {
+            Imgproc.cvtColor(input, gray, Imgproc.COLOR_RGBA2GRAY);
+            grayValid = true;
+        }
+        return gray;
+    }
+
+    /**
+     * Returns the edges found in the grayscale frame by the Canny edge detector.
+     */
+    public Mat getEdges() {
+        if (!edgesValid) {
+            Imgproc.Canny(getGray(), edges, CANNY_LOW_THRESHOLD, CANNY_HIGH_THRESHOLD, CANNY_APERTURE_SIZE, false);
+            edgesValid = true;
+        }
+        return edges;
+    }
+
+    /**
+     * Returns the grayscale frame halved in size the given number of times, for processors that don't need the full
+     * resolution.
+     */
+    public Mat getPyramidLevel(int level) {
+        if (level < 0 || level > MAX_PYRAMID_LEVEL) {
+            throw new IllegalArgumentException("Pyramid level must be 0 to " + MAX_PYRAMID_LEVEL + ": " + level);
+        }
+
+        if (pyramidValidLevels == 0) {
+            pyramid[0] = getGray();
+            pyramidValidLevels = 1;
+        }
+        while (pyramidValidLevels <= level) {
+            if (pyramid[pyramidValidLevels] == null) {
+                pyramid[pyramidValidLevels] = new Mat();
+            }
+            Imgproc.pyrDown(pyramid[pyramidValidLevels - 1], pyramid[pyramidValidLevels]);
+            pyramidValidLevels++;
+        }
+        return pyramid[level];
+    }
+
+}
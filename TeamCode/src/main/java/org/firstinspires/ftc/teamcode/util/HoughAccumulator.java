@@ -0,0 +1,167 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.firstinspires.ftc.teamcode.util.HoughLineDetector.HoughLine;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A Hough transform for finding straight lines in an edge image, which only votes for the lines within a band of
+ * angles and distances.
+ * <p>
+ * When we know roughly where a line should be, e.g. a tile edge predicted from the robot's pose, most of the work of a
+ * full Hough transform is wasted on lines that will be thrown away.  This votes only for the angles and distances in
+ * the band, so the cost grows with the size of the band rather than the whole range of lines.
+ * <p>
+ * Lines are in the same form as OpenCV's HoughLines: rho is the distance of the line from the top left corner of the
+ * image in pixels, and theta the angle of its normal in degrees, so that x cos(theta) + y sin(theta) = rho.  The sines
+ * and cosines of the angles are computed once, and the votes are kept in a primitive array that is reused from one
+ * image to the next, so there are no allocations once it has grown to the size of the band.
+ */
+public class HoughAccumulator {
+
+    private double minTheta;
+    private double thetaResolution;
+    private double rhoResolution;
+
+    /**
+     * The cosine and sine of each angle, divided by the rho resolution, so that they give the distance in rho steps.
+     */
+    private double[] cosines;
+    private double[] sines;
+
+    /**
+     * The votes for each line in the band, indexed by theta and then rho.
+     */
+    private int[] votes = new int[0];
+
+    /**
+     * The band that was voted in, as indexes into the tables and the lowest rho.
+     */
+    private int firstTheta;
+    private int thetaCount;
+    private double firstRho;
+    private int rhoCount;
+
+    /**
+     * The indexes of the votes for the lines that were found, kept from one image to the next.
+     */
+    private int[] peaks = new int[16];
+
+    /**
+     * @param minTheta        The lowest angle that can be voted for, in degrees.
+     * @param maxTheta        The highest angle that can be voted for, in degrees.
+     * @param thetaResolution The step between angles, in degrees.
+     * @param rhoResolution   The step between distances, in pixels.
+     */
+    public HoughAccumulator(double minTheta, double maxTheta, double thetaResolution, double rhoResolution) {
+        this.minTheta = minTheta;
+        this.thetaResolution = thetaResolution;
+        this.rhoResolution = rhoResolution;
+
+        int count = (int) Math.floor((maxTheta - minTheta) / thetaResolution) + 1;
+        cosines = new double[count];
+        sines = new double[count];
+        for (int i = 0; i < count; i++) {
+            double theta = Math.toRadians(minTheta + i * thetaResolution);
+            cosines[i] = Math.cos(theta) / rhoResolution;
+            sines[i] = Math.sin(theta) / rhoResolution;
+        }
+    }
+
+    /**
+     * Votes for the lines in the band through each edge pixel in the image.  The band is clamped to the angles given
+     * when the accumulator was created.
+     *
+     * @param pixels   The edge image, one byte per pixel row by row, with edges being non-zero.
+     * @param minTheta The lowest angle to vote for, in degrees.
+     * @param maxTheta The highest angle to vote for, in degrees.
+     * @param minRho   The lowest distance to vote for, in pixels.
+     * @param maxRho   The highest distance to vote for, in pixels.
+     */
+    public void accumulate(byte[] pixels, int width, int height,
+                           double minTheta, double maxTheta, double minRho, double maxRho) {
+        firstTheta = Math.max(0, (int) Math.ceil((minTheta - this.minTheta) / thetaResolution));
+        int lastTheta = Math.min(cosines.length - 1, (int) Math.floor((maxTheta - this.minTheta) / thetaResolution));
+        thetaCount = Math.max(0, lastTheta - firstTheta + 1);
+        firstRho = minRho;
+        rhoCount = Math.max(0, (int) Math.floor((maxRho - minRho) / rhoResolution) + 1);
+
+        int size = thetaCount * rhoCount;
+        if (votes.length < size) {
+            votes = new int[size];
+        } else {
+            Arrays.fill(votes, 0, size, 0);
+        }
+
+        double rhoOffset = firstRho / rhoResolution;
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                if (pixels[row + x] == 0) {
+                    continue;
+                }
+
+                for (int t = 0; t < thetaCount; t++) {
+                    int r = (int) Math.round(x * cosines[firstTheta + t] + y * sines[firstTheta + t] - rhoOffset);
+                    if (r >= 0 && r < rhoCount) {
+                        votes[t * rhoCount + r]++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the lines with more than the given number of votes to the list, with the most voted first.  As with
+     * OpenCV, a line is only found where it has more votes than the lines next to it.
+     */
+    public void findLines(int threshold, List<HoughLine> lines) {
+        int peakCount = 0;
+        for (int t = 0; t < thetaCount; t++) {
+            for (int r = 0; r < rhoCount; r++) {
+                int index = t * rhoCount + r;
+                int vote = votes[index];
+                if (vote > threshold &&
+                        vote > getVotes(t, r - 1) && vote >= getVotes(t, r + 1) &&
+                        vote > getVotes(t - 1, r) && vote >= getVotes(t + 1, r)) {
+                    if (peakCount == peaks.length) {
+                        peaks = Arrays.copyOf(peaks, peakCount * 2);
+                    }
+                    peaks[peakCount++] = index;
+                }
+            }
+        }
+
+        // Sort by votes, most first.  There are only ever a few peaks, so an insertion sort is fine.
+        for (int i = 1; i < peakCount; i++) {
+            int peak = peaks[i];
+            int j = i - 1;
+            while (j >= 0 && votes[peaks[j]] < votes[peak]) {
+                peaks[j + 1] = peaks[j];
+                j--;
+            }
+            peaks[j + 1] = peak;
+        }
+
+        for (int i = 0; i < peakCount; i++) {
+            int t = peaks[i] / rhoCount;
+            int r = peaks[i] % rhoCount;
+            lines.add(new HoughLine(
+                    firstRho + r * rhoResolution,
+                    minTheta + (firstTheta + t) * thetaResolution
+            ));
+        }
+    }
+
+    /**
+     * Returns the votes for the line, or zero for lines outside the band.
+     */
+    private int getVotes(int theta, int rho) {
+        if (theta < 0 || theta >= thetaCount || rho < 0 || rho >= rhoCount) {
+            return 0;
+        }
+        return votes[theta * rhoCount + rho];
+    }
+
+}
@@ -12,11 +12,23 @@ import java.util.List;
 
 public class HoughLineDetector {
 
-    private Mat gray = new Mat(); //image grayscaled
-    private Mat edges = new Mat(); //image with edges
+    private Mat houghLines = new Mat();
 
     private HoughParameters parameters;
 
+    /**
+     * The accumulator for detecting lines near a predicted line, and the edge pixels it reads, created for the first
+     * prediction and reused after that.
+     */
+    private HoughAccumulator accumulator;
+    private byte[] pixels = new byte[0];
+
+    /**
+     * Whether lines were found near the last predicted line.  Until they are, the whole range of distances is
+     * searched, so a line that is further from the prediction than expected can still be found.
+     */
+    private boolean tracking;
+
     public HoughLineDetector(HoughParameters parameters) {
         this.parameters = parameters;
     }
@@ -29,23 +41,65 @@ public class HoughLineDetector {
      * Uses the hough transform to detect lines in the given image.  Automatically groups lines that are very
      * similar into a single line.
      *
-     * @param image the image in which to detect lines
+     * @param edges the edges found in the image, e.g. by the Canny edge detector
      * @return the list of lines that were detected in the image.
      */
-    public List<HoughLine> detectLines(Mat image) {
+    public List<HoughLine> detectLines(Mat edges) {
         // detects the lines
-        List<HoughLine> lines = identifyLines(image);
+        List<HoughLine> lines = identifyLines(edges);
 
         // Group lines that are very similar together
         return groupSimilarLines(lines);
     }
 
-    private List<HoughLine> identifyLines(Mat input) {
+    /**
+     * Detects lines near where a line is predicted to be, which is much faster than looking at every angle.  Only the
+     * angles near the predicted line are searched, and when the previous prediction was found, only the distances near
+     * it.  If the predicted line isn't within this detector's angles, all lines are detected instead.
+     *
+     * @param edges         the edges found in the image, e.g. by the Canny edge detector
+     * @param predictedLine where the line is expected to be
+     * @param inView        whether the predicted line is expected to be in the image
+     * @return the list of lines that were detected in the image.
+     */
+    public List<HoughLine> detectLines(Mat edges, HoughLine predictedLine, boolean inView) {
+        HoughLine expected = predictedLine.withThetaFrom(parameters.minTheta);
+        if (expected.theta > parameters.maxTheta) {
+            tracking = false;
+            return detectLines(edges);
+        }
+
+        if (accumulator == null) {
+            accumulator = new HoughAccumulator(parameters.minTheta, parameters.maxTheta,
+                    Math.toDegrees(parameters.thetaResolution), parameters.rhoResolution);
+        }
+
+        int width = edges.cols();
+        int height = edges.rows();
+        if (pixels.length != width * height) {
+            pixels = new byte[width * height];
+        }
+        edges.get(0, 0, pixels);
+
+        double minRho = -(width + height);
+        double maxRho = width + height;
+        if (tracking && inView) {
+            minRho = expected.rho - parameters.predictedRhoMargin;
+            maxRho = expected.rho + parameters.predictedRhoMargin;
+        }
+        accumulator.accumulate(pixels, width, height,
+                expected.theta - parameters.predictedThetaMargin, expected.theta + parameters.predictedThetaMargin,
+                minRho, maxRho);
+
+        List<HoughLine> lines = new ArrayList<>();
+        accumulator.findLines(parameters.pixelVoterThreshold, lines);
+        tracking = !lines.isEmpty();
 
-        Imgproc.cvtColor(input, gray, Imgproc.COLOR_RGBA2GRAY);
-        Imgproc.Canny(gray, edges, 60, 60 * 3, 3, false);
+        return groupSimilarLines(lines);
+    }
+
+    private List<HoughLine> identifyLines(Mat edges) {
 
-        Mat houghLines = new Mat();
         Imgproc.HoughLines(
                 edges,
                 houghLines,
@@ -109,6 +163,12 @@ public class HoughLineDetector {
         public double thetaResolution = Math.toRadians(1); // 1 degree
         public double minTheta = 0;
         public double maxTheta = 180;
+
+        /**
+         * How far from a predicted line to search, in degrees and pixels.
+         */
+        public double predictedThetaMargin = 8;
+        public double predictedRhoMargin = 20;
     }
 
     public static class HoughLine {
@@ -122,6 +182,36 @@ public class HoughLineDetector {
             this.count = 1;
         }
 
+        /**
+         * Converts from a line through two points, in the (x,y) coordinates of the image.
+         */
+        public static HoughLine fromLine(Line line) {
+            // The normal is the direction of the line turned a quarter turn.
+            Position p1 = line.getP1();
+            Position p2 = line.getP2();
+            double theta = Math.atan2(p2.getX() - p1.getX(), p1.getY() - p2.getY());
+            double rho = p1.getX() * Math.cos(theta) + p1.getY() * Math.sin(theta);
+            return new HoughLine(rho, Math.toDegrees(theta));
+        }
+
+        /**
+         * Returns the same line, with the angle of its normal turned by half turns to between minTheta and minTheta +
+         * 180 degrees.
+         */
+        public HoughLine withThetaFrom(double minTheta) {
+            double theta = this.theta;
+            double rho = this.rho;
+            while (theta < minTheta) {
+                theta += 180;
+                rho = -rho;
+            }
+            while (theta >= minTheta + 180) {
+                theta -= 180;
+                rho = -rho;
+            }
+            return new HoughLine(rho, theta);
+        }
+
         /**
          * Convert to a line in terms of two points, in the (x,y) coordinates of the image.
          *
@@ -0,0 +1,120 @@
+package org.firstinspires.ftc.teamcode.util;
+
+/**
+ * A triple buffer that hands the latest frame from a producer thread to a consumer thread, dropping any frame the
+ * consumer didn't get to in time.
+ * <p>
+ * There are three slots.  The producer owns one to write the next frame into, the consumer owns one to read the frame
+ * it is processing, and the third holds the latest published frame.  Publishing and taking only swap slots under a
+ * short lock, so the producer never waits for the consumer to finish, and the consumer always gets the freshest frame.
+ * When the producer publishes again before the consumer has taken the previous frame, that frame is dropped and
+ * counted.
+ * <p>
+ * The slots are allocated once and reused, so once they have been sized for the first frame there are no further
+ * allocations.  Each slot carries the capture time and number of the frame in it.
+ */
+public class LatestFrameBuffer<T> {
+
+    private static final int WRITE = 0;
+    private static final int READY = 1;
+    private static final int READ = 2;
+
+    private final Object[] frames;
+    private final long[] captureTimes = new long[3];
+    private final int[] frameNumbers = new int[3];
+
+    /**
+     * The slot each role currently owns, indexed by WRITE, READY and READ.
+     */
+    private final int[] slots = {0, 1, 2};
+
+    private boolean hasReady;
+
+    private volatile int publishedCount;
+    private volatile int droppedCount;
+
+    public LatestFrameBuffer(T first, T second, T third) {
+        frames = new Object[]{first, second, third};
+    }
+
+    /**
+     * Returns the frame for the producer to write the next frame into.  It isn't seen by the consumer until published.
+     */
+    @SuppressWarnings("unchecked")
+    public T getWriteFrame() {
+        // Only the producer changes the write slot, so it doesn't need the lock.
+        return (T) frames[slots[WRITE]];
+    }
+
+    /**
+     * Publishes the frame that was written, replacing any frame the consumer hasn't taken yet.
+     *
+     * @param captureTime The System.nanoTime() at which the frame was captured.
+     * @param frameNumber The number of the frame.
+     */
+    public synchronized void publish(long captureTime, int frameNumber) {
+        int written = slots[WRITE];
+        captureTimes[written] = captureTime;
+        frameNumbers[written] = frameNumber;
+
+        if (hasReady) {
+            droppedCount++;
+        }
+        slots[WRITE] = slots[READY];
+        slots[READY] = written;
+        hasReady = true;
+        publishedCount++;
+        notifyAll();
+    }
+
+    /**
+     * Waits for a frame to be published that the consumer hasn't taken yet, and takes it.  The frame belongs to the
+     * consumer until the next call.
+     *
+     * @param timeoutMs How long to wait for a frame.
+     * @return The frame, or null if none was published in time.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T take(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMs * 1000000;
+        while (!hasReady) {
+            long remainingMs = (deadline - System.nanoTime()) / 1000000;
+            if (remainingMs <= 0) {
+                return null;
+            }
+            wait(remainingMs);
+        }
+
+        int ready = slots[READY];
+        slots[READY] = slots[READ];
+        slots[READ] = ready;
+        hasReady = false;
+        return (T) frames[ready];
+    }
+
+    /**
+     * Returns the System.nanoTime() at which the frame last taken by the consumer was captured.
+     */
+    public synchronized long getTakenCaptureTime() {
+        return captureTimes[slots[READ]];
+    }
+
+    /**
+     * Returns the number of the frame last taken by the consumer.
+     */
+    public synchronized int getTakenFrameNumber() {
+        return frameNumbers[slots[READ]];
+    }
+
+    public int getPublishedCount() {
+        return publishedCount;
+    }
+
+    /**
+     * Returns the number of frames that were replaced before the consumer took them.
+     */
+    public int getDroppedCount() {
+        return droppedCount;
+    }
+
+}
@@ -0,0 +1,121 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import android.annotation.SuppressLint;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a loop at a fixed rate, parking the thread for whatever is left of each period instead of spinning.
+ * <p>
+ * Call {@link #waitForNextLoop()} at the top of each iteration.  The first call returns immediately, and each
+ * following call returns at the start of the next period.  If an iteration takes longer than the period, it is counted
+ * as an overrun and the schedule restarts from the current time, rather than running a burst of iterations to catch
+ * up.
+ */
+public class LoopScheduler {
+
+    private long periodNanos;
+
+    /**
+     * The time the next iteration should start, or zero if the loop hasn't started yet.
+     */
+    private long nextLoopStart;
+
+    /**
+     * The time the previous iteration actually started.
+     */
+    private long previousLoopStart;
+
+    /**
+     * The time between the starts of consecutive iterations.
+     */
+    private TimingHistogram periodTiming = new TimingHistogram();
+
+    /**
+     * How late each iteration started compared to its scheduled time.
+     */
+    private TimingHistogram jitterTiming = new TimingHistogram();
+
+    private long loopCount;
+    private long overrunCount;
+
+    public LoopScheduler(long periodMs) {
+        setPeriodMs(periodMs);
+    }
+
+    public void setPeriodMs(long periodMs) {
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMs);
+    }
+
+    /**
+     * Waits until the start of the next period.
+     */
+    public void waitForNextLoop() {
+        long now = System.nanoTime();
+        boolean overrun = false;
+
+        if (nextLoopStart == 0) {
+            nextLoopStart = now;
+        } else if (now > nextLoopStart) {
+            // The last iteration took longer than the period.
+            overrun = true;
+            overrunCount++;
+        } else {
+            parkUntil(nextLoopStart);
+            now = System.nanoTime();
+        }
+
+        if (previousLoopStart != 0) {
+            periodTiming.record(now - previousLoopStart);
+            jitterTiming.record(now - nextLoopStart);
+        }
+        loopCount++;
+        previousLoopStart = now;
+
+        // Schedule the next iteration.  After an overrun the schedule is restarted from now.
+        nextLoopStart = (overrun ? now : nextLoopStart) + periodNanos;
+    }
+
+    /**
+     * Starts the schedule over, e.g. after the loop has not been run for a while.  The next call to
+     * {@link #waitForNextLoop()} will return immediately, and is not counted as an overrun.
+     */
+    public void restart() {
+        nextLoopStart = 0;
+        previousLoopStart = 0;
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    public long getLoopCount() {
+        return loopCount;
+    }
+
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    public TimingHistogram getPeriodTiming() {
+        return periodTiming;
+    }
+
+    public TimingHistogram getJitterTiming() {
+        return jitterTiming;
+    }
+
+    @SuppressLint("DefaultLocale")
+    public String toString() {
+        return String.format("Period [%s], Jitter [%s], Overruns [%d / %d]",
+                periodTiming, jitterTiming, overrunCount, loopCount);
+    }
+
+}
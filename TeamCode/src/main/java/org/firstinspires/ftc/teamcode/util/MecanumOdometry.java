@@ -0,0 +1,194 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.firstinspires.ftc.teamcode.util.DistanceUtil.inchesToTiles;
+
+import org.firstinspires.ftc.teamcode.RobotDescriptor;
+import org.firstinspires.ftc.teamcode.geometry.Heading;
+import org.firstinspires.ftc.teamcode.geometry.Vector2;
+import org.firstinspires.ftc.teamcode.util.MecanumUtil.MotorPowers;
+
+/**
+ * Integrates the movement of a mecanum drive train from its wheel encoders.
+ * <p>
+ * The kinematics matrix converts the change in each wheel's ticks into the movement of the robot in robot space:
+ * strafe to the right and forward in tiles, and rotation counter-clockwise in radians.  It is built once from the
+ * wheel size and wheel positions in the {@link RobotDescriptor}.
+ * <p>
+ * Rather than treating each step as a straight line at the starting heading, the step is integrated along an arc
+ * using the SE(2) exponential map, with the heading change measured by the IMU over the same interval.  This keeps
+ * the position accurate when the robot is turning and driving at the same time, even if the loop runs slowly.
+ * <p>
+ * The sideways slip of the wheels is corrected with a {@link SlipModel}, built once from the robot descriptor and
+ * replaced by the calibrated model when there is one.
+ */
+public class MecanumOdometry {
+
+    public static final int STRAFE = 0;
+    public static final int FORWARD = 1;
+    public static final int ROTATION = 2;
+
+    private RobotDescriptor robotDescriptor;
+
+    /**
+     * Converts the wheel tick deltas (back left, back right, front left, front right) to the robot space movement.
+     */
+    private double[][] kinematics;
+
+    private SlipModel slipModel;
+
+    private double[] twist = new double[3];
+
+    /**
+     * The robot space movement since the last reset, without strafe correction.
+     */
+    private double[] totalMovement = new double[3];
+
+    public MecanumOdometry(RobotDescriptor robotDescriptor) {
+        this.robotDescriptor = robotDescriptor;
+        this.kinematics = calculateKinematicsMatrix(robotDescriptor);
+        this.slipModel = SlipModel.fromEmpiricalStrafeCorrections(robotDescriptor.empiricalStrafeCorrections);
+    }
+
+    /**
+     * Builds the forward kinematics matrix for the drive train.  Each wheel's rollers are at 45 degrees, so each wheel
+     * moves the robot diagonally, and the four diagonals add up to forward, strafe and rotation.
+     */
+    static double[][] calculateKinematicsMatrix(RobotDescriptor robotDescriptor) {
+        double tilesPerTick = MecanumUtil.ticksToTiles(robotDescriptor, 1);
+
+        // The lever arm that converts wheel movement into rotation.
+        double radius = inchesToTiles(robotDescriptor.driveTrackWidthInInches / 2 +
+                robotDescriptor.driveWheelBaseInInches / 2);
+
+        double linear = tilesPerTick / 4;
+        double angular = tilesPerTick / (4 * radius);
+        return new double[][]{
+                // back left, back right, front left, front right
+                {-linear, linear, linear, -linear},
+                {linear, linear, linear, linear},
+                {-angular, angular, -angular, angular}
+        };
+    }
+
+    public double[][] getKinematicsMatrix() {
+        return kinematics;
+    }
+
+    public SlipModel getSlipModel() {
+        return slipModel;
+    }
+
+    public void setSlipModel(SlipModel slipModel) {
+        this.slipModel = slipModel;
+    }
+
+    /**
+     * Returns the strafe correction for the given motor powers, or 1 if there are none or correction is disabled.
+     */
+    public double getStrafeCorrection(MotorPowers motorPowers) {
+        if (motorPowers == null || !robotDescriptor.enableEmpiricalStrafeCorrection) {
+            return 1.0;
+        }
+        return slipModel.getStrafeCorrection(motorPowers);
+    }
+
+    /**
+     * Returns the robot space movement, without strafe correction, accumulated by
+     * {@link #calculatePositionOffset} since the last reset.  This is what the slip model calibration compares against
+     * the actual movement.
+     */
+    public double[] getTotalMovement() {
+        return totalMovement;
+    }
+
+    public void resetTotalMovement() {
+        for (int i = 0; i < totalMovement.length; i++) {
+            totalMovement[i] = 0;
+        }
+    }
+
+    /**
+     * Calculates the robot space movement for the given wheel tick deltas.  The same applies to wheel velocities in
+     * ticks / sec, giving the robot velocity in tiles / sec and radians / sec.
+     *
+     * @param twist Receives the strafe and forward movement in tiles, and the rotation in radians.
+     */
+    public void calculateRobotMovement(double deltaBackLeft, double deltaBackRight,
+                                       double deltaFrontLeft, double deltaFrontRight,
+                                       double[] twist) {
+        for (int i = 0; i < 3; i++) {
+            twist[i] = kinematics[i][0] * deltaBackLeft +
+                    kinematics[i][1] * deltaBackRight +
+                    kinematics[i][2] * deltaFrontLeft +
+                    kinematics[i][3] * deltaFrontRight;
+        }
+    }
+
+    /**
+     * Calculates the robot space velocity for the given wheel velocities in ticks / sec, including the strafe
+     * correction.
+     *
+     * @param velocity Receives the strafe and forward velocity in tiles / sec, and the rotation in radians / sec.
+     */
+    public void calculateRobotVelocity(double backLeft, double backRight, double frontLeft, double frontRight,
+                                       MotorPowers motorPowers, double[] velocity) {
+        calculateRobotMovement(backLeft, backRight, frontLeft, frontRight, velocity);
+        velocity[STRAFE] *= getStrafeCorrection(motorPowers);
+    }
+
+    /**
+     * Calculates the offset in field position for the given wheel tick deltas.
+     *
+     * @param heading       The heading at the start of the step.
+     * @param headingChange The change in heading over the step in degrees, as measured by the IMU.
+     * @param motorPowers   The motor powers applied over the step, used for the strafe correction.
+     */
+    public Vector2 calculatePositionOffset(
+            int deltaBackLeft,
+            int deltaBackRight,
+            int deltaFrontLeft,
+            int deltaFrontRight,
+            Heading heading,
+            double headingChange,
+            MotorPowers motorPowers
+    ) {
+        calculateRobotMovement(deltaBackLeft, deltaBackRight, deltaFrontLeft, deltaFrontRight, twist);
+        for (int i = 0; i < 3; i++) {
+            totalMovement[i] += twist[i];
+        }
+
+        // Apply the strafe correction to the lateral movement of the robot, while leaving the forward and backward
+        // movement unaffected.
+        double strafe = twist[STRAFE] * getStrafeCorrection(motorPowers);
+        double forward = twist[FORWARD];
+
+        // Follow the arc the robot drove along, rather than a straight line at the starting heading.
+        Vector2 offset = exp(strafe, forward, Math.toRadians(headingChange));
+
+        // Translate the movement from robot space into field space coordinates by rotating by the robot's heading.
+        return offset.rotate(heading.getValue() - 90);
+    }
+
+    /**
+     * Returns the robot space offset at the end of a step that moves along a constant curvature arc, with the given
+     * straight line movement and rotation.
+     */
+    static Vector2 exp(double strafe, double forward, double rotation) {
+        double sinOverRotation;
+        double oneMinusCosOverRotation;
+        if (Math.abs(rotation) < 1e-6) {
+            // Use the Taylor series near zero to avoid dividing by zero.
+            sinOverRotation = 1 - rotation * rotation / 6;
+            oneMinusCosOverRotation = rotation / 2;
+        } else {
+            sinOverRotation = Math.sin(rotation) / rotation;
+            oneMinusCosOverRotation = (1 - Math.cos(rotation)) / rotation;
+        }
+
+        return new Vector2(
+                sinOverRotation * strafe - oneMinusCosOverRotation * forward,
+                oneMinusCosOverRotation * strafe + sinOverRotation * forward
+        );
+    }
+
+}
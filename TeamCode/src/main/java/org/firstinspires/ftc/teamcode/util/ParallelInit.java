@@ -0,0 +1,221 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import android.annotation.SuppressLint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the slow parts of initialization at the same time, instead of one after another.
+ * <p>
+ * Each step either runs on a background thread ({@link #run(String, Runnable)}), or is something that already
+ * happens asynchronously and completes itself from a callback ({@link #begin(String)}).  Once all the steps have been
+ * added, {@link #finish()} returns a single future that is done when every step has completed, and fails with the
+ * first error if any step failed.  The time each step took is kept for {@link #getReport()}.
+ */
+public class ParallelInit {
+
+    private ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private int threadCount;
+
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Init-" + ++threadCount);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private List<Step> steps = new ArrayList<>();
+
+    private boolean finished;
+
+    private int pendingCount;
+
+    private Throwable failure;
+
+    private Readiness readiness = new Readiness();
+
+    /**
+     * Runs the given step on a background thread.
+     */
+    public void run(String name, final Runnable task) {
+        final Step step = begin(name);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                    step.complete();
+                } catch (Throwable e) {
+                    step.fail(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Starts timing a step that completes asynchronously.  The caller must call {@link Step#complete()} or
+     * {@link Step#fail(Throwable)} when it is done.
+     */
+    public synchronized Step begin(String name) {
+        if (finished) {
+            throw new IllegalStateException("Init step added after finish: " + name);
+        }
+        Step step = new Step(name);
+        steps.add(step);
+        pendingCount++;
+        return step;
+    }
+
+    /**
+     * Indicates that no more steps will be added, and returns the future that is done when all of them are.
+     */
+    public synchronized Future<Void> finish() {
+        finished = true;
+        executor.shutdown();
+        notifyAll();
+        return readiness;
+    }
+
+    public Future<Void> getReadiness() {
+        return readiness;
+    }
+
+    /**
+     * Returns a line for each step, with how long it took or how long it has been running so far.
+     */
+    public synchronized List<String> getReport() {
+        List<String> lines = new ArrayList<>();
+        for (Step step : steps) {
+            lines.add(step.toString());
+        }
+        return lines;
+    }
+
+    private synchronized void onStepDone(Throwable error) {
+        pendingCount--;
+        if (error != null && failure == null) {
+            failure = error;
+        }
+        notifyAll();
+    }
+
+    private synchronized boolean isReady() {
+        return finished && (pendingCount == 0 || failure != null);
+    }
+
+    /**
+     * A single step of the initialization.
+     */
+    public class Step {
+
+        private String name;
+
+        private long startNanos = System.nanoTime();
+
+        private long durationNanos;
+
+        private boolean done;
+
+        private Throwable error;
+
+        private Step(String name) {
+            this.name = name;
+        }
+
+        public void complete() {
+            done(null);
+        }
+
+        public void fail(Throwable error) {
+            done(error);
+        }
+
+        private void done(Throwable error) {
+            synchronized (ParallelInit.this) {
+                if (done) {
+                    return;
+                }
+                this.done = true;
+                this.error = error;
+                this.durationNanos = System.nanoTime() - startNanos;
+            }
+            onStepDone(error);
+        }
+
+        @SuppressLint("DefaultLocale")
+        public String toString() {
+            synchronized (ParallelInit.this) {
+                if (!done) {
+                    return String.format("%s: running (%.0f ms)", name, (System.nanoTime() - startNanos) / 1e6);
+                }
+                return String.format("%s: %s (%.0f ms)", name, error == null ? "done" : "failed - " + error,
+                        durationNanos / 1e6);
+            }
+        }
+    }
+
+    /**
+     * The future that is done when all the steps are.  It can't be cancelled, since the steps are things like hardware
+     * setup that can't be safely abandoned part way.
+     */
+    private class Readiness implements Future<Void> {
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return isReady();
+        }
+
+        @Override
+        public Void get() throws InterruptedException, ExecutionException {
+            synchronized (ParallelInit.this) {
+                while (!isReady()) {
+                    ParallelInit.this.wait();
+                }
+                return result();
+            }
+        }
+
+        @Override
+        public Void get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+                TimeoutException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (ParallelInit.this) {
+                while (!isReady()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new TimeoutException();
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(ParallelInit.this, remaining);
+                }
+                return result();
+            }
+        }
+
+        private Void result() throws ExecutionException {
+            if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,394 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import android.annotation.SuppressLint;
+
+import org.firstinspires.ftc.teamcode.RobotDescriptor;
+import org.firstinspires.ftc.teamcode.geometry.Heading;
+import org.firstinspires.ftc.teamcode.geometry.Position;
+import org.firstinspires.ftc.teamcode.geometry.Vector2;
+
+/**
+ * Estimates the robot's pose with an extended Kalman filter over (x, y, heading, vx, vy, angular velocity, gyro bias).
+ * <p>
+ * The encoders and the IMU drive the prediction step: each iteration the position moves by the encoder offset and
+ * the heading by the IMU change less the estimated gyro bias, and the uncertainty grows with the distance travelled
+ * and the time elapsed.  The gyro bias is the rate at which the IMU heading drifts.  It isn't measured directly, but
+ * each heading measurement also corrects it through their covariance, so a steady drift is learned over time and
+ * then removed between measurements.  Vision
+ * observations are then folded in as measurement updates, weighted by how uncertain the estimate has become, so a
+ * single noisy frame only nudges the pose while a run of consistent frames pulls it all the way in.
+ * <p>
+ * Positions are in tiles, headings in degrees and times in seconds.  The tile edge measurements each observe a single
+ * state variable directly, so those updates are done one scalar at a time without any matrix inversion.  An AprilTag
+ * fix observes the position and heading together, with correlated errors, so it's a joint update that inverts a 3 x 3
+ * matrix.  Neither allocates anything.
+ */
+public class PoseEstimator {
+
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int HEADING = 2;
+    public static final int VX = 3;
+    public static final int VY = 4;
+    public static final int ANGULAR_VELOCITY = 5;
+    public static final int GYRO_BIAS = 6;
+
+    private static final int SIZE = 7;
+
+    private RobotDescriptor robotDescriptor;
+
+    private double[] state = new double[SIZE];
+
+    private double[][] covariance = new double[SIZE][SIZE];
+
+    // Scratch space for the prediction and update steps.
+    private double[][] jacobian = new double[SIZE][SIZE];
+    private double[][] product = new double[SIZE][SIZE];
+    private double[] gain = new double[SIZE];
+    private double[] row = new double[SIZE];
+    private double[] poseInnovation = new double[3];
+    private double[][] poseInnovationCovariance = new double[3][3];
+    private double[][] poseInnovationInverse = new double[3][3];
+    private double[][] poseGain = new double[SIZE][3];
+    private double[][] poseRows = new double[3][SIZE];
+
+    private int acceptedCount;
+    private int rejectedCount;
+
+    public PoseEstimator(RobotDescriptor robotDescriptor) {
+        this.robotDescriptor = robotDescriptor;
+        resetCovariance(GYRO_BIAS, robotDescriptor.imuInitialBiasNoise);
+    }
+
+    /**
+     * Sets the position, and resets its uncertainty to the initial position noise.
+     */
+    public void setPosition(Position position) {
+        state[X] = position.getX();
+        state[Y] = position.getY();
+        state[VX] = 0;
+        state[VY] = 0;
+        resetCovariance(X, robotDescriptor.initialPositionNoise);
+        resetCovariance(Y, robotDescriptor.initialPositionNoise);
+        resetCovariance(VX, robotDescriptor.odometryVelocityNoise);
+        resetCovariance(VY, robotDescriptor.odometryVelocityNoise);
+    }
+
+    /**
+     * Sets the heading, and resets its uncertainty to the initial heading noise.
+     */
+    public void setHeading(Heading heading) {
+        state[HEADING] = heading.getValue();
+        state[ANGULAR_VELOCITY] = 0;
+        resetCovariance(HEADING, robotDescriptor.initialHeadingNoise);
+        resetCovariance(ANGULAR_VELOCITY, 0);
+    }
+
+    /**
+     * Sets one of the position or heading variables, and resets its uncertainty, e.g. when the estimate turns out to
+     * have drifted into the wrong tile.
+     */
+    public void set(int index, double value, double standardDeviation) {
+        state[index] = index == HEADING ? normalize(value) : value;
+        resetCovariance(index, standardDeviation);
+    }
+
+    private void resetCovariance(int index, double standardDeviation) {
+        for (int i = 0; i < SIZE; i++) {
+            covariance[index][i] = 0;
+            covariance[i][index] = 0;
+        }
+        covariance[index][index] = standardDeviation * standardDeviation;
+    }
+
+    /**
+     * Moves the estimate forward by one iteration.
+     *
+     * @param positionOffset The field space offset measured by the encoders, at the current estimated heading.
+     * @param headingChange  The change in heading measured by the IMU in degrees, including its drift.
+     * @param elapsed        The time since the previous prediction in seconds.
+     */
+    public void predict(Vector2 positionOffset, double headingChange, double elapsed) {
+        double dx = positionOffset.getX();
+        double dy = positionOffset.getY();
+
+        // The encoder offset is rotated into field space by the estimated heading, so a heading error turns into a
+        // position error sideways to the direction of travel.
+        double dxdHeading = -dy * Math.PI / 180;
+        double dydHeading = dx * Math.PI / 180;
+
+        double elapsedTime = Math.max(elapsed, 0);
+        double correctedHeadingChange = headingChange - state[GYRO_BIAS] * elapsedTime;
+
+        state[X] += dx;
+        state[Y] += dy;
+        state[HEADING] = normalize(state[HEADING] + correctedHeadingChange);
+
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                jacobian[i][j] = 0;
+            }
+        }
+        jacobian[X][X] = 1;
+        jacobian[X][HEADING] = dxdHeading;
+        jacobian[Y][Y] = 1;
+        jacobian[Y][HEADING] = dydHeading;
+        jacobian[HEADING][HEADING] = 1;
+        jacobian[HEADING][GYRO_BIAS] = -elapsedTime;
+        jacobian[GYRO_BIAS][GYRO_BIAS] = 1;
+
+        if (elapsed > 0) {
+            state[VX] = dx / elapsed;
+            state[VY] = dy / elapsed;
+            state[ANGULAR_VELOCITY] = correctedHeadingChange / elapsed;
+            jacobian[VX][HEADING] = dxdHeading / elapsed;
+            jacobian[VY][HEADING] = dydHeading / elapsed;
+            jacobian[ANGULAR_VELOCITY][GYRO_BIAS] = -1;
+        } else {
+            jacobian[VX][VX] = 1;
+            jacobian[VY][VY] = 1;
+            jacobian[ANGULAR_VELOCITY][ANGULAR_VELOCITY] = 1;
+        }
+
+        // covariance = F * covariance * F^T + Q
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                double sum = 0;
+                for (int k = 0; k < SIZE; k++) {
+                    sum += jacobian[i][k] * covariance[k][j];
+                }
+                product[i][j] = sum;
+            }
+        }
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                double sum = 0;
+                for (int k = 0; k < SIZE; k++) {
+                    sum += product[i][k] * jacobian[j][k];
+                }
+                covariance[i][j] = sum;
+            }
+        }
+
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        double positionNoise = square(robotDescriptor.odometryNoisePerTile) * distance;
+        double headingNoise = square(robotDescriptor.imuHeadingNoisePerSecond) * elapsedTime;
+        covariance[X][X] += positionNoise;
+        covariance[Y][Y] += positionNoise;
+        covariance[HEADING][HEADING] += headingNoise;
+        covariance[GYRO_BIAS][GYRO_BIAS] += square(robotDescriptor.imuBiasNoisePerSecond) * elapsedTime;
+
+        if (elapsed > 0) {
+            covariance[VX][VX] += square(robotDescriptor.odometryVelocityNoise);
+            covariance[VY][VY] += square(robotDescriptor.odometryVelocityNoise);
+            covariance[ANGULAR_VELOCITY][ANGULAR_VELOCITY] += headingNoise / (elapsed * elapsed);
+        }
+    }
+
+    /**
+     * Updates the estimate with a direct measurement of one of the position or heading variables.
+     *
+     * @param index              The state variable that was measured (X, Y or HEADING).
+     * @param value              The measured value.
+     * @param standardDeviation  The standard deviation of the measurement.
+     * @param rejectionThreshold Measurements more than this many standard deviations from the estimate are rejected.
+     * @return Whether the measurement was accepted.
+     */
+    public boolean update(int index, double value, double standardDeviation, double rejectionThreshold) {
+        double innovation = value - state[index];
+        if (index == HEADING) {
+            innovation = normalize(innovation);
+            if (innovation > 180) {
+                innovation -= 360;
+            }
+        }
+
+        double innovationVariance = covariance[index][index] + square(standardDeviation);
+        if (innovation * innovation > square(rejectionThreshold) * innovationVariance) {
+            rejectedCount++;
+            return false;
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            gain[i] = covariance[i][index] / innovationVariance;
+            row[i] = covariance[index][i];
+        }
+        for (int i = 0; i < SIZE; i++) {
+            state[i] += gain[i] * innovation;
+            for (int j = 0; j < SIZE; j++) {
+                covariance[i][j] -= gain[i] * row[j];
+            }
+        }
+        state[HEADING] = normalize(state[HEADING]);
+
+        acceptedCount++;
+        return true;
+    }
+
+    /**
+     * Updates the estimate with a measurement of the whole pose, whose errors may be correlated, such as an AprilTag
+     * fix.
+     *
+     * @param position              The measured position.
+     * @param heading               The measured heading.
+     * @param measurementCovariance The 3 x 3 covariance of the measured x, y and heading.
+     * @param rejectionThreshold    Measurements more than this many standard deviations (the Mahalanobis distance)
+     *                              from the estimate are rejected.
+     * @return Whether the measurement was accepted.
+     */
+    public boolean update(Position position, Heading heading, double[][] measurementCovariance,
+                          double rejectionThreshold) {
+        poseInnovation[X] = position.getX() - state[X];
+        poseInnovation[Y] = position.getY() - state[Y];
+        poseInnovation[HEADING] = normalize(heading.getValue() - state[HEADING]);
+        if (poseInnovation[HEADING] > 180) {
+            poseInnovation[HEADING] -= 360;
+        }
+
+        // X, Y and HEADING are the first three state variables, so the measurement picks out the top left corner of
+        // the covariance.
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                poseInnovationCovariance[i][j] = covariance[i][j] + measurementCovariance[i][j];
+            }
+        }
+        if (!invert3(poseInnovationCovariance, poseInnovationInverse)) {
+            rejectedCount++;
+            return false;
+        }
+
+        double distanceSquared = 0;
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                distanceSquared += poseInnovation[i] * poseInnovationInverse[i][j] * poseInnovation[j];
+            }
+        }
+        if (distanceSquared > square(rejectionThreshold)) {
+            rejectedCount++;
+            return false;
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < 3; j++) {
+                double sum = 0;
+                for (int k = 0; k < 3; k++) {
+                    sum += covariance[i][k] * poseInnovationInverse[k][j];
+                }
+                poseGain[i][j] = sum;
+            }
+        }
+        for (int k = 0; k < 3; k++) {
+            for (int j = 0; j < SIZE; j++) {
+                poseRows[k][j] = covariance[k][j];
+            }
+        }
+        for (int i = 0; i < SIZE; i++) {
+            for (int k = 0; k < 3; k++) {
+                state[i] += poseGain[i][k] * poseInnovation[k];
+            }
+            for (int j = 0; j < SIZE; j++) {
+                double sum = 0;
+                for (int k = 0; k < 3; k++) {
+                    sum += poseGain[i][k] * poseRows[k][j];
+                }
+                covariance[i][j] -= sum;
+            }
+        }
+        state[HEADING] = normalize(state[HEADING]);
+
+        acceptedCount++;
+        return true;
+    }
+
+    /**
+     * Inverts a 3 x 3 matrix using its adjugate, returning false if it's singular.
+     */
+    private static boolean invert3(double[][] m, double[][] result) {
+        double c00 = m[1][1] * m[2][2] - m[1][2] * m[2][1];
+        double c01 = m[1][2] * m[2][0] - m[1][0] * m[2][2];
+        double c02 = m[1][0] * m[2][1] - m[1][1] * m[2][0];
+        double determinant = m[0][0] * c00 + m[0][1] * c01 + m[0][2] * c02;
+        if (Math.abs(determinant) < 1e-12) {
+            return false;
+        }
+
+        result[0][0] = c00 / determinant;
+        result[1][0] = c01 / determinant;
+        result[2][0] = c02 / determinant;
+        result[0][1] = (m[0][2] * m[2][1] - m[0][1] * m[2][2]) / determinant;
+        result[1][1] = (m[0][0] * m[2][2] - m[0][2] * m[2][0]) / determinant;
+        result[2][1] = (m[0][1] * m[2][0] - m[0][0] * m[2][1]) / determinant;
+        result[0][2] = (m[0][1] * m[1][2] - m[0][2] * m[1][1]) / determinant;
+        result[1][2] = (m[0][2] * m[1][0] - m[0][0] * m[1][2]) / determinant;
+        result[2][2] = (m[0][0] * m[1][1] - m[0][1] * m[1][0]) / determinant;
+        return true;
+    }
+
+    public Position getPosition() {
+        return new Position(state[X], state[Y]);
+    }
+
+    public Heading getHeading() {
+        return new Heading(state[HEADING]);
+    }
+
+    /**
+     * Returns the field space velocity in tiles / sec.
+     */
+    public Vector2 getVelocity() {
+        return new Vector2(state[VX], state[VY]);
+    }
+
+    /**
+     * Returns the angular velocity in degrees / sec.
+     */
+    public double getAngularVelocity() {
+        return state[ANGULAR_VELOCITY];
+    }
+
+    /**
+     * Returns the estimated rate at which the IMU heading drifts, in degrees / sec counter-clockwise.
+     */
+    public double getGyroBias() {
+        return state[GYRO_BIAS];
+    }
+
+    /**
+     * Returns the standard deviation of the given state variable.
+     */
+    public double getStandardDeviation(int index) {
+        return Math.sqrt(Math.max(covariance[index][index], 0));
+    }
+
+    public double getCovariance(int i, int j) {
+        return covariance[i][j];
+    }
+
+    public int getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    private static double normalize(double angle) {
+        double result = angle % 360;
+        if (result < 0) {
+            result += 360;
+        }
+        return result;
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    @SuppressLint("DefaultLocale")
+    public String toString() {
+        return String.format("Position SD %.3f, Heading SD %.1f, Gyro Bias %.3f, Accepted %d, Rejected %d",
+                Math.max(getStandardDeviation(X), getStandardDeviation(Y)), getStandardDeviation(HEADING),
+                state[GYRO_BIAS], acceptedCount, rejectedCount);
+    }
+
+}
@@ -0,0 +1,182 @@
+package org.firstinspires.ftc.teamcode.util;
+
+/**
+ * A fixed size history of the robot's recent poses, and the odometry movement that led to each one.
+ * <p>
+ * Camera frames are only processed some time after they are captured, by which point the robot may have moved and
+ * turned.  With this history an observation can be interpreted at the pose the robot had when the frame was captured,
+ * and then carried forward to now using the odometry movement recorded since.
+ * <p>
+ * The entries are kept in parallel primitive arrays used as a ring buffer, so recording a pose in every iteration of
+ * the loop doesn't allocate anything.  Positions are in tiles, headings in degrees and times from System.nanoTime().
+ */
+public class PoseHistory {
+
+    /**
+     * The number of values in a pose: x, y and heading.
+     */
+    public static final int POSE_SIZE = 3;
+
+    private long[] times;
+    private double[] x;
+    private double[] y;
+    private double[] heading;
+    private double[] deltaX;
+    private double[] deltaY;
+    private double[] deltaHeading;
+
+    /**
+     * The index of the oldest entry, and the number of entries.
+     */
+    private int start;
+    private int count;
+
+    public PoseHistory(int capacity) {
+        times = new long[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        heading = new double[capacity];
+        deltaX = new double[capacity];
+        deltaY = new double[capacity];
+        deltaHeading = new double[capacity];
+    }
+
+    /**
+     * Records the pose at the given time, along with the odometry movement since the previous entry.  Entries must
+     * be recorded in time order.  Once the history is full, the oldest entry is overwritten.
+     */
+    public void record(long timeNanos, double x, double y, double heading,
+                       double deltaX, double deltaY, double deltaHeading) {
+        int index;
+        if (count < times.length) {
+            index = (start + count) % times.length;
+            count++;
+        } else {
+            index = start;
+            start = (start + 1) % times.length;
+        }
+
+        this.times[index] = timeNanos;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.heading[index] = heading;
+        this.deltaX[index] = deltaX;
+        this.deltaY[index] = deltaY;
+        this.deltaHeading[index] = deltaHeading;
+    }
+
+    /**
+     * Discards all the entries, e.g. when the position is set directly.
+     */
+    public void clear() {
+        start = 0;
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Finds the pose at the given time, interpolating between the entries either side of it.  Times after the newest
+     * entry give the newest pose.
+     *
+     * @param timeNanos The time of the pose.
+     * @param pose      Receives the x, y and heading.
+     * @return False if the time is before the oldest entry, in which case the pose is unknown.
+     */
+    public boolean getPoseAt(long timeNanos, double[] pose) {
+        if (count == 0 || timeNanos < times[start]) {
+            return false;
+        }
+
+        int after = findFirstAfter(timeNanos);
+        if (after < 0) {
+            int newest = indexOf(count - 1);
+            pose[0] = x[newest];
+            pose[1] = y[newest];
+            pose[2] = heading[newest];
+            return true;
+        }
+
+        // The oldest entry is never after the time, so there is always an entry before this one.
+        int next = indexOf(after);
+        int previous = indexOf(after - 1);
+        double fraction = getFraction(timeNanos, previous, next);
+
+        pose[0] = x[previous] + (x[next] - x[previous]) * fraction;
+        pose[1] = y[previous] + (y[next] - y[previous]) * fraction;
+        pose[2] = normalize(heading[previous] + unwrap(heading[next] - heading[previous]) * fraction);
+        return true;
+    }
+
+    /**
+     * Adds up the odometry movement recorded after the given time.
+     *
+     * @param timeNanos The time to start from.
+     * @param motion    Receives the change in x, y and heading.
+     */
+    public void getMotionSince(long timeNanos, double[] motion) {
+        motion[0] = 0;
+        motion[1] = 0;
+        motion[2] = 0;
+
+        int after = findFirstAfter(timeNanos);
+        if (after < 0) {
+            return;
+        }
+
+        // Only part of the movement leading up to the first entry happened after the time.
+        int first = indexOf(after);
+        double fraction = after > 0 ? 1 - getFraction(timeNanos, indexOf(after - 1), first) : 1;
+        motion[0] = deltaX[first] * fraction;
+        motion[1] = deltaY[first] * fraction;
+        motion[2] = deltaHeading[first] * fraction;
+
+        for (int i = after + 1; i < count; i++) {
+            int index = indexOf(i);
+            motion[0] += deltaX[index];
+            motion[1] += deltaY[index];
+            motion[2] += deltaHeading[index];
+        }
+    }
+
+    /**
+     * Returns the position (from oldest to newest) of the first entry after the given time, or -1 if there isn't one.
+     */
+    private int findFirstAfter(long timeNanos) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[indexOf(middle)] <= timeNanos) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < count ? low : -1;
+    }
+
+    private int indexOf(int position) {
+        return (start + position) % times.length;
+    }
+
+    private double getFraction(long timeNanos, int previous, int next) {
+        long span = times[next] - times[previous];
+        return span > 0 ? (double) (timeNanos - times[previous]) / span : 1;
+    }
+
+    private static double unwrap(double deltaAngle) {
+        return deltaAngle - 360 * Math.round(deltaAngle / 360);
+    }
+
+    private static double normalize(double angle) {
+        double result = angle % 360;
+        if (result < 0) {
+            result += 360;
+        }
+        return result;
+    }
+
+}
@@ -1,7 +1,5 @@
 package org.firstinspires.ftc.teamcode.util;
 
-import static org.firstinspires.ftc.teamcode.util.TelemetryHolder.telemetry;
-
 import org.firstinspires.ftc.teamcode.RobotDescriptor;
 import org.firstinspires.ftc.teamcode.geometry.Heading;
 import org.firstinspires.ftc.teamcode.geometry.Position;
@@ -9,6 +7,20 @@ import org.firstinspires.ftc.teamcode.geometry.Vector2;
 
 public class RampUtil {
 
+    /**
+     * The most recently calculated values, kept so they can be shown in the telemetry when it is next transmitted.
+     */
+    private static double lastRampingFactor;
+    private static double lastRampingTurnFactor;
+
+    public static double getLastRampingFactor() {
+        return lastRampingFactor;
+    }
+
+    public static double getLastRampingTurnFactor() {
+        return lastRampingTurnFactor;
+    }
+
     /**
      * Returns a scalar value from range (0, 1) that indicates how the power applied to motors
      * should be scaled to account for ramping up and down.
@@ -19,6 +31,23 @@ public class RampUtil {
             Vector2 velocity,
             double speedFactor
     ) {
+        // Calculate the distance to the destination in tiles.
+        double distance = targetPosition.minus(position).magnitude();
+
+        return calculateRampingFactor(robotDescriptor, distance, velocity, speedFactor);
+    }
+
+    /**
+     * Returns a scalar value from range (0, 1) that indicates how the power applied to motors
+     * should be scaled to account for ramping up and down, given the distance in tiles left before the robot needs to
+     * stop.
+     */
+    public static double calculateRampingFactor(
+            RobotDescriptor robotDescriptor,
+            double distance,
+            Vector2 velocity,
+            double speedFactor
+    ) {
 
         // Start with full power
         double power = 1.0;
@@ -26,9 +55,6 @@ public class RampUtil {
         // Speed in tiles per second is the magnitude of the veloctiy vector.
         double speed = velocity.magnitude();
 
-        // Calculate the distance to the destination in tiles.
-        double distance = targetPosition.minus(position).magnitude();
-
         double rampDownDistance = robotDescriptor.rampingDownBeginDistance * speedFactor;
         double rampUpEndSpeed = robotDescriptor.rampingUpEndSpeed;
 
@@ -57,9 +83,7 @@ public class RampUtil {
             power *= speedFactor;
         }
 
-        if (telemetry != null) {
-            telemetry.addData("Ramping Power", power);
-        }
+        lastRampingFactor = power;
 
         return power;
     }
@@ -78,6 +102,7 @@ public class RampUtil {
         double delta = targetHeading.delta(heading);
 
         if (Math.abs(delta) < robotDescriptor.rotationTargetHeadingReachedThreshold) {
+            lastRampingTurnFactor = 0.0;
             return 0.0;
 
         } else {
@@ -96,9 +121,7 @@ public class RampUtil {
             // Add back in direction.
             turnFactor *= Math.signum(delta);
 
-            if (telemetry != null) {
-                telemetry.addData("Turn factor", turnFactor);
-            }
+            lastRampingTurnFactor = turnFactor;
 
             return turnFactor;
         }
@@ -0,0 +1,289 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import org.firstinspires.ftc.teamcode.RobotDescriptor.EmpiricalStrafeCorrection;
+import org.firstinspires.ftc.teamcode.util.MecanumUtil.MotorPowers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A model of how much mecanum wheels slip sideways, as a table of strafe corrections indexed by the commanded
+ * direction of travel and the motor power.
+ * <p>
+ * The direction is the angle between the commanded movement and straight ahead, from 0 (forward or backward) to 90
+ * degrees (strafing left or right), since the wheels slip the same either way.  The power is the average absolute
+ * motor power.  Both axes are evenly spaced, so looking up a correction is a bilinear interpolation between the four
+ * surrounding entries, without any searching or sorting.
+ * <p>
+ * The table is built once, either from the {@link EmpiricalStrafeCorrection}s in the robot descriptor, or from the file
+ * written by the slip model calibration, which fits the table against the movement measured by the tile edges.
+ */
+public class SlipModel {
+
+    /**
+     * The file that the calibrated slip model is saved to, and loaded from.
+     */
+    public static final String FILENAME = "slip-model";
+
+    /**
+     * The number of entries along each axis: directions 0, 15, ... 90 degrees and powers 0, 0.1, ... 1.0.
+     */
+    public static final int DIRECTION_STEPS = 7;
+    public static final int POWER_STEPS = 11;
+
+    private static final double DIRECTION_SPACING = 90.0 / (DIRECTION_STEPS - 1);
+    private static final double POWER_SPACING = 1.0 / (POWER_STEPS - 1);
+
+    /**
+     * The strafe corrections, indexed by direction then power.
+     */
+    private final double[][] strafeCorrections;
+
+    public SlipModel(double[][] strafeCorrections) {
+        if (strafeCorrections.length != DIRECTION_STEPS || strafeCorrections[0].length != POWER_STEPS) {
+            throw new IllegalArgumentException("Expected a " + DIRECTION_STEPS + " x " + POWER_STEPS + " table");
+        }
+        this.strafeCorrections = strafeCorrections;
+    }
+
+    /**
+     * Returns a slip model that applies the same strafe correction in every direction and at every power.
+     */
+    public static SlipModel constant(double strafeCorrection) {
+        double[][] table = new double[DIRECTION_STEPS][POWER_STEPS];
+        for (double[] row : table) {
+            for (int p = 0; p < POWER_STEPS; p++) {
+                row[p] = strafeCorrection;
+            }
+        }
+        return new SlipModel(table);
+    }
+
+    /**
+     * Builds a slip model from strafe corrections measured at various motor powers, interpolating between the two
+     * closest measurements for each power in the table.  The same corrections are used in every direction.
+     */
+    public static SlipModel fromEmpiricalStrafeCorrections(List<EmpiricalStrafeCorrection> strafeCorrections) {
+        if (strafeCorrections.isEmpty()) {
+            // No measurements, so don't apply strafe correction.
+            return constant(1.0);
+
+        } else if (strafeCorrections.size() == 1) {
+            // Only one measurement, so use that without scaling.
+            return constant(strafeCorrections.get(0).strafeCorrection);
+        }
+
+        List<EmpiricalStrafeCorrection> sorted = new ArrayList<>(strafeCorrections);
+        Collections.sort(sorted, new Comparator<EmpiricalStrafeCorrection>() {
+            @Override
+            public int compare(EmpiricalStrafeCorrection first, EmpiricalStrafeCorrection second) {
+                return Double.compare(first.motorPower, second.motorPower);
+            }
+        });
+
+        double[][] table = new double[DIRECTION_STEPS][POWER_STEPS];
+        for (int p = 0; p < POWER_STEPS; p++) {
+            double power = p * POWER_SPACING;
+
+            // Find the pair of measurements either side of this power, or the closest pair at either end.
+            int high = 1;
+            while (high < sorted.size() - 1 && sorted.get(high).motorPower < power) {
+                high++;
+            }
+            EmpiricalStrafeCorrection low = sorted.get(high - 1);
+            EmpiricalStrafeCorrection highCorrection = sorted.get(high);
+
+            double strafeCorrection = ScalingUtil.scaleLinear(
+                    power,
+                    low.motorPower, highCorrection.motorPower,
+                    low.strafeCorrection, highCorrection.strafeCorrection
+            );
+            for (int d = 0; d < DIRECTION_STEPS; d++) {
+                table[d][p] = strafeCorrection;
+            }
+        }
+
+        return new SlipModel(table);
+    }
+
+    /**
+     * Returns the strafe correction for the given motor powers.
+     */
+    public double getStrafeCorrection(MotorPowers motorPowers) {
+        return getStrafeCorrection(getDirection(motorPowers), getPower(motorPowers));
+    }
+
+    /**
+     * Returns the strafe correction for the given direction in degrees from forward, and average motor power.
+     */
+    public double getStrafeCorrection(double direction, double power) {
+        double directionIndex = clamp(direction / DIRECTION_SPACING, DIRECTION_STEPS - 1);
+        double powerIndex = clamp(power / POWER_SPACING, POWER_STEPS - 1);
+
+        int d = Math.min((int) directionIndex, DIRECTION_STEPS - 2);
+        int p = Math.min((int) powerIndex, POWER_STEPS - 2);
+        double directionFraction = directionIndex - d;
+        double powerFraction = powerIndex - p;
+
+        double low = strafeCorrections[d][p] * (1 - powerFraction) + strafeCorrections[d][p + 1] * powerFraction;
+        double high = strafeCorrections[d + 1][p] * (1 - powerFraction) + strafeCorrections[d + 1][p + 1] * powerFraction;
+        return low * (1 - directionFraction) + high * directionFraction;
+    }
+
+    /**
+     * Returns the commanded direction of travel for the given motor powers, in degrees from forward or backward.
+     * Motor powers that only turn the robot count as forward, where slip doesn't matter.
+     */
+    public static double getDirection(MotorPowers motorPowers) {
+        // The same combinations of wheels as the kinematics in MecanumOdometry.
+        double strafe = -motorPowers.backLeft + motorPowers.backRight + motorPowers.frontLeft - motorPowers.frontRight;
+        double forward = motorPowers.backLeft + motorPowers.backRight + motorPowers.frontLeft + motorPowers.frontRight;
+        return Math.toDegrees(Math.atan2(Math.abs(strafe), Math.abs(forward)));
+    }
+
+    /**
+     * Returns the average absolute motor power.
+     */
+    public static double getPower(MotorPowers motorPowers) {
+        return (Math.abs(motorPowers.frontLeft) +
+                Math.abs(motorPowers.frontRight) +
+                Math.abs(motorPowers.backLeft) +
+                Math.abs(motorPowers.backRight)) / 4.0;
+    }
+
+    private static double clamp(double index, int max) {
+        return Math.max(0, Math.min(max, index));
+    }
+
+    /**
+     * Returns the table as one line per direction, with the corrections for each power separated by commas.
+     */
+    public String[] toLines() {
+        String[] lines = new String[DIRECTION_STEPS];
+        for (int d = 0; d < DIRECTION_STEPS; d++) {
+            StringBuilder line = new StringBuilder();
+            for (int p = 0; p < POWER_STEPS; p++) {
+                if (p > 0) line.append(',');
+                line.append(strafeCorrections[d][p]);
+            }
+            lines[d] = line.toString();
+        }
+        return lines;
+    }
+
+    /**
+     * Parses a table written by {@link #toLines()}.
+     */
+    public static SlipModel fromLines(List<String> lines) {
+        if (lines.size() != DIRECTION_STEPS) {
+            throw new IllegalArgumentException("Expected " + DIRECTION_STEPS + " lines but found [" + lines.size() + "]");
+        }
+
+        double[][] table = new double[DIRECTION_STEPS][];
+        for (int d = 0; d < DIRECTION_STEPS; d++) {
+            String[] values = lines.get(d).split(",");
+            if (values.length != POWER_STEPS) {
+                throw new IllegalArgumentException("Expected " + POWER_STEPS + " values but found [" + values.length + "]");
+            }
+            table[d] = new double[POWER_STEPS];
+            for (int p = 0; p < POWER_STEPS; p++) {
+                table[d][p] = Double.parseDouble(values[p].trim());
+            }
+        }
+        return new SlipModel(table);
+    }
+
+    public void saveToDisk(String filename) {
+        FileUtil.writeLines(filename, (Object[]) toLines());
+    }
+
+    /**
+     * Loads a calibrated slip model, returning null if it hasn't been calibrated or can't be read.
+     */
+    public static SlipModel loadFromDisk(String filename) {
+        List<String> lines = FileUtil.readLines(filename);
+        if (lines.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return fromLines(lines);
+        } catch (Exception e) {
+            if (TelemetryHolder.telemetry != null) {
+                TelemetryHolder.telemetry.log().add("Error loading slip model: " + ErrorUtil.convertToString(e));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Fits a slip model to the strafe movement measured by the encoders and the actual strafe movement.
+     * <p>
+     * Each sample is shared between the four surrounding table entries in the same proportions used when looking up a
+     * correction, and each entry is then the least squares ratio of actual to measured movement.  Entries without
+     * enough samples keep the value from the prior model.
+     */
+    public static class Fitter {
+
+        /**
+         * The least total squared strafe movement, in tiles squared, that an entry needs before it's fitted.
+         */
+        private static final double MIN_WEIGHT = 0.01;
+
+        private double[][] sumMeasuredActual = new double[DIRECTION_STEPS][POWER_STEPS];
+        private double[][] sumMeasuredSquared = new double[DIRECTION_STEPS][POWER_STEPS];
+        private int sampleCount;
+
+        /**
+         * Adds a sample.
+         *
+         * @param direction The commanded direction in degrees from forward.
+         * @param power     The average motor power.
+         * @param measured  The strafe movement measured by the encoders, without correction, in tiles.
+         * @param actual    The actual strafe movement, in tiles.
+         */
+        public void addSample(double direction, double power, double measured, double actual) {
+            double directionIndex = clamp(direction / DIRECTION_SPACING, DIRECTION_STEPS - 1);
+            double powerIndex = clamp(power / POWER_SPACING, POWER_STEPS - 1);
+
+            int d = Math.min((int) directionIndex, DIRECTION_STEPS - 2);
+            int p = Math.min((int) powerIndex, POWER_STEPS - 2);
+            double directionFraction = directionIndex - d;
+            double powerFraction = powerIndex - p;
+
+            add(d, p, (1 - directionFraction) * (1 - powerFraction), measured, actual);
+            add(d, p + 1, (1 - directionFraction) * powerFraction, measured, actual);
+            add(d + 1, p, directionFraction * (1 - powerFraction), measured, actual);
+            add(d + 1, p + 1, directionFraction * powerFraction, measured, actual);
+            sampleCount++;
+        }
+
+        private void add(int d, int p, double weight, double measured, double actual) {
+            sumMeasuredActual[d][p] += weight * measured * actual;
+            sumMeasuredSquared[d][p] += weight * measured * measured;
+        }
+
+        public int getSampleCount() {
+            return sampleCount;
+        }
+
+        /**
+         * Returns the fitted slip model, using the prior model for entries without enough samples.
+         */
+        public SlipModel fit(SlipModel prior) {
+            double[][] table = new double[DIRECTION_STEPS][POWER_STEPS];
+            for (int d = 0; d < DIRECTION_STEPS; d++) {
+                for (int p = 0; p < POWER_STEPS; p++) {
+                    table[d][p] = sumMeasuredSquared[d][p] >= MIN_WEIGHT ?
+                            sumMeasuredActual[d][p] / sumMeasuredSquared[d][p] :
+                            prior.strafeCorrections[d][p];
+                }
+            }
+            return new SlipModel(table);
+        }
+
+    }
+
+}
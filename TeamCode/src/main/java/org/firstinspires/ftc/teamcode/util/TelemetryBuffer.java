@@ -0,0 +1,83 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+import org.firstinspires.ftc.robotcore.external.Func;
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends telemetry to the Driver Station at a fixed rate, rather than in every iteration of the loop.
+ * <p>
+ * Components register their values once as suppliers with {@link #addData(String, Func)}.  The suppliers are only
+ * evaluated (and the values formatted) when telemetry is actually transmitted, so the loop doesn't pay for formatting
+ * strings that nobody will ever see.
+ * <p>
+ * Anything added directly to the telemetry in an iteration that isn't transmitted is discarded.  Code that adds
+ * one-off values can check {@link #isTransmitDue()} first to avoid the work entirely.
+ */
+public class TelemetryBuffer {
+
+    private Telemetry telemetry;
+
+    private long transmitPeriodMs;
+
+    private ElapsedTime transmitTime = new ElapsedTime();
+
+    private List<Item> items = new ArrayList<>();
+
+    public TelemetryBuffer(Telemetry telemetry, long transmitPeriodMs) {
+        this.telemetry = telemetry;
+        this.transmitPeriodMs = transmitPeriodMs;
+
+        // Let the SDK send whenever we ask it to, so its own interval doesn't cause every other update to be skipped.
+        telemetry.setMsTransmissionInterval((int) transmitPeriodMs / 2);
+    }
+
+    /**
+     * Registers a value that will be shown in every transmission.  This should only be called once for each caption,
+     * e.g. from a component's constructor.
+     */
+    public <T> void addData(String caption, Func<T> valueProducer) {
+        items.add(new Item(caption, valueProducer));
+    }
+
+    /**
+     * Indicates whether the telemetry will be transmitted at the end of the current iteration.
+     */
+    public boolean isTransmitDue() {
+        return transmitTime.milliseconds() >= transmitPeriodMs;
+    }
+
+    /**
+     * Called once at the end of each iteration.  If a transmission is due, the registered values are added and the
+     * telemetry is sent; otherwise anything added in this iteration is discarded.
+     */
+    public void update() {
+        if (isTransmitDue()) {
+            transmitTime.reset();
+            for (Item item : items) {
+                // The SDK keeps lines added with a Func across updates, so pass it the value instead, or every
+                // transmission would add another copy of each line.
+                telemetry.addData(item.caption, String.valueOf(item.valueProducer.value()));
+            }
+            telemetry.update();
+        } else {
+            telemetry.clear();
+        }
+    }
+
+    private static class Item {
+
+        private String caption;
+        private Func<?> valueProducer;
+
+        private Item(String caption, Func<?> valueProducer) {
+            this.caption = caption;
+            this.valueProducer = valueProducer;
+        }
+    }
+
+}
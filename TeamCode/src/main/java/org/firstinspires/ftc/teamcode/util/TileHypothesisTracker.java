@@ -0,0 +1,206 @@
+package org.firstinspires.ftc.teamcode.util;
+
+/**
+ * Tracks which tile the robot is on along one field axis, from tile edge observations that only give its position
+ * within a tile.
+ * <p>
+ * A tile edge observation gives a residual from the estimated position that is ambiguous by whole tiles.  Each
+ * hypothesis adds a different number of whole tiles to the residual, and is scored both against the estimate (how far
+ * the odometry could have drifted) and against the residual predicted from the previous observations.  The residual
+ * is unwrapped around the prediction, so a residual that drifts smoothly past half a tile is followed into the next
+ * tile instead of snapping back to the nearest one.  The prediction grows less certain as the robot moves, so after a
+ * long drive without observations the estimate decides instead.
+ * <p>
+ * The scores decay with each observation, so old evidence is forgotten, and no single observation can lower either
+ * part of a score by more than a fixed amount.  The tracker only commits to a hypothesis once enough observations have
+ * been seen and it's much more likely than the others.  Only a committed hypothesis predicts the next residual, so a
+ * residual of half a tile stays ambiguous rather than being decided by whichever way the first frame happened to go.
+ * Until the tracker commits, the observations along this axis should not be used to correct the estimate.
+ * <p>
+ * Positions are in tiles.  The scores are kept in a primitive array, so adding observations doesn't allocate anything.
+ */
+public class TileHypothesisTracker {
+
+    /**
+     * The most that a single observation can lower a hypothesis' score, which is the score of an innovation of 3
+     * standard deviations.  This keeps one bad frame from overturning the evidence of many good ones.
+     */
+    private static final double MAX_PENALTY = 4.5;
+
+    /**
+     * The least variance of the estimate used for choosing a tile.  An estimate that has become overconfident and
+     * drifted still prefers the nearer tile, rather than finding every tile equally impossible.
+     */
+    private static final double MIN_ESTIMATE_VARIANCE = 0.2 * 0.2;
+
+    private int maxOffset;
+    private double observationVariance;
+    private double decay;
+    private double minProbability;
+    private int minObservations;
+
+    /**
+     * The log score of each hypothesis, indexed by the number of whole tiles plus the max offset.
+     */
+    private double[] scores;
+
+    private int observationCount;
+    private int consecutiveRejections;
+
+    /**
+     * The residual that the next observation is expected to show, its variance, and whether there is one.
+     */
+    private double predictedResidual;
+    private double predictionVariance;
+    private boolean hasPrediction;
+
+    /**
+     * The residual of the last observation with the whole tiles of the best hypothesis added, and those whole tiles.
+     */
+    private double residual;
+    private int bestOffset;
+
+    /**
+     * @param maxOffset        The most whole tiles either side of the prediction to consider.
+     * @param observationNoise The standard deviation of a tile edge observation, in tiles.
+     * @param decay            The factor each score is multiplied by before adding a new observation.
+     * @param minProbability   The probability a hypothesis needs to be committed to.
+     * @param minObservations  The number of observations needed before committing to a hypothesis.
+     */
+    public TileHypothesisTracker(int maxOffset, double observationNoise, double decay, double minProbability,
+                                 int minObservations) {
+        this.maxOffset = maxOffset;
+        this.observationVariance = observationNoise * observationNoise;
+        this.decay = decay;
+        this.minProbability = minProbability;
+        this.minObservations = minObservations;
+
+        scores = new double[2 * maxOffset + 1];
+    }
+
+    /**
+     * Adds an observation.
+     *
+     * @param observedResidual The observed position minus the estimated position, which may be out by whole tiles.
+     * @param estimateVariance The variance of the estimated position.
+     */
+    public void add(double observedResidual, double estimateVariance) {
+        double center = hasPrediction ? predictedResidual : 0;
+        double unwrapped = center + Math.IEEEremainder(observedResidual - center, 1.0);
+
+        double estimateScale = 2 * (Math.max(estimateVariance, MIN_ESTIMATE_VARIANCE) + observationVariance);
+        double predictionScale = 2 * (predictionVariance + observationVariance);
+
+        for (int i = 0; i < scores.length; i++) {
+            double candidate = unwrapped + i - maxOffset;
+            double score = Math.max(-candidate * candidate / estimateScale, -MAX_PENALTY);
+            if (hasPrediction) {
+                double error = candidate - predictedResidual;
+                score += Math.max(-error * error / predictionScale, -MAX_PENALTY);
+            }
+            scores[i] = decay * scores[i] + score;
+        }
+
+        // Keep the best score at zero, so the scores don't drift.
+        int best = 0;
+        for (int i = 1; i < scores.length; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        double bestScore = scores[best];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] -= bestScore;
+        }
+
+        bestOffset = best - maxOffset;
+        residual = unwrapped + bestOffset;
+        observationCount++;
+
+        if (isCommitted()) {
+            predictedResidual = residual;
+            predictionVariance = observationVariance;
+            hasPrediction = true;
+        }
+    }
+
+    /**
+     * Records that the robot has moved, and the estimate has become less certain by the given variance, so the
+     * prediction from earlier observations counts for less.
+     */
+    public void drift(double variance) {
+        predictionVariance += variance;
+    }
+
+    /**
+     * Records that the estimated position was moved by the given amount, so the residuals are now measured from
+     * somewhere else.
+     */
+    public void moveEstimate(double delta) {
+        predictedResidual -= delta;
+        residual -= delta;
+    }
+
+    /**
+     * Records whether the estimate accepted the last committed observation along this axis.
+     */
+    public void recordUpdate(boolean accepted) {
+        consecutiveRejections = accepted ? 0 : consecutiveRejections + 1;
+    }
+
+    /**
+     * Returns whether the estimate has rejected so many observations in a row that it must be wrong, e.g. because it
+     * has become too certain of a position the robot has drifted away from.
+     */
+    public boolean isEstimateStuck() {
+        return consecutiveRejections >= minObservations;
+    }
+
+    /**
+     * Returns whether one hypothesis is likely enough to be used.
+     */
+    public boolean isCommitted() {
+        return observationCount >= minObservations && getProbability(bestOffset) >= minProbability;
+    }
+
+    /**
+     * Returns the probability of the hypothesis that adds the given number of whole tiles to the unwrapped residual of
+     * the last observation.
+     */
+    public double getProbability(int offset) {
+        if (Math.abs(offset) > maxOffset) {
+            return 0;
+        }
+
+        double total = 0;
+        for (double score : scores) {
+            total += Math.exp(score);
+        }
+        return Math.exp(scores[offset + maxOffset]) / total;
+    }
+
+    /**
+     * Returns the residual of the last observation, with the whole tiles of the best hypothesis added.  This can be
+     * more than half a tile, where the robot has drifted into the next tile.
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    public int getObservationCount() {
+        return observationCount;
+    }
+
+    public void reset() {
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = 0;
+        }
+        observationCount = 0;
+        consecutiveRejections = 0;
+        hasPrediction = false;
+        predictionVariance = 0;
+        bestOffset = 0;
+        residual = 0;
+    }
+
+}
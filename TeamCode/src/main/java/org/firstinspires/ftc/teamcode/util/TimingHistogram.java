@@ -0,0 +1,129 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import android.annotation.SuppressLint;
+
+/**
+ * A fixed-size histogram of durations, used to find out where loop time is being spent.
+ * <p>
+ * Durations are recorded in nanoseconds but bucketed by microsecond, with four buckets per power of two.  This keeps
+ * the error of any reported percentile under 25% from 1 microsecond up to several minutes, without allocating anything
+ * once the histogram has been created.
+ */
+public class TimingHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = 128;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * Records a single duration.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        counts[bucketIndex(nanos / 1000)]++;
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    /**
+     * Forgets all the recorded durations.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the average duration in milliseconds.
+     */
+    public double getMeanMillis() {
+        return count > 0 ? totalNanos / 1e6 / count : 0.0;
+    }
+
+    /**
+     * Returns the longest recorded duration in milliseconds.
+     */
+    public double getMaxMillis() {
+        return maxNanos / 1e6;
+    }
+
+    /**
+     * Returns the given percentile (0 - 100) of the recorded durations, in milliseconds.  The value returned is the
+     * upper edge of the bucket containing the percentile, capped at the maximum recorded duration.
+     */
+    public double getPercentileMillis(double percentile) {
+        if (count == 0) {
+            return 0.0;
+        }
+
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        if (rank < 1) {
+            rank = 1;
+        }
+
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperMicros(i) / 1e3, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Returns the bucket for the given number of microseconds.
+     */
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+
+        int msb = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        int index = (msb - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Returns the largest number of microseconds that falls into the given bucket.
+     */
+    static long bucketUpperMicros(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    @SuppressLint("DefaultLocale")
+    public String toString() {
+        return String.format("p50 %.2f ms, p95 %.2f ms, max %.2f ms",
+                getPercentileMillis(50),
+                getPercentileMillis(95),
+                getMaxMillis());
+    }
+
+}
@@ -0,0 +1,97 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import org.firstinspires.ftc.teamcode.geometry.Heading;
+import org.firstinspires.ftc.teamcode.geometry.Vector2;
+
+/**
+ * Smooths the robot's velocity with an alpha-beta filter on each of strafe, forward and angular velocity.
+ * <p>
+ * Each update first predicts the velocity from the filtered acceleration, then moves it part of the way (alpha)
+ * towards the measurement, and moves the acceleration part of the way (beta) towards what the measurement implies.
+ * With a beta of zero this is a plain exponential low-pass filter.
+ * <p>
+ * The velocities come from the motor controllers' own encoder velocity measurements, so they don't depend on the
+ * loop timing, and they aren't affected by corrections to the position.
+ */
+public class VelocityEstimator {
+
+    private static final int STRAFE = 0;
+    private static final int FORWARD = 1;
+    private static final int ANGULAR = 2;
+
+    private double alpha;
+    private double beta;
+
+    private double[] velocity = new double[3];
+    private double[] acceleration = new double[3];
+
+    private boolean initialized;
+
+    public VelocityEstimator(double alpha, double beta) {
+        this.alpha = alpha;
+        this.beta = beta;
+    }
+
+    /**
+     * Updates the filter with a new measurement.
+     *
+     * @param strafe      The measured velocity to the right in tiles / sec.
+     * @param forward     The measured forward velocity in tiles / sec.
+     * @param angularRate The measured counter-clockwise angular velocity in degrees / sec.
+     * @param elapsed     The time since the previous update in seconds.
+     */
+    public void update(double strafe, double forward, double angularRate, double elapsed) {
+        if (!initialized) {
+            // Start from the first measurement rather than ramping up from zero.
+            velocity[STRAFE] = strafe;
+            velocity[FORWARD] = forward;
+            velocity[ANGULAR] = angularRate;
+            initialized = true;
+            return;
+        }
+
+        update(STRAFE, strafe, elapsed);
+        update(FORWARD, forward, elapsed);
+        update(ANGULAR, angularRate, elapsed);
+    }
+
+    private void update(int index, double measurement, double elapsed) {
+        double predicted = velocity[index] + acceleration[index] * elapsed;
+        double residual = measurement - predicted;
+
+        velocity[index] = predicted + alpha * residual;
+        if (elapsed > 0) {
+            acceleration[index] += beta * residual / elapsed;
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < velocity.length; i++) {
+            velocity[i] = 0;
+            acceleration[i] = 0;
+        }
+        initialized = false;
+    }
+
+    /**
+     * Returns the velocity in robot space, with x being to the right and y forward, in tiles / sec.
+     */
+    public Vector2 getRobotVelocity() {
+        return new Vector2(velocity[STRAFE], velocity[FORWARD]);
+    }
+
+    /**
+     * Returns the velocity in field space for the given robot heading, in tiles / sec.
+     */
+    public Vector2 getFieldVelocity(Heading heading) {
+        return getRobotVelocity().rotate(heading.getValue() - 90);
+    }
+
+    /**
+     * Returns the counter-clockwise angular velocity in degrees / sec.
+     */
+    public double getAngularVelocity() {
+        return velocity[ANGULAR];
+    }
+
+}
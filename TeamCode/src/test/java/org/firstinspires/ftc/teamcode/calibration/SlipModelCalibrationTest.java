@@ -0,0 +1,30 @@
+package org.firstinspires.ftc.teamcode.calibration;
+
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
+import static org.junit.Assert.assertEquals;
+
+import org.firstinspires.ftc.teamcode.util.MecanumUtil.MotorPowers;
+import org.firstinspires.ftc.teamcode.util.SlipModel;
+import org.junit.Test;
+
+public class SlipModelCalibrationTest {
+
+    @Test
+    public void pureStrafeIsInStrafeRow() {
+        // Strafing right and back again are both samples for the 90 degree row, at the commanded speed.
+        for (int side : new int[]{1, -1}) {
+            MotorPowers motorPowers = SlipModelCalibration.getMotorPowers(90, 0.5, side);
+
+            assertEquals(90, SlipModel.getDirection(motorPowers), E);
+            assertEquals(0.5, SlipModel.getPower(motorPowers), E);
+        }
+    }
+
+    @Test
+    public void diagonal() {
+        MotorPowers motorPowers = SlipModelCalibration.getMotorPowers(30, 0.5, 1);
+
+        assertEquals(30, SlipModel.getDirection(motorPowers), E);
+    }
+
+}
@@ -0,0 +1,155 @@
+package org.firstinspires.ftc.teamcode.components;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CommandGroupTest {
+
+    @Test
+    public void sequential() {
+        TestCommand first = new TestCommand(2);
+        TestCommand second = new TestCommand(2);
+        Command sequence = new SequentialCommand(first, second);
+
+        sequence.start();
+        assertTrue(first.started);
+        assertFalse(second.started);
+
+        assertFalse(sequence.updateStatus());
+        assertFalse(second.started);
+
+        // The first command finishes, and the second starts and is updated in the same iteration.
+        assertFalse(sequence.updateStatus());
+        assertTrue(first.stopped);
+        assertTrue(second.started);
+        assertEquals(1, second.updates);
+
+        assertTrue(sequence.updateStatus());
+        assertTrue(second.stopped);
+    }
+
+    @Test
+    public void parallel() {
+        TestCommand shorter = new TestCommand(1);
+        TestCommand longer = new TestCommand(3);
+        Command parallel = new ParallelCommand(shorter, longer);
+
+        parallel.start();
+        assertTrue(shorter.started);
+        assertTrue(longer.started);
+
+        assertFalse(parallel.updateStatus());
+        assertTrue(shorter.stopped);
+        assertFalse(parallel.updateStatus());
+        assertTrue(parallel.updateStatus());
+        assertTrue(longer.stopped);
+
+        // The finished command isn't updated again.
+        assertEquals(1, shorter.updates);
+    }
+
+    @Test
+    public void deadline() {
+        TestCommand deadline = new TestCommand(2);
+        TestCommand other = new TestCommand(10);
+        Command group = new DeadlineCommand(deadline, other);
+
+        group.start();
+        assertFalse(group.updateStatus());
+        assertTrue(group.updateStatus());
+
+        // The other command is stopped when the deadline finishes.
+        assertTrue(other.stopped);
+        assertEquals(2, other.updates);
+    }
+
+    @Test
+    public void waitUntil() {
+        final boolean[] condition = {false};
+        TestCommand after = new TestCommand(1);
+        Command sequence = new SequentialCommand(
+                new WaitUntilCommand(new WaitUntilCommand.Condition() {
+                    @Override
+                    public boolean isTrue() {
+                        return condition[0];
+                    }
+                }),
+                after
+        );
+
+        sequence.start();
+        assertFalse(sequence.updateStatus());
+        assertFalse(after.started);
+
+        condition[0] = true;
+        assertTrue(sequence.updateStatus());
+        assertTrue(after.started);
+        assertTrue(after.stopped);
+    }
+
+    @Test
+    public void waitUntilTimesOut() {
+        Command wait = new WaitUntilCommand(new WaitUntilCommand.Condition() {
+            @Override
+            public boolean isTrue() {
+                return false;
+            }
+        }, 0);
+
+        // The condition is never met, but the wait gives up once the timeout has passed.
+        wait.start();
+        assertTrue(wait.updateStatus());
+    }
+
+    @Test
+    public void stopInProgress() {
+        TestCommand first = new TestCommand(1);
+        TestCommand second = new TestCommand(5);
+        TestCommand third = new TestCommand(1);
+        Command sequence = new SequentialCommand(first, second, third);
+
+        sequence.start();
+        sequence.updateStatus();
+        sequence.stop();
+
+        assertTrue(second.stopped);
+        assertFalse(third.started);
+        assertFalse(third.stopped);
+    }
+
+    /**
+     * A command that finishes after the given number of updates.
+     */
+    private static class TestCommand implements Command {
+
+        private int updatesToFinish;
+
+        private int updates;
+        private boolean started;
+        private boolean stopped;
+
+        private TestCommand(int updatesToFinish) {
+            this.updatesToFinish = updatesToFinish;
+        }
+
+        @Override
+        public void start() {
+            started = true;
+        }
+
+        @Override
+        public void stop() {
+            stopped = true;
+        }
+
+        @Override
+        public boolean updateStatus() {
+            updates++;
+            return updates >= updatesToFinish;
+        }
+    }
+
+}
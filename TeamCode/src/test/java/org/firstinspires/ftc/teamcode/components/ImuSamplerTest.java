@@ -0,0 +1,24 @@
+package org.firstinspires.ftc.teamcode.components;
+
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ImuSamplerTest {
+
+    @Test
+    public void unwrap() {
+        assertEquals(0.0, ImuSampler.unwrap(0.0), E);
+        assertEquals(10.0, ImuSampler.unwrap(10.0), E);
+        assertEquals(-10.0, ImuSampler.unwrap(-10.0), E);
+
+        // Crossing from +179 to -179 is a 2 degree counter-clockwise rotation, not 358 degrees clockwise.
+        assertEquals(2.0, ImuSampler.unwrap(-179.0 - 179.0), E);
+        assertEquals(-2.0, ImuSampler.unwrap(179.0 - -179.0), E);
+
+        assertEquals(180.0, ImuSampler.unwrap(180.0), E);
+        assertEquals(180.0, ImuSampler.unwrap(-180.0), E);
+    }
+
+}
@@ -0,0 +1,29 @@
+package org.firstinspires.ftc.teamcode.components;
+
+import static org.firstinspires.ftc.teamcode.components.LinearSlide.SlideHeight.GROUND_LEVEL;
+import static org.firstinspires.ftc.teamcode.components.LinearSlide.SlideHeight.INTAKE;
+import static org.firstinspires.ftc.teamcode.components.LinearSlide.SlideHeight.MEDIUM_POLE;
+import static org.firstinspires.ftc.teamcode.components.LinearSlide.SlideHeight.TRAVEL;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LinearSlideTest {
+
+    @Test
+    public void turretWaitsForSlideHeadedUp() {
+        // Raising from the intake, the turret waits until the slide reaches the travel height.
+        assertFalse(LinearSlide.isReadyForTurret(INTAKE.ticks, MEDIUM_POLE.ticks));
+        assertFalse(LinearSlide.isReadyForTurret(INTAKE.ticks, TRAVEL.ticks));
+        assertTrue(LinearSlide.isReadyForTurret(TRAVEL.ticks, MEDIUM_POLE.ticks));
+    }
+
+    @Test
+    public void turretDoesNotWaitForSlideHeadedToGround() {
+        // Lowering to the ground pole, the slide won't be at the travel height again, so the turret doesn't wait.
+        assertTrue(LinearSlide.isReadyForTurret(TRAVEL.ticks, GROUND_LEVEL.ticks));
+        assertTrue(LinearSlide.isReadyForTurret(GROUND_LEVEL.ticks, GROUND_LEVEL.ticks));
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.firstinspires.ftc.teamcode.components;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.firstinspires.ftc.teamcode.components.WebCam.FrameContext;
+import org.junit.Test;
+import org.opencv.core.Mat;
+
+public class ScheduledFrameProcessorTest {
+
+    private static final WebCam.FrameProcessor NO_OP = new WebCam.FrameProcessor() {
+        @Override
+        public void processFrame(Mat input, Mat output, FrameContext frameContext) {
+        }
+    };
+
+    @Test
+    public void runEveryFrame() {
+        ScheduledFrameProcessor scheduled = new ScheduledFrameProcessor(NO_OP);
+        for (int frame = 0; frame < 5; frame++) {
+            assertTrue(scheduled.isDue(frame));
+            scheduled.finish(frame, 1);
+        }
+        assertEquals(5, scheduled.getProcessedCount());
+    }
+
+    @Test
+    public void runEveryNthFrame() {
+        ScheduledFrameProcessor scheduled = new ScheduledFrameProcessor(NO_OP);
+        scheduled.setPeriod(3);
+
+        int processed = 0;
+        for (int frame = 0; frame < 9; frame++) {
+            if (scheduled.isDue(frame)) {
+                assertEquals(0, frame % 3);
+                scheduled.finish(frame, 1);
+                processed++;
+            }
+        }
+        assertEquals(3, processed);
+    }
+
+    @Test
+    public void runOnDemand() {
+        ScheduledFrameProcessor scheduled = new ScheduledFrameProcessor(NO_OP);
+        scheduled.setPeriod(ScheduledFrameProcessor.ON_DEMAND);
+        assertFalse(scheduled.isDue(0));
+
+        scheduled.requestFrame();
+        assertTrue(scheduled.isDue(1));
+        scheduled.finish(1, 1);
+        assertFalse(scheduled.isDue(2));
+    }
+
+    @Test
+    public void skipWhenDisabled() {
+        ScheduledFrameProcessor scheduled = new ScheduledFrameProcessor(NO_OP);
+        scheduled.setEnabled(false);
+        assertFalse(scheduled.isDue(0));
+
+        scheduled.setEnabled(true);
+        assertTrue(scheduled.isDue(0));
+    }
+
+    @Test
+    public void skipFramesAfterOverrunningBudget() {
+        ScheduledFrameProcessor scheduled = new ScheduledFrameProcessor(NO_OP);
+        scheduled.setBudgetMs(10);
+
+        // Taking 25 ms against a 10 ms budget skips the next two frames.
+        scheduled.finish(0, 25);
+        assertEquals(1, scheduled.getOverBudgetCount());
+        assertFalse(scheduled.isDue(1));
+        assertFalse(scheduled.isDue(2));
+        assertTrue(scheduled.isDue(3));
+
+        scheduled.finish(3, 5);
+        assertEquals(1, scheduled.getOverBudgetCount());
+        assertTrue(scheduled.isDue(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectNegativePeriod() {
+        new ScheduledFrameProcessor(NO_OP).setPeriod(-1);
+    }
+
+}
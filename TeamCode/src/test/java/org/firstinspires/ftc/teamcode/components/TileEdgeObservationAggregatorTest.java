@@ -0,0 +1,156 @@
+package org.firstinspires.ftc.teamcode.components;
+
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.firstinspires.ftc.teamcode.RobotDescriptor;
+import org.firstinspires.ftc.teamcode.components.TileEdgeDetector.TileEdgeObservationAggregator;
+import org.firstinspires.ftc.teamcode.components.TileEdgeDetector.TileEdgeObservationAggregator.Snapshot;
+import org.firstinspires.ftc.teamcode.geometry.TileEdgeSolver.TileEdgeObservation;
+import org.junit.Test;
+
+public class TileEdgeObservationAggregatorTest {
+
+    private static RobotDescriptor descriptor = new RobotDescriptor();
+
+    @Test
+    public void moveCarriesAggregate() {
+        TileEdgeObservationAggregator aggregator = new TileEdgeObservationAggregator(descriptor);
+        aggregator.add(observation(0.4, 0.6, 2.0), 0);
+
+        aggregator.move(0.1, 0.2, -1.0);
+        aggregator.publish(0);
+
+        Snapshot aggregate = aggregator.getSnapshot();
+        assertEquals(0.3, aggregate.distanceRight, E);
+        assertEquals(0.4, aggregate.distanceFront, E);
+        assertEquals(1.0, aggregate.headingOffset, E);
+    }
+
+    @Test
+    public void averagesWhileMoving() {
+        TileEdgeObservationAggregator aggregator = new TileEdgeObservationAggregator(descriptor);
+        aggregator.add(observation(0.5, 0.5, 0.0), 0);
+        aggregator.move(0, 0.25, 0);
+        aggregator.add(observation(0.5, 0.27, 0.0), 0);
+        aggregator.publish(0);
+
+        Snapshot aggregate = aggregator.getSnapshot();
+        assertEquals(0.26, aggregate.distanceFront, E);
+        assertEquals(0.5, aggregate.distanceRight, E);
+        assertEquals(2, aggregate.countFront);
+    }
+
+    @Test
+    public void crossingTileEdge() {
+        TileEdgeObservationAggregator aggregator = new TileEdgeObservationAggregator(descriptor);
+        aggregator.add(observation(0.5, 0.1, 0.0), 0);
+
+        // Driving forward over the front edge, the distance is now to the front edge of the next tile.
+        aggregator.move(0, 0.12, 0);
+        aggregator.publish(0);
+        assertEquals(0.98, aggregator.getSnapshot().distanceFront, E);
+
+        // An observation of the edge just crossed is the same as one of the next edge.
+        aggregator.add(observation(0.5, 0.0, 0.0), 0);
+        aggregator.publish(0);
+        assertEquals(0.99, aggregator.getSnapshot().distanceFront, E);
+    }
+
+    @Test
+    public void rejectsOutliers() {
+        TileEdgeObservationAggregator aggregator = new TileEdgeObservationAggregator(descriptor);
+        for (int i = 0; i < 5; i++) {
+            aggregator.add(observation(0.5, 0.5, 0.0), 0);
+        }
+
+        // The edge of a pole, much closer than the tile edge.
+        aggregator.add(observation(0.2, 0.5, 0.0), 0);
+        aggregator.publish(0);
+
+        Snapshot aggregate = aggregator.getSnapshot();
+        assertEquals(0.5, aggregate.distanceRight, E);
+        assertEquals(1, aggregate.rejectedCount);
+    }
+
+    @Test
+    public void snapshotsAreNotChangedByLaterObservations() {
+        TileEdgeObservationAggregator aggregator = new TileEdgeObservationAggregator(descriptor);
+        aggregator.add(observation(0.5, 0.5, 0.0), 0);
+        aggregator.publish(0);
+        Snapshot snapshot = aggregator.getSnapshot();
+
+        aggregator.move(0.1, 0.1, 0);
+        aggregator.publish(0);
+        assertEquals(0.5, snapshot.distanceRight, E);
+
+        aggregator.reset();
+        assertNull(aggregator.getSnapshot());
+        assertEquals(0.5, snapshot.distanceRight, E);
+    }
+
+    @Test
+    public void waitForSnapshotRunsTheUpdates() {
+        final TileEdgeObservationAggregator aggregator = new TileEdgeObservationAggregator(descriptor);
+        final int[] updates = {0};
+
+        // After a reset nothing is published until the update loop adds the frames from the webcams.
+        aggregator.reset();
+        Snapshot snapshot = aggregator.waitForSnapshot(new TileEdgeObservationAggregator.WaitLoop() {
+            @Override
+            public boolean isStopRequested() {
+                return false;
+            }
+
+            @Override
+            public void update() {
+                updates[0]++;
+                if (updates[0] >= 3) {
+                    aggregator.add(observation(0.4, 0.6, 1.0), System.nanoTime());
+                }
+                aggregator.publish(System.nanoTime());
+            }
+
+            @Override
+            public void sleep(long millis) {
+            }
+        }, 0, 10);
+
+        assertNotNull(snapshot);
+        assertEquals(3, updates[0]);
+        assertEquals(0.4, snapshot.distanceRight, E);
+        assertEquals(0.6, snapshot.distanceFront, E);
+    }
+
+    @Test
+    public void waitForSnapshotGivesUp() {
+        TileEdgeObservationAggregator aggregator = new TileEdgeObservationAggregator(descriptor);
+        Snapshot snapshot = aggregator.waitForSnapshot(new TileEdgeObservationAggregator.WaitLoop() {
+            @Override
+            public boolean isStopRequested() {
+                return false;
+            }
+
+            @Override
+            public void update() {
+            }
+
+            @Override
+            public void sleep(long millis) {
+            }
+        }, 0, 0.01);
+
+        assertNull(snapshot);
+    }
+
+    private static TileEdgeObservation observation(double distanceRight, double distanceFront, double headingOffset) {
+        TileEdgeObservation observation = new TileEdgeObservation();
+        observation.distanceRight = distanceRight;
+        observation.distanceFront = distanceFront;
+        observation.headingOffset = headingOffset;
+        return observation;
+    }
+
+}
@@ -8,13 +8,20 @@ import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
 import static org.firstinspires.ftc.teamcode.util.AssertUtil.assertPosition;
 import static org.firstinspires.ftc.teamcode.util.DistanceUtil.inchesToTiles;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import org.firstinspires.ftc.teamcode.RobotDescriptor;
+import org.firstinspires.ftc.teamcode.geometry.Heading;
 import org.firstinspires.ftc.teamcode.geometry.Line;
 import org.firstinspires.ftc.teamcode.geometry.Position;
 import org.firstinspires.ftc.teamcode.geometry.TileEdgeSolver;
+import org.firstinspires.ftc.teamcode.geometry.TileEdgeSolver.TileEdgePrediction;
+import org.firstinspires.ftc.teamcode.util.RobotFieldConversionUtil;
+import org.firstinspires.ftc.teamcode.util.RobotFieldConversionUtil.FieldSpaceCoordinates;
+import org.firstinspires.ftc.teamcode.util.RobotFieldConversionUtil.RobotSpaceCoordinates;
 import org.junit.Before;
 import org.junit.Test;
 import org.opencv.core.Size;
@@ -123,4 +130,37 @@ public class TileEdgeSolverTest {
         );
     }
 
+    @Test
+    public void predictEdges_solveToExpectedPose() {
+        // The right edge is 10 inches to the right of the robot center, and the front edge 2.4 inches in front, with
+        // the robot turned a little away from the tile edges.
+        Position position = new Position(1 - inchesToTiles(10), 1.9);
+        Heading heading = new Heading(93);
+
+        TileEdgePrediction prediction = solver.predict(position, heading);
+        assertTrue(prediction.frontEdgeInView);
+        assertTrue(prediction.rightEdgeInView);
+
+        // Solving the predicted edges gives back the same distances and heading offset as expected for the pose.
+        TileEdgeObservation observation = solver.solve(Arrays.asList(prediction.frontEdge, prediction.rightEdge));
+        RobotSpaceCoordinates expected = RobotFieldConversionUtil.convertToRobotSpace(
+                new FieldSpaceCoordinates(heading, position));
+        assertEquals(expected.distanceRight, observation.distanceRight, E);
+        assertEquals(expected.distanceFront, observation.distanceFront, E);
+        assertEquals(expected.headingOffset, observation.headingOffset, E);
+    }
+
+    @Test
+    public void predictEdges_outOfView() {
+        // The right edge is 21.6 inches to the right of the robot center, beyond the far side of the image, and the
+        // previous one is on the left of the robot.
+        TileEdgePrediction prediction = solver.predict(new Position(0.1, 1.9), new Heading(90));
+
+        assertFalse(prediction.rightEdgeInView);
+        assertTrue(prediction.frontEdgeInView);
+
+        // The edge out of view still runs the same way as the ones in view would.
+        assertEquals(0.0, prediction.rightEdge.getAngleToX(), E);
+    }
+
 }
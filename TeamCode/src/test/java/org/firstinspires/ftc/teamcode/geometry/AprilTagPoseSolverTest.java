@@ -0,0 +1,139 @@
+package org.firstinspires.ftc.teamcode.geometry;
+
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.assertHeading;
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.assertPosition;
+import static org.firstinspires.ftc.teamcode.util.DistanceUtil.inchesToTiles;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.firstinspires.ftc.robotcore.external.matrices.GeneralMatrixF;
+import org.firstinspires.ftc.robotcore.external.matrices.MatrixF;
+import org.firstinspires.ftc.teamcode.RobotDescriptor;
+import org.firstinspires.ftc.teamcode.game.AprilTagFieldMap;
+import org.firstinspires.ftc.teamcode.geometry.AprilTagPoseSolver.AprilTagFix;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AprilTagPoseSolverTest {
+
+    private RobotDescriptor robotDescriptor;
+    private AprilTagPoseSolver solver;
+
+    @Before
+    public void setUp() {
+        // The webcam in the center of the robot, facing forward.
+        robotDescriptor = new RobotDescriptor();
+        robotDescriptor.webCamAprilTagDescriptor.mountPosition = new Position(0, 0);
+        robotDescriptor.webCamAprilTagDescriptor.mountHeading = 0;
+        solver = new AprilTagPoseSolver(robotDescriptor, AprilTagFieldMap.powerPlay());
+    }
+
+    @Test
+    public void straightOn() {
+        // The signal sleeve one tile straight ahead of the robot in the right start position.
+        AprilTagFix fix = solver.solve(1, 0, 1, 0, new Position(1.5, 0.5));
+
+        assertPosition(new Position(1.5, 0.5), fix.position);
+        assertHeading(new Heading(90), fix.heading);
+        assertEquals(1, fix.range, E);
+    }
+
+    @Test
+    public void nearestTag() {
+        // The same tag is in front of both start positions, so the estimate picks the left one.
+        AprilTagFix fix = solver.solve(2, 0, 1, 0, new Position(4.4, 0.6));
+
+        assertPosition(new Position(4.5, 0.5), fix.position);
+    }
+
+    @Test
+    public void turned() {
+        // Turned 10 degrees to the left, the tag appears to the right and turned clockwise.
+        double angle = Math.toRadians(10);
+        AprilTagFix fix = solver.solve(1, Math.sin(angle), Math.cos(angle), 10, new Position(1.5, 0.5));
+
+        assertPosition(new Position(1.5, 0.5), fix.position);
+        assertHeading(new Heading(100), fix.heading);
+    }
+
+    @Test
+    public void offsetMount() {
+        // The webcam is on the front of the robot, so it's closer to the tag than the center of the robot.
+        robotDescriptor.webCamAprilTagDescriptor.mountPosition = new Position(0, 7.75);
+        solver = new AprilTagPoseSolver(robotDescriptor, AprilTagFieldMap.powerPlay());
+
+        AprilTagFix fix = solver.solve(1, 0, 1 - inchesToTiles(7.75), 0, new Position(1.5, 0.5));
+
+        assertPosition(new Position(1.5, 0.5), fix.position);
+        assertHeading(new Heading(90), fix.heading);
+    }
+
+    @Test
+    public void sidewaysMount() {
+        // The webcam faces left, so the robot is side on to the tag.
+        robotDescriptor.webCamAprilTagDescriptor.mountHeading = 90;
+        solver = new AprilTagPoseSolver(robotDescriptor, AprilTagFieldMap.powerPlay());
+
+        AprilTagFix fix = solver.solve(1, 0, 1, 0, new Position(1.5, 0.5));
+
+        assertPosition(new Position(1.5, 0.5), fix.position);
+        assertHeading(new Heading(0), fix.heading);
+    }
+
+    @Test
+    public void unknownTag() {
+        assertNull(solver.solve(7, 0, 1, 0, new Position(1.5, 0.5)));
+    }
+
+    @Test
+    public void yawFromRotation() {
+        assertEquals(0, AprilTagPoseSolver.getYaw(rotation(0, 0)), E);
+
+        // Turned about the webcam's y axis, which points down, so a positive angle is clockwise seen from above.
+        assertEquals(20, AprilTagPoseSolver.getYaw(rotation(20, 0)), 1e-4);
+        assertEquals(-35, AprilTagPoseSolver.getYaw(rotation(-35, 0)), 1e-4);
+
+        // A tag that is also rolled, e.g. mounted crooked, has the same yaw.
+        assertEquals(20, AprilTagPoseSolver.getYaw(rotation(20, 15)), 1e-4);
+    }
+
+    @Test
+    public void covariance() {
+        AprilTagFix near = solver.solve(1, 0, 0.5, 0, new Position(1.5, 1));
+        AprilTagFix far = solver.solve(1, 0, 1, 0, new Position(1.5, 0.5));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(near.covariance[i][i] > 0);
+            for (int j = 0; j < 3; j++) {
+                assertEquals(near.covariance[i][j], near.covariance[j][i], E);
+            }
+        }
+
+        // Further away, the yaw error moves the position further sideways.
+        assertTrue(far.covariance[0][0] > near.covariance[0][0]);
+
+        // Straight on, a yaw error moves the position sideways and turns the heading together.
+        assertTrue(far.covariance[0][2] != 0);
+    }
+
+    /**
+     * Returns the rotation matrix of a tag turned by the yaw about the webcam's y axis, after being rolled about its
+     * own z axis, as the AprilTag detector reports it.
+     */
+    private static MatrixF rotation(double yaw, double roll) {
+        double cy = Math.cos(Math.toRadians(yaw));
+        double sy = Math.sin(Math.toRadians(yaw));
+        double cr = Math.cos(Math.toRadians(roll));
+        double sr = Math.sin(Math.toRadians(roll));
+
+        // R = Ry(yaw) * Rz(roll)
+        return new GeneralMatrixF(3, 3, new float[]{
+                (float) (cy * cr), (float) (-cy * sr), (float) sy,
+                (float) sr, (float) cr, 0,
+                (float) (-sy * cr), (float) (sy * sr), (float) cy
+        });
+    }
+
+}
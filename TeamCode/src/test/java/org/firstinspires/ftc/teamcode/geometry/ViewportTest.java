@@ -62,6 +62,37 @@ public class ViewportTest {
         assertPosition(new Position(20, 0), viewport.convertViewToExternal(new Position(200, 100)));
     }
 
+    @Test
+    public void solveViewPosition_keystoned() {
+        Position topLeft = new Position(1.5, 9.5), topRight = new Position(15.5, 10.5);
+        Position bottomLeft = new Position(0.5, 1.5), bottomRight = new Position(14.5, 0.5);
+        Viewport viewport = new Viewport(
+                640, 360,
+                topLeft, topRight,
+                bottomLeft, bottomRight
+        );
+
+        assertPosition(new Position(0, 360), viewport.solveViewPosition(bottomLeft));
+        assertPosition(new Position(640, 0), viewport.solveViewPosition(topRight));
+
+        // Positions outside the view round trip too.
+        Position outside = new Position(-200, 500);
+        assertPosition(outside, viewport.solveViewPosition(viewport.convertViewToExternal(outside)));
+    }
+
+    @Test
+    public void solveViewPosition_sideways() {
+        // A webcam looking out of the right side of the robot, so the top of the image is toward the front.
+        Viewport viewport = new Viewport(
+                640, 360,
+                new Position(6, 6), new Position(6, -6),
+                new Position(14, 6), new Position(14, -6)
+        );
+
+        assertPosition(new Position(320, 180), viewport.solveViewPosition(new Position(10, 0)));
+        assertPosition(new Position(160, 90), viewport.solveViewPosition(new Position(8, 3)));
+    }
+
     private Position average(Position... positions) {
         double x = 0.0, y = 0.0;
         for (Position position : positions) {
@@ -0,0 +1,85 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class DecayingSampleWindowTest {
+
+    private static final long SECOND = 1000000000L;
+
+    @Test
+    public void average() {
+        DecayingSampleWindow window = new DecayingSampleWindow(8, 1.0, 0, 0.1, 3);
+        window.add(1.0, 0);
+        window.add(2.0, 0);
+
+        assertEquals(1.5, window.getAverage(0), E);
+    }
+
+    @Test
+    public void recentSamplesWeighMore() {
+        DecayingSampleWindow window = new DecayingSampleWindow(8, 1.0, 0, 0.1, 3);
+        window.add(1.0, 0);
+        window.add(2.0, SECOND);
+
+        // The older sample has decayed to 1/e of the weight of the newer one.
+        double oldWeight = Math.exp(-1);
+        assertEquals((oldWeight * 1.0 + 2.0) / (oldWeight + 1), window.getAverage(SECOND), E);
+    }
+
+    @Test
+    public void rejectsOutliers() {
+        DecayingSampleWindow window = new DecayingSampleWindow(8, 1.0, 0, 0.01, 3);
+        double[] samples = {0.50, 0.51, 0.49, 0.50, 0.52};
+        for (double sample : samples) {
+            assertTrue(window.add(sample, 0));
+        }
+
+        assertFalse(window.add(0.8, 0));
+        assertEquals(1, window.getRejectedCount());
+        assertEquals(0.504, window.getAverage(0), E);
+
+        // Ordinary noise is still accepted.
+        assertTrue(window.add(0.53, 0));
+    }
+
+    @Test
+    public void expire() {
+        DecayingSampleWindow window = new DecayingSampleWindow(8, 0.5, 0, 0.1, 3);
+        window.add(1.0, 0);
+        window.add(2.0, SECOND);
+
+        window.expire(SECOND * 5 / 2);
+        assertEquals(1, window.size());
+        assertEquals(2.0, window.getAverage(SECOND * 5 / 2), E);
+    }
+
+    @Test
+    public void capacity() {
+        DecayingSampleWindow window = new DecayingSampleWindow(2, 1.0, 0, 0.1, 3);
+        window.add(1.0, 0);
+        window.add(2.0, 0);
+        window.add(3.0, 0);
+
+        assertEquals(2, window.size());
+        assertEquals(2.5, window.getAverage(0), E);
+    }
+
+    @Test
+    public void periodic() {
+        DecayingSampleWindow window = new DecayingSampleWindow(8, 1.0, 1.0, 0.01, 3);
+        window.add(0.98, 0);
+        window.add(0.04, 0);
+
+        // The samples either side of the period boundary average across it.
+        assertEquals(0.01, window.getAverage(0), E);
+
+        window.shift(-0.05);
+        assertEquals(0.96, window.getAverage(0), E);
+    }
+
+}
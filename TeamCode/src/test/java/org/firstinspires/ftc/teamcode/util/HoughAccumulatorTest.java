@@ -0,0 +1,93 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.firstinspires.ftc.teamcode.util.HoughLineDetector.HoughLine;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HoughAccumulatorTest {
+
+    private static final int WIDTH = 160;
+    private static final int HEIGHT = 120;
+
+    private HoughAccumulator accumulator;
+
+    @Before
+    public void setUp() {
+        accumulator = new HoughAccumulator(45, 135, 1, 1);
+    }
+
+    /**
+     * Returns an edge image with a horizontal line across it at the given row.
+     */
+    private byte[] horizontalLine(byte[] pixels, int row) {
+        for (int x = 0; x < WIDTH; x++) {
+            pixels[row * WIDTH + x] = (byte) 255;
+        }
+        return pixels;
+    }
+
+    @Test
+    public void findLineInBand() {
+        byte[] pixels = horizontalLine(new byte[WIDTH * HEIGHT], 40);
+
+        accumulator.accumulate(pixels, WIDTH, HEIGHT, 80, 100, 20, 60);
+        List<HoughLine> lines = new ArrayList<>();
+        accumulator.findLines(100, lines);
+
+        assertEquals(1, lines.size());
+        assertEquals(40, lines.get(0).rho, 0.5);
+        assertEquals(90, lines.get(0).theta, 0.5);
+    }
+
+    @Test
+    public void ignoreLinesOutsideBand() {
+        byte[] pixels = horizontalLine(new byte[WIDTH * HEIGHT], 40);
+
+        // Too far away.
+        List<HoughLine> lines = new ArrayList<>();
+        accumulator.accumulate(pixels, WIDTH, HEIGHT, 80, 100, 60, 100);
+        accumulator.findLines(100, lines);
+        assertTrue(lines.isEmpty());
+
+        // Wrong angle.
+        accumulator.accumulate(pixels, WIDTH, HEIGHT, 100, 120, 0, 120);
+        accumulator.findLines(100, lines);
+        assertTrue(lines.isEmpty());
+    }
+
+    @Test
+    public void findMostVotedLineFirst() {
+        byte[] pixels = horizontalLine(new byte[WIDTH * HEIGHT], 40);
+        horizontalLine(pixels, 80);
+        for (int x = 0; x < WIDTH / 2; x++) {
+            pixels[40 * WIDTH + x] = 0;
+        }
+
+        accumulator.accumulate(pixels, WIDTH, HEIGHT, 85, 95, 0, HEIGHT);
+        List<HoughLine> lines = new ArrayList<>();
+        accumulator.findLines(60, lines);
+
+        assertEquals(2, lines.size());
+        assertEquals(80, lines.get(0).rho, 0.5);
+        assertEquals(40, lines.get(1).rho, 0.5);
+    }
+
+    @Test
+    public void clearVotesBetweenImages() {
+        byte[] pixels = horizontalLine(new byte[WIDTH * HEIGHT], 40);
+        accumulator.accumulate(pixels, WIDTH, HEIGHT, 80, 100, 20, 60);
+
+        // The same line again would have twice the votes if the first image's votes were kept.
+        accumulator.accumulate(pixels, WIDTH, HEIGHT, 80, 100, 20, 60);
+        List<HoughLine> lines = new ArrayList<>();
+        accumulator.findLines(WIDTH, lines);
+        assertTrue(lines.isEmpty());
+    }
+
+}
@@ -0,0 +1,50 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
+import static org.firstinspires.ftc.teamcode.util.HoughLineDetector.HoughLine;
+import static org.junit.Assert.assertEquals;
+
+import org.firstinspires.ftc.teamcode.geometry.Line;
+import org.firstinspires.ftc.teamcode.geometry.Position;
+import org.junit.Test;
+import org.opencv.core.Size;
+
+public class HoughLineDetectorTest {
+
+    @Test
+    public void fromLine_horizontal() {
+        HoughLine line = HoughLine.fromLine(new Line(new Position(0, 40), new Position(160, 40)));
+        line = line.withThetaFrom(45);
+
+        assertEquals(40, line.rho, E);
+        assertEquals(90, line.theta, E);
+    }
+
+    @Test
+    public void fromLine_vertical() {
+        HoughLine line = HoughLine.fromLine(new Line(new Position(30, 0), new Position(30, 120)));
+        line = line.withThetaFrom(-45);
+
+        assertEquals(30, line.rho, E);
+        assertEquals(0, line.theta, E);
+    }
+
+    @Test
+    public void fromLine_roundTrip() {
+        HoughLine expected = new HoughLine(50, 70);
+        Line line = expected.toLine(new Size(160, 120));
+
+        HoughLine actual = HoughLine.fromLine(line).withThetaFrom(45);
+        assertEquals(expected.rho, actual.rho, 0.1);
+        assertEquals(expected.theta, actual.theta, 0.1);
+    }
+
+    @Test
+    public void withThetaFrom_turnsByHalfTurns() {
+        HoughLine line = new HoughLine(20, 150).withThetaFrom(-45);
+
+        assertEquals(-20, line.rho, E);
+        assertEquals(-30, line.theta, E);
+    }
+
+}
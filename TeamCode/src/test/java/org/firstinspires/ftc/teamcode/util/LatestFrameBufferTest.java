@@ -0,0 +1,86 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LatestFrameBufferTest {
+
+    private LatestFrameBuffer<StringBuilder> buffer;
+
+    @Before
+    public void setUp() {
+        buffer = new LatestFrameBuffer<>(new StringBuilder(), new StringBuilder(), new StringBuilder());
+    }
+
+    private void publish(String frame, long captureTime, int frameNumber) {
+        StringBuilder writeFrame = buffer.getWriteFrame();
+        writeFrame.setLength(0);
+        writeFrame.append(frame);
+        buffer.publish(captureTime, frameNumber);
+    }
+
+    @Test
+    public void takePublishedFrame() throws InterruptedException {
+        publish("a", 100, 1);
+
+        assertEquals("a", buffer.take(0).toString());
+        assertEquals(100, buffer.getTakenCaptureTime());
+        assertEquals(1, buffer.getTakenFrameNumber());
+        assertEquals(0, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void timeOutWithoutNewFrame() throws InterruptedException {
+        assertNull(buffer.take(1));
+
+        publish("a", 100, 1);
+        buffer.take(0);
+        assertNull(buffer.take(1));
+    }
+
+    @Test
+    public void dropStaleFrames() throws InterruptedException {
+        publish("a", 100, 1);
+        publish("b", 200, 2);
+        publish("c", 300, 3);
+
+        assertEquals("c", buffer.take(0).toString());
+        assertEquals(300, buffer.getTakenCaptureTime());
+        assertEquals(3, buffer.getTakenFrameNumber());
+        assertEquals(3, buffer.getPublishedCount());
+        assertEquals(2, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void neverWriteIntoTakenFrame() throws InterruptedException {
+        publish("a", 100, 1);
+        StringBuilder taken = buffer.take(0);
+
+        // However many frames the producer publishes, it never writes into the frame the consumer is reading.
+        for (int i = 0; i < 5; i++) {
+            assertNotSame(taken, buffer.getWriteFrame());
+            publish("b", 200, 2);
+        }
+        assertEquals("a", taken.toString());
+
+        StringBuilder next = buffer.take(0);
+        assertNotSame(taken, next);
+        assertEquals("b", next.toString());
+    }
+
+    @Test
+    public void reuseFrames() throws InterruptedException {
+        StringBuilder first = buffer.getWriteFrame();
+        publish("a", 100, 1);
+        publish("b", 200, 2);
+
+        // The first frame was replaced before it was taken, so it's written again.
+        assertSame(first, buffer.getWriteFrame());
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LoopSchedulerTest {
+
+    @Test
+    public void fixedRate() {
+        LoopScheduler scheduler = new LoopScheduler(5);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 11; i++) {
+            scheduler.waitForNextLoop();
+        }
+        double elapsedMs = (System.nanoTime() - start) / 1e6;
+
+        // The first iteration starts immediately, and the other ten are spaced one period apart.
+        assertTrue(elapsedMs >= 49.0);
+        assertEquals(11, scheduler.getLoopCount());
+        assertEquals(0, scheduler.getOverrunCount());
+        assertTrue(scheduler.getPeriodTiming().getPercentileMillis(50) >= 4.9);
+    }
+
+    @Test
+    public void overrun() throws InterruptedException {
+        LoopScheduler scheduler = new LoopScheduler(5);
+
+        scheduler.waitForNextLoop();
+        Thread.sleep(20);
+        scheduler.waitForNextLoop();
+        assertEquals(1, scheduler.getOverrunCount());
+
+        // After an overrun the schedule restarts, rather than running iterations back to back to catch up.
+        long start = System.nanoTime();
+        scheduler.waitForNextLoop();
+        assertTrue((System.nanoTime() - start) / 1e6 >= 4.9);
+        assertEquals(1, scheduler.getOverrunCount());
+    }
+
+    @Test
+    public void restart() throws InterruptedException {
+        LoopScheduler scheduler = new LoopScheduler(5);
+
+        scheduler.waitForNextLoop();
+        Thread.sleep(20);
+        scheduler.restart();
+        scheduler.waitForNextLoop();
+        assertEquals(0, scheduler.getOverrunCount());
+    }
+
+}
@@ -0,0 +1,159 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.firstinspires.ftc.teamcode.RobotDescriptor.EmpiricalStrafeCorrection;
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.assertVector;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.firstinspires.ftc.teamcode.RobotDescriptor;
+import org.firstinspires.ftc.teamcode.geometry.Heading;
+import org.firstinspires.ftc.teamcode.geometry.Vector2;
+import org.firstinspires.ftc.teamcode.util.MecanumUtil.MotorPowers;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class MecanumOdometryTest {
+
+    private static RobotDescriptor descriptor = new RobotDescriptor();
+
+    @Test
+    public void forward() {
+        MecanumOdometry odometry = new MecanumOdometry(descriptor);
+        double[] twist = new double[3];
+        odometry.calculateRobotMovement(10, 10, 10, 10, twist);
+
+        assertEquals(0, twist[MecanumOdometry.STRAFE], E);
+        assertEquals(MecanumUtil.ticksToTiles(descriptor, 10), twist[MecanumOdometry.FORWARD], E);
+        assertEquals(0, twist[MecanumOdometry.ROTATION], E);
+    }
+
+    @Test
+    public void rotateCounterClockwise() {
+        MecanumOdometry odometry = new MecanumOdometry(descriptor);
+        double[] twist = new double[3];
+
+        // Left wheels backward, right wheels forward.
+        odometry.calculateRobotMovement(-10, 10, -10, 10, twist);
+
+        assertEquals(0, twist[MecanumOdometry.STRAFE], E);
+        assertEquals(0, twist[MecanumOdometry.FORWARD], E);
+        assertTrue(twist[MecanumOdometry.ROTATION] > 0);
+    }
+
+    @Test
+    public void exp_straightLine() {
+        assertVector(new Vector2(0.5, 1.0), MecanumOdometry.exp(0.5, 1.0, 0));
+        assertVector(new Vector2(0.5, 1.0), MecanumOdometry.exp(0.5, 1.0, 1e-9));
+    }
+
+    @Test
+    public void exp_quarterCircle() {
+        // Driving forward along a quarter circle while turning left ends up ahead and to the left.
+        double radius = 1.0;
+        double arcLength = Math.PI / 2 * radius;
+        assertVector(new Vector2(-radius, radius), MecanumOdometry.exp(0, arcLength, Math.PI / 2));
+    }
+
+    @Test
+    public void arcMatchesManySmallSteps() {
+        MecanumOdometry odometry = new MecanumOdometry(descriptor);
+        descriptor.enableEmpiricalStrafeCorrection = false;
+        try {
+            // One big step along an arc should land where many small straight steps do.
+            Vector2 arc = odometry.calculatePositionOffset(400, 400, 400, 400, new Heading(90), 60, null);
+
+            // Each small step is taken at its middle heading.
+            Vector2 steps = new Vector2(0, 0);
+            Heading heading = new Heading(90 + 60.0 / 400 / 2);
+            for (int i = 0; i < 400; i++) {
+                steps = steps.add(odometry.calculatePositionOffset(1, 1, 1, 1, heading, 0, null));
+                heading = heading.add(60.0 / 400);
+            }
+
+            assertEquals(steps.getX(), arc.getX(), 1e-4);
+            assertEquals(steps.getY(), arc.getY(), 1e-4);
+        } finally {
+            descriptor.enableEmpiricalStrafeCorrection = true;
+        }
+    }
+
+    @Test
+    public void offsetFromWheelDelta_simpleMoveForward() {
+        Vector2 offset = new MecanumOdometry(descriptor).calculatePositionOffset(
+                10, 10, 10, 10,
+                new Heading(90), 0, null
+        );
+
+        double expectedTiles = MecanumUtil.ticksToTiles(descriptor, 10);
+
+        assertVector(new Vector2(0.0, expectedTiles), offset);
+    }
+
+    @Test
+    public void offsetFromWheelDelta_strafeRight() {
+        Vector2 offset = new MecanumOdometry(descriptor).calculatePositionOffset(
+                -10, 10, 10, -10,
+                new Heading(90), 0, null
+        );
+
+        double expectedTiles = MecanumUtil.ticksToTiles(descriptor, 10);
+
+        assertVector(new Vector2(expectedTiles, 0.0), offset);
+    }
+
+    @Test
+    public void offsetFromWheelDelta_strafeRight_withStrafeCorrection() {
+        double strafeCorrection = 0.95;
+        descriptor.empiricalStrafeCorrections = Arrays.asList(
+                new EmpiricalStrafeCorrection(0.5, strafeCorrection)
+        );
+
+        Vector2 offset = new MecanumOdometry(descriptor).calculatePositionOffset(
+                -10, 10, 10, -10,
+                new Heading(90), 0, new MotorPowers(-0.5, 0.5, 0.5, -0.5)
+        );
+
+        double expectedTiles = MecanumUtil.ticksToTiles(descriptor, 10) * strafeCorrection;
+
+        assertVector(new Vector2(expectedTiles, 0.0), offset);
+    }
+
+    @Test
+    public void offsetFromWheelDelta_strafeRight_withStrafeCorrectionInterpolated() {
+        descriptor.empiricalStrafeCorrections = Arrays.asList(
+                new EmpiricalStrafeCorrection(0.2, 0.99),
+                new EmpiricalStrafeCorrection(0.5, 0.9),
+                new EmpiricalStrafeCorrection(0.75, 0.85),
+                new EmpiricalStrafeCorrection(0.9, 0.84)
+        );
+
+        // Use motor power of 0.6, which is 2/5 of the way between 0.5 and 0.75, therefore the
+        // applied strafe correction should be 2/5 of the way between 0.9 and 0.85
+        double motorPower = 0.6;
+        double strafeCorrection = 0.88;
+
+        Vector2 offset = new MecanumOdometry(descriptor).calculatePositionOffset(
+                -10, 10, 10, -10,
+                new Heading(90), 0, new MotorPowers(-motorPower, motorPower, motorPower, -motorPower)
+        );
+
+        double expectedTiles = MecanumUtil.ticksToTiles(descriptor, 10) * strafeCorrection;
+
+        assertVector(new Vector2(expectedTiles, 0.0), offset);
+    }
+
+    @Test
+    public void offsetFromWheelDelta_move45() {
+        Vector2 offset = new MecanumOdometry(descriptor).calculatePositionOffset(
+                10, 10, 10, 10,
+                new Heading(45), 0, null
+        );
+
+        double expectedTiles = MecanumUtil.ticksToTiles(descriptor, 10) / Math.sqrt(2);
+
+        assertVector(new Vector2(expectedTiles, expectedTiles), offset);
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ParallelInitTest {
+
+    @Test
+    public void stepsRunConcurrently() throws Exception {
+        // Each step waits at the barrier until all of them have reached it, which they only can if they are running
+        // at the same time.  Run one after another, the first would time out at the barrier and fail.
+        CyclicBarrier barrier = new CyclicBarrier(3);
+        ParallelInit init = new ParallelInit();
+        for (int i = 0; i < 3; i++) {
+            init.run("Step " + i, awaitAll(barrier));
+        }
+
+        init.finish().get(10, TimeUnit.SECONDS);
+        for (String line : init.getReport()) {
+            assertTrue(line.contains("done"));
+        }
+    }
+
+    @Test
+    public void asyncStep() throws Exception {
+        ParallelInit init = new ParallelInit();
+        ParallelInit.Step step = init.begin("Camera");
+        Future<Void> readiness = init.finish();
+
+        assertFalse(readiness.isDone());
+        step.complete();
+        assertTrue(readiness.isDone());
+        readiness.get();
+    }
+
+    @Test
+    public void notReadyUntilFinished() {
+        ParallelInit init = new ParallelInit();
+        init.begin("Camera").complete();
+
+        // More steps could still be added.
+        assertFalse(init.getReadiness().isDone());
+        init.finish();
+        assertTrue(init.getReadiness().isDone());
+    }
+
+    @Test
+    public void failure() throws Exception {
+        ParallelInit init = new ParallelInit();
+        init.run("Broken", new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("broken");
+            }
+        });
+
+        try {
+            init.finish().get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(init.getReport().get(0).contains("failed"));
+    }
+
+    private static Runnable awaitAll(final CyclicBarrier barrier) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    barrier.await(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Steps didn't overlap", e);
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,155 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.assertPosition;
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.assertVector;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.firstinspires.ftc.teamcode.RobotDescriptor;
+import org.firstinspires.ftc.teamcode.geometry.Heading;
+import org.firstinspires.ftc.teamcode.geometry.Position;
+import org.firstinspires.ftc.teamcode.geometry.Vector2;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PoseEstimatorTest {
+
+    private RobotDescriptor robotDescriptor = new RobotDescriptor();
+
+    private PoseEstimator estimator;
+
+    @Before
+    public void setUp() {
+        estimator = new PoseEstimator(robotDescriptor);
+        estimator.setPosition(new Position(0.5, 0.5));
+        estimator.setHeading(new Heading(90));
+    }
+
+    @Test
+    public void predict() {
+        double initialDeviation = estimator.getStandardDeviation(PoseEstimator.X);
+
+        estimator.predict(new Vector2(0, 0.1), 5, 0.1);
+
+        assertPosition(new Position(0.5, 0.6), estimator.getPosition());
+        assertEquals(95, estimator.getHeading().getValue(), E);
+        assertVector(new Vector2(0, 1), estimator.getVelocity());
+        assertEquals(50, estimator.getAngularVelocity(), E);
+
+        // The uncertainty grows as the robot moves.
+        assertTrue(estimator.getStandardDeviation(PoseEstimator.X) > initialDeviation);
+    }
+
+    @Test
+    public void headingUncertaintySpreadsToPosition() {
+        // Driving forward along y, a heading error means an error in x.
+        estimator.predict(new Vector2(0, 1), 0, 1);
+        assertTrue(estimator.getCovariance(PoseEstimator.X, PoseEstimator.HEADING) != 0);
+        assertEquals(0, estimator.getCovariance(PoseEstimator.Y, PoseEstimator.HEADING), E);
+    }
+
+    @Test
+    public void update() {
+        assertTrue(estimator.update(PoseEstimator.X, 0.55, robotDescriptor.initialPositionNoise, 4));
+
+        // With equal uncertainty in the estimate and the measurement, the result is halfway between.
+        assertEquals(0.525, estimator.getPosition().getX(), E);
+        assertTrue(estimator.getStandardDeviation(PoseEstimator.X) < robotDescriptor.initialPositionNoise);
+        assertEquals(0.5, estimator.getPosition().getY(), E);
+    }
+
+    @Test
+    public void rejectOutlier() {
+        assertFalse(estimator.update(PoseEstimator.X, 1.5, robotDescriptor.tileEdgeDistanceNoise, 4));
+        assertEquals(0.5, estimator.getPosition().getX(), E);
+        assertEquals(1, estimator.getRejectedCount());
+    }
+
+    @Test
+    public void updateHeadingAcrossZero() {
+        estimator.setHeading(new Heading(359));
+
+        assertTrue(estimator.update(PoseEstimator.HEADING, 1, robotDescriptor.initialHeadingNoise, 4));
+        assertEquals(0, estimator.getHeading().getValue(), E);
+    }
+
+    @Test
+    public void updatePose() {
+        double positionVariance = robotDescriptor.initialPositionNoise * robotDescriptor.initialPositionNoise;
+        double headingVariance = robotDescriptor.initialHeadingNoise * robotDescriptor.initialHeadingNoise;
+        double[][] measurementCovariance = {
+                {positionVariance, 0, 0},
+                {0, positionVariance, 0},
+                {0, 0, headingVariance}
+        };
+
+        assertTrue(estimator.update(new Position(0.55, 0.45), new Heading(92), measurementCovariance, 4));
+
+        // With equal uncertainty in the estimate and the measurement, the result is halfway between.
+        assertPosition(new Position(0.525, 0.475), estimator.getPosition());
+        assertEquals(91, estimator.getHeading().getValue(), E);
+        assertTrue(estimator.getStandardDeviation(PoseEstimator.X) < robotDescriptor.initialPositionNoise);
+        assertEquals(1, estimator.getAcceptedCount());
+    }
+
+    @Test
+    public void updatePoseCorrelated() {
+        // A measurement whose x error follows its heading error also corrects x when only the heading is off.
+        double[][] measurementCovariance = {
+                {1e-4, 0, 1e-3},
+                {0, 1e-4, 0},
+                {1e-3, 0, 1e-2 + 1e-6}
+        };
+
+        assertTrue(estimator.update(new Position(0.5, 0.5), new Heading(91), measurementCovariance, 10));
+        assertTrue(estimator.getCovariance(PoseEstimator.X, PoseEstimator.HEADING) != 0);
+    }
+
+    @Test
+    public void rejectPoseOutlier() {
+        double[][] measurementCovariance = {
+                {1e-4, 0, 0},
+                {0, 1e-4, 0},
+                {0, 0, 1}
+        };
+
+        assertFalse(estimator.update(new Position(1.5, 0.5), new Heading(90), measurementCovariance, 4));
+        assertPosition(new Position(0.5, 0.5), estimator.getPosition());
+        assertEquals(1, estimator.getRejectedCount());
+    }
+
+    @Test
+    public void set() {
+        estimator.predict(new Vector2(0, 1), 0, 1);
+
+        estimator.set(PoseEstimator.X, 1.5, 0.01);
+
+        assertEquals(1.5, estimator.getPosition().getX(), E);
+        assertEquals(0.01, estimator.getStandardDeviation(PoseEstimator.X), E);
+        assertEquals(0, estimator.getCovariance(PoseEstimator.X, PoseEstimator.HEADING), E);
+    }
+
+    @Test
+    public void estimateGyroBias() {
+        assertEquals(0, estimator.getGyroBias(), E);
+
+        // The robot is still, but the IMU drifts 0.1 degree / sec, and the tile edges keep seeing the true heading
+        // through a two minute match.
+        for (int i = 0; i < 1200; i++) {
+            estimator.predict(new Vector2(0, 0), 0.01, 0.1);
+            estimator.update(PoseEstimator.HEADING, 90, robotDescriptor.tileEdgeHeadingNoise, 4);
+        }
+        assertEquals(0.1, estimator.getGyroBias(), 0.02);
+
+        // With the drift learned, the heading holds without any more observations.
+        double heading = estimator.getHeading().getValue();
+        for (int i = 0; i < 100; i++) {
+            estimator.predict(new Vector2(0, 0), 0.01, 0.1);
+        }
+        assertEquals(heading, estimator.getHeading().getValue(), 0.2);
+        assertEquals(0, estimator.getAngularVelocity(), 0.02);
+    }
+
+}
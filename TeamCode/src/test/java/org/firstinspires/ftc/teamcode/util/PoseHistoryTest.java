@@ -0,0 +1,96 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PoseHistoryTest {
+
+    private PoseHistory history;
+    private double[] pose = new double[PoseHistory.POSE_SIZE];
+    private double[] motion = new double[PoseHistory.POSE_SIZE];
+
+    @Before
+    public void setUp() {
+        history = new PoseHistory(10);
+    }
+
+    @Test
+    public void interpolate() {
+        recordDrive(history, 5);
+
+        assertTrue(history.getPoseAt(250, pose));
+        assertEquals(2.5, pose[0], E);
+        assertEquals(0, pose[1], E);
+        assertEquals(25, pose[2], E);
+    }
+
+    @Test
+    public void interpolateHeadingAcrossZero() {
+        history.record(0, 0, 0, 350, 0, 0, 0);
+        history.record(100, 0, 0, 10, 0, 0, 20);
+
+        assertTrue(history.getPoseAt(50, pose));
+        assertEquals(0, pose[2], E);
+    }
+
+    @Test
+    public void outsideHistory() {
+        recordDrive(history, 5);
+
+        assertFalse(history.getPoseAt(-1, pose));
+
+        // After the newest entry, the newest pose is used.
+        assertTrue(history.getPoseAt(1000, pose));
+        assertEquals(4, pose[0], E);
+    }
+
+    @Test
+    public void motionSince() {
+        recordDrive(history, 5);
+
+        history.getMotionSince(250, motion);
+        assertEquals(1.5, motion[0], E);
+        assertEquals(15, motion[2], E);
+
+        history.getMotionSince(400, motion);
+        assertEquals(0, motion[0], E);
+    }
+
+    @Test
+    public void wrapAround() {
+        history = new PoseHistory(4);
+        recordDrive(history, 10);
+
+        assertEquals(4, history.size());
+        assertFalse(history.getPoseAt(500, pose));
+        assertTrue(history.getPoseAt(650, pose));
+        assertEquals(6.5, pose[0], E);
+
+        history.getMotionSince(650, motion);
+        assertEquals(2.5, motion[0], E);
+    }
+
+    @Test
+    public void clear() {
+        recordDrive(history, 5);
+        history.clear();
+
+        assertEquals(0, history.size());
+        assertFalse(history.getPoseAt(250, pose));
+    }
+
+    /**
+     * Records a robot driving along x at one tile per 100 time units, turning 10 degrees each time.
+     */
+    private static void recordDrive(PoseHistory history, int entries) {
+        for (int i = 0; i < entries; i++) {
+            history.record(i * 100, i, 0, 10 * i, 1, 0, 10);
+        }
+    }
+
+}
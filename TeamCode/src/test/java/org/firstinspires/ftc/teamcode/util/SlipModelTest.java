@@ -0,0 +1,88 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
+import static org.junit.Assert.assertEquals;
+
+import org.firstinspires.ftc.teamcode.RobotDescriptor.EmpiricalStrafeCorrection;
+import org.firstinspires.ftc.teamcode.util.MecanumUtil.MotorPowers;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class SlipModelTest {
+
+    @Test
+    public void fromEmpiricalStrafeCorrections() {
+        SlipModel model = SlipModel.fromEmpiricalStrafeCorrections(Arrays.asList(
+                new EmpiricalStrafeCorrection(0.9, 0.84),
+                new EmpiricalStrafeCorrection(0.2, 0.99),
+                new EmpiricalStrafeCorrection(0.5, 0.9)
+        ));
+
+        assertEquals(0.87, model.getStrafeCorrection(90, 0.7), E);
+        assertEquals(0.87, model.getStrafeCorrection(45, 0.7), E);
+
+        // Below the lowest measurement, carry on the slope of the lowest two.
+        assertEquals(1.02, model.getStrafeCorrection(90, 0.1), E);
+    }
+
+    @Test
+    public void bilinearInterpolation() {
+        double[][] table = new double[SlipModel.DIRECTION_STEPS][SlipModel.POWER_STEPS];
+        for (int d = 0; d < SlipModel.DIRECTION_STEPS; d++) {
+            for (int p = 0; p < SlipModel.POWER_STEPS; p++) {
+                table[d][p] = 1.0 - d * 0.01 - p * 0.001;
+            }
+        }
+        SlipModel model = new SlipModel(table);
+
+        assertEquals(1.0 - 0.05 - 0.0035, model.getStrafeCorrection(75, 0.35), E);
+
+        // Clamped to the ends of the table.
+        assertEquals(1.0 - 0.06 - 0.0035, model.getStrafeCorrection(97.5, 0.35), E);
+        assertEquals(1.0 - 0.06 - 0.01, model.getStrafeCorrection(90, 1.2), E);
+    }
+
+    @Test
+    public void directionAndPower() {
+        MotorPowers forward = new MotorPowers(0.5, 0.5, 0.5, 0.5);
+        MotorPowers strafeRight = new MotorPowers(-0.5, 0.5, 0.5, -0.5);
+        MotorPowers diagonal = new MotorPowers(0, 0.6, 0.6, 0);
+
+        assertEquals(0, SlipModel.getDirection(forward), E);
+        assertEquals(90, SlipModel.getDirection(strafeRight), E);
+        assertEquals(45, SlipModel.getDirection(diagonal), E);
+        assertEquals(0.3, SlipModel.getPower(diagonal), E);
+    }
+
+    @Test
+    public void fit() {
+        SlipModel prior = SlipModel.constant(0.9);
+        SlipModel.Fitter fitter = new SlipModel.Fitter();
+
+        // Strafing at 0.5 power slips by 20%.
+        fitter.addSample(90, 0.5, 1.0, 0.8);
+        fitter.addSample(90, 0.5, -1.0, -0.8);
+        SlipModel fitted = fitter.fit(prior);
+
+        assertEquals(2, fitter.getSampleCount());
+        assertEquals(0.8, fitted.getStrafeCorrection(90, 0.5), E);
+
+        // Without samples, the prior is kept.
+        assertEquals(0.9, fitted.getStrafeCorrection(0, 0.5), E);
+        assertEquals(0.9, fitted.getStrafeCorrection(90, 1.0), E);
+    }
+
+    @Test
+    public void linesRoundTrip() {
+        SlipModel.Fitter fitter = new SlipModel.Fitter();
+        fitter.addSample(60, 0.7, 1.0, 0.85);
+        SlipModel model = fitter.fit(SlipModel.constant(0.9));
+
+        SlipModel parsed = SlipModel.fromLines(Arrays.asList(model.toLines()));
+
+        assertEquals(model.getStrafeCorrection(60, 0.7), parsed.getStrafeCorrection(60, 0.7), E);
+        assertEquals(model.getStrafeCorrection(20, 0.25), parsed.getStrafeCorrection(20, 0.25), E);
+    }
+
+}
@@ -0,0 +1,114 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TileHypothesisTrackerTest {
+
+    private static final double ESTIMATE_VARIANCE = 0.01;
+
+    private TileHypothesisTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = new TileHypothesisTracker(1, 0.02, 0.9, 0.95, 3);
+    }
+
+    @Test
+    public void commitAfterConsistentObservations() {
+        tracker.add(0.1, ESTIMATE_VARIANCE);
+        tracker.add(0.1, ESTIMATE_VARIANCE);
+        assertFalse(tracker.isCommitted());
+
+        tracker.add(1.1, ESTIMATE_VARIANCE);
+        assertTrue(tracker.isCommitted());
+        assertEquals(0.1, tracker.getResidual(), E);
+    }
+
+    @Test
+    public void halfTileIsAmbiguous() {
+        for (int i = 0; i < 10; i++) {
+            tracker.add(0.5, ESTIMATE_VARIANCE);
+        }
+        assertFalse(tracker.isCommitted());
+        assertEquals(0.5, tracker.getProbability(tracker.getResidual() > 0 ? 0 : -1), 0.01);
+    }
+
+    @Test
+    public void followDriftIntoNextTile() {
+        for (int i = 0; i < 3; i++) {
+            tracker.add(0.4, ESTIMATE_VARIANCE);
+        }
+
+        // The residual creeps past half a tile, where it wraps around to the other side.
+        tracker.add(0.44, ESTIMATE_VARIANCE);
+        tracker.add(0.48, ESTIMATE_VARIANCE);
+        tracker.add(-0.48, ESTIMATE_VARIANCE);
+        tracker.add(-0.44, ESTIMATE_VARIANCE);
+
+        assertTrue(tracker.isCommitted());
+        assertEquals(0.56, tracker.getResidual(), E);
+    }
+
+    @Test
+    public void estimateDecidesAfterDrift() {
+        for (int i = 0; i < 3; i++) {
+            tracker.add(0.4, ESTIMATE_VARIANCE);
+        }
+
+        // After a long drive the earlier observations no longer say which side of the wrap the robot is on, so the
+        // nearer tile wins.
+        tracker.drift(1);
+        for (int i = 0; i < 5; i++) {
+            tracker.add(-0.3, ESTIMATE_VARIANCE);
+        }
+
+        assertTrue(tracker.isCommitted());
+        assertEquals(-0.3, tracker.getResidual(), E);
+    }
+
+    @Test
+    public void moveEstimate() {
+        for (int i = 0; i < 3; i++) {
+            tracker.add(0.3, ESTIMATE_VARIANCE);
+        }
+
+        // Once the estimate has been corrected, the same place is measured from the new estimate.
+        tracker.moveEstimate(0.3);
+        assertEquals(0, tracker.getResidual(), E);
+
+        tracker.add(0.01, ESTIMATE_VARIANCE);
+        assertTrue(tracker.isCommitted());
+        assertEquals(0.01, tracker.getResidual(), E);
+    }
+
+    @Test
+    public void estimateStuck() {
+        tracker.recordUpdate(false);
+        tracker.recordUpdate(false);
+        assertFalse(tracker.isEstimateStuck());
+        tracker.recordUpdate(false);
+        assertTrue(tracker.isEstimateStuck());
+
+        tracker.recordUpdate(true);
+        assertFalse(tracker.isEstimateStuck());
+    }
+
+    @Test
+    public void reset() {
+        for (int i = 0; i < 3; i++) {
+            tracker.add(0.2, ESTIMATE_VARIANCE);
+        }
+        assertTrue(tracker.isCommitted());
+
+        tracker.reset();
+        assertFalse(tracker.isCommitted());
+        assertEquals(0, tracker.getObservationCount());
+    }
+
+}
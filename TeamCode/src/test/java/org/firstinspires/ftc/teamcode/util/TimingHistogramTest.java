@@ -0,0 +1,49 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TimingHistogramTest {
+
+    @Test
+    public void bucketIndex() {
+        for (long micros = 0; micros < 100000; micros++) {
+            int index = TimingHistogram.bucketIndex(micros);
+            assertTrue(micros <= TimingHistogram.bucketUpperMicros(index));
+            assertTrue(index == 0 || micros > TimingHistogram.bucketUpperMicros(index - 1));
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        TimingHistogram histogram = new TimingHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000000L);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, histogram.getMeanMillis(), E);
+        assertEquals(100.0, histogram.getMaxMillis(), E);
+
+        double p50 = histogram.getPercentileMillis(50);
+        assertTrue(p50 >= 50.0 && p50 < 50.0 * 1.25);
+
+        double p95 = histogram.getPercentileMillis(95);
+        assertTrue(p95 >= 95.0 && p95 <= 100.0);
+    }
+
+    @Test
+    public void reset() {
+        TimingHistogram histogram = new TimingHistogram();
+        histogram.record(5000000L);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getPercentileMillis(50), E);
+        assertEquals(0.0, histogram.getMaxMillis(), E);
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.firstinspires.ftc.teamcode.util;
+
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.E;
+import static org.firstinspires.ftc.teamcode.util.AssertUtil.assertVector;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.firstinspires.ftc.teamcode.geometry.Heading;
+import org.firstinspires.ftc.teamcode.geometry.Vector2;
+import org.junit.Test;
+
+public class VelocityEstimatorTest {
+
+    @Test
+    public void firstMeasurement() {
+        VelocityEstimator estimator = new VelocityEstimator(0.4, 0.05);
+        estimator.update(0.5, 1.0, 30, 0.01);
+
+        assertVector(new Vector2(0.5, 1.0), estimator.getRobotVelocity());
+        assertEquals(30, estimator.getAngularVelocity(), E);
+    }
+
+    @Test
+    public void fieldVelocity() {
+        VelocityEstimator estimator = new VelocityEstimator(1, 0);
+        estimator.update(0, 1.0, 0, 0.01);
+
+        // Facing along the x axis, forward is +x.
+        assertVector(new Vector2(1.0, 0), estimator.getFieldVelocity(new Heading(0)));
+        assertVector(new Vector2(0, 1.0), estimator.getFieldVelocity(new Heading(90)));
+    }
+
+    @Test
+    public void smoothsNoise() {
+        VelocityEstimator estimator = new VelocityEstimator(0.2, 0);
+        estimator.update(0, 1.0, 0, 0.01);
+
+        // A single noisy measurement only moves the velocity part of the way.
+        estimator.update(0, 2.0, 0, 0.01);
+        assertEquals(1.2, estimator.getRobotVelocity().getY(), E);
+    }
+
+    @Test
+    public void tracksAcceleration() {
+        VelocityEstimator lowPass = new VelocityEstimator(0.2, 0);
+        VelocityEstimator alphaBeta = new VelocityEstimator(0.2, 0.05);
+
+        // Accelerate at one tile / sec^2.
+        for (int i = 0; i <= 100; i++) {
+            double measured = i * 0.01;
+            lowPass.update(0, measured, 0, 0.01);
+            alphaBeta.update(0, measured, 0, 0.01);
+        }
+
+        // The alpha-beta filter learns the acceleration, so lags behind much less than the low-pass filter.
+        double lowPassLag = 1.0 - lowPass.getRobotVelocity().getY();
+        double alphaBetaLag = 1.0 - alphaBeta.getRobotVelocity().getY();
+        assertTrue(lowPassLag > 0.03);
+        assertTrue(Math.abs(alphaBetaLag) < 0.01);
+    }
+
+}